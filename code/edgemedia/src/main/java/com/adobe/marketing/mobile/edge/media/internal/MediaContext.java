@@ -58,6 +58,8 @@ class MediaContext {
     private AdBreakInfo adBreakInfo;
     private ChapterInfo chapterInfo;
     private QoEInfo qoeInfo;
+    // Incremented on every QoE update, lets the XDM event generator skip unchanged QoE.
+    private long qoeVersion;
     private Map<String, String> mediaMetadata, adMetadata, chapterMetadata;
     private boolean buffering, seeking;
     private MediaPlaybackState playState;
@@ -147,7 +149,7 @@ class MediaContext {
         }
 
         if (metadata != null) {
-            chapterMetadata = metadata;
+            chapterMetadata = new HashMap<>(metadata);
         }
     }
 
@@ -162,6 +164,8 @@ class MediaContext {
         } else {
             this.qoeInfo = null;
         }
+
+        qoeVersion++;
     }
 
     void setPlayhead(final int playhead) {
@@ -200,6 +204,10 @@ class MediaContext {
         return qoeInfo;
     }
 
+    long getQoEVersion() {
+        return qoeVersion;
+    }
+
     int getPlayhead() {
         return playhead;
     }
@@ -0,0 +1,282 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.media.internal
+
+import com.adobe.marketing.mobile.edge.media.internal.MediaInternalConstants.LOG_TAG
+import com.adobe.marketing.mobile.edge.media.internal.xdm.XDMMediaEvent
+import com.adobe.marketing.mobile.edge.media.internal.xdm.XDMMediaEventType
+import com.adobe.marketing.mobile.services.DataEntity
+import com.adobe.marketing.mobile.services.DataQueue
+import com.adobe.marketing.mobile.services.Log
+import com.adobe.marketing.mobile.util.JSONUtils
+import org.json.JSONException
+import org.json.JSONObject
+import java.util.IdentityHashMap
+
+/**
+ * Append-only on-disk log of the events queued by persistent [MediaSession]s, backed by a core
+ * [DataQueue].
+ *
+ * Sessions append the events which wait in their queue as `add` records, events sent right away
+ * are not journaled. Each journaled event which is processed or dropped is logged as a `remove`
+ * record, so the events still queued when the process died are the `add` records without a
+ * matching `remove`. The log is cleared whenever no journaled event is queued.
+ *
+ * Thread safe, shared by all the sessions of a [MediaEventProcessor].
+ *
+ * @param dataQueueProvider provides the [DataQueue], called once on first use
+ */
+internal class MediaEventJournal(dataQueueProvider: () -> DataQueue?) {
+
+    companion object {
+        const val DATA_QUEUE_NAME = "com.adobe.edge.media.eventjournal"
+
+        private const val SOURCE_TAG = "MediaEventJournal"
+        private const val KEY_OPERATION = "op"
+        private const val KEY_SESSION_ID = "session"
+        private const val KEY_SEQUENCE = "seq"
+        private const val KEY_EVENT_TYPE = "type"
+        private const val KEY_TIMESTAMP = "timestamp"
+        private const val KEY_DATA = "data"
+        private const val KEY_BACKEND_SESSION_ID = "backendSessionId"
+        private const val OPERATION_ADD = "add"
+        private const val OPERATION_REMOVE = "remove"
+        private const val OPERATION_BACKEND_SESSION = "backendSession"
+        private const val OPERATION_REMOVE_SESSION = "removeSession"
+    }
+
+    /**
+     * An event which was still queued when the process died.
+     * @property eventType the [XDMMediaEventType] value of the event
+     * @property timestamp the event timestamp in milliseconds since the epoch
+     * @property data the event as serialized by [XDMMediaEvent.serializeToXDM]
+     */
+    data class RecoveredEvent(
+        val eventType: String,
+        val timestamp: Long,
+        val data: Map<String, Any?>
+    )
+
+    /**
+     * The events of a session which were still queued when the process died.
+     * @property sessionId the ID of the [MediaSession] in the previous launch
+     * @property backendSessionId the backend session ID, or null if it was not received
+     * @property events the queued events in order
+     */
+    data class RecoveredSession(
+        val sessionId: String,
+        val backendSessionId: String?,
+        val events: List<RecoveredEvent>
+    )
+
+    private val dataQueue: DataQueue? by lazy { dataQueueProvider() }
+
+    // Sequence numbers of the journaled events still queued in this process, and their session ID
+    private val sequences = IdentityHashMap<XDMMediaEvent, Long>()
+    private val sessionIds = IdentityHashMap<XDMMediaEvent, String>()
+    private var nextSequence = 0L
+
+    // Sessions which journaled events in this launch, skipped by the recovery
+    private val liveSessionIds = HashSet<String>()
+
+    // Set once the records of the previous launch were recovered, the log is not compacted before.
+    private var isRecovered = false
+
+    /**
+     * Appends the event queued by the given session.
+     * @param sessionId the ID of the [MediaSession]
+     * @param backendSessionId the backend session ID of the session, or null if not received yet
+     * @param event the queued [XDMMediaEvent]
+     */
+    @Synchronized
+    fun append(sessionId: String, backendSessionId: String?, event: XDMMediaEvent) {
+        val sequence = nextSequence++
+        val record = JSONObject()
+            .put(KEY_OPERATION, OPERATION_ADD)
+            .put(KEY_SESSION_ID, sessionId)
+            .put(KEY_SEQUENCE, sequence)
+            .put(KEY_EVENT_TYPE, event.xdmData.eventType.value)
+            .put(KEY_TIMESTAMP, event.xdmData.timestamp)
+            .put(KEY_DATA, JSONObject(event.serializeToXDM()))
+        backendSessionId?.let { record.put(KEY_BACKEND_SESSION_ID, it) }
+
+        liveSessionIds.add(sessionId)
+        if (write(record)) {
+            sequences[event] = sequence
+            sessionIds[event] = sessionId
+        }
+    }
+
+    /**
+     * Returns true if the event was appended and is not removed yet.
+     */
+    @Synchronized
+    fun contains(event: XDMMediaEvent): Boolean {
+        return sequences.containsKey(event)
+    }
+
+    /**
+     * Records that the event is no longer queued by the given session.
+     * Events which were not appended are ignored.
+     */
+    @Synchronized
+    fun remove(sessionId: String, event: XDMMediaEvent) {
+        val sequence = sequences.remove(event) ?: return
+        sessionIds.remove(event)
+
+        if (sequences.isEmpty() && isRecovered) {
+            // Nothing journaled is queued anymore, compact the log.
+            dataQueue?.clear()
+            return
+        }
+
+        write(
+            JSONObject()
+                .put(KEY_OPERATION, OPERATION_REMOVE)
+                .put(KEY_SESSION_ID, sessionId)
+                .put(KEY_SEQUENCE, sequence)
+        )
+    }
+
+    /**
+     * Records that none of the events of the given session is queued anymore, with a single record.
+     */
+    @Synchronized
+    fun removeSession(sessionId: String) {
+        var isRemoved = false
+        val iterator = sessionIds.entries.iterator()
+        while (iterator.hasNext()) {
+            val entry = iterator.next()
+            if (entry.value == sessionId) {
+                sequences.remove(entry.key)
+                iterator.remove()
+                isRemoved = true
+            }
+        }
+
+        if (!isRemoved) {
+            return
+        }
+
+        if (sequences.isEmpty() && isRecovered) {
+            // Nothing journaled is queued anymore, compact the log.
+            dataQueue?.clear()
+            return
+        }
+
+        write(
+            JSONObject()
+                .put(KEY_OPERATION, OPERATION_REMOVE_SESSION)
+                .put(KEY_SESSION_ID, sessionId)
+        )
+    }
+
+    /**
+     * Records the backend session ID of the given session, needed to send its events on recovery.
+     * The events appended afterwards carry it in their own record.
+     */
+    @Synchronized
+    fun setBackendSessionId(sessionId: String, backendSessionId: String) {
+        if (sequences.isEmpty()) {
+            return
+        }
+
+        write(
+            JSONObject()
+                .put(KEY_OPERATION, OPERATION_BACKEND_SESSION)
+                .put(KEY_SESSION_ID, sessionId)
+                .put(KEY_BACKEND_SESSION_ID, backendSessionId)
+        )
+    }
+
+    /**
+     * Reads the events left queued by the previous launch and removes them from the log.
+     * Sessions of this launch are skipped. Only the first call recovers events.
+     *
+     * @return the recovered sessions with at least one queued event
+     */
+    @Synchronized
+    fun recover(): List<RecoveredSession> {
+        if (isRecovered) {
+            return emptyList()
+        }
+        isRecovered = true
+        val queue = dataQueue ?: return emptyList()
+        val count = queue.count()
+        if (count <= 0) {
+            return emptyList()
+        }
+        val entities = queue.peek(count) ?: return emptyList()
+
+        val events = LinkedHashMap<String, LinkedHashMap<Long, RecoveredEvent>>()
+        val backendSessionIds = HashMap<String, String>()
+
+        for (entity in entities) {
+            try {
+                val record = JSONObject(entity.data ?: continue)
+                val sessionId = record.getString(KEY_SESSION_ID)
+                if (liveSessionIds.contains(sessionId)) {
+                    continue
+                }
+
+                when (record.getString(KEY_OPERATION)) {
+                    OPERATION_ADD -> {
+                        events.getOrPut(sessionId) { LinkedHashMap() }[record.getLong(KEY_SEQUENCE)] = RecoveredEvent(
+                            record.getString(KEY_EVENT_TYPE),
+                            record.getLong(KEY_TIMESTAMP),
+                            JSONUtils.toMap(record.getJSONObject(KEY_DATA))
+                        )
+                        if (record.has(KEY_BACKEND_SESSION_ID)) {
+                            backendSessionIds[sessionId] = record.getString(KEY_BACKEND_SESSION_ID)
+                        }
+                    }
+                    OPERATION_REMOVE -> events[sessionId]?.remove(record.getLong(KEY_SEQUENCE))
+                    OPERATION_REMOVE_SESSION -> events[sessionId]?.clear()
+                    OPERATION_BACKEND_SESSION -> backendSessionIds[sessionId] = record.getString(KEY_BACKEND_SESSION_ID)
+                }
+            } catch (e: JSONException) {
+                Log.debug(LOG_TAG, SOURCE_TAG, "recover - Skipping invalid journal record: ${e.message}")
+            }
+        }
+
+        val recoveredSessions = events
+            .filter { it.value.isNotEmpty() }
+            .map { (sessionId, sessionEvents) ->
+                RecoveredSession(sessionId, backendSessionIds[sessionId], sessionEvents.values.toList())
+            }
+
+        // The recovered events are handled by the caller, mark them removed.
+        if (sequences.isEmpty()) {
+            queue.clear()
+        } else {
+            for (session in recoveredSessions) {
+                write(
+                    JSONObject()
+                        .put(KEY_OPERATION, OPERATION_REMOVE_SESSION)
+                        .put(KEY_SESSION_ID, session.sessionId)
+                )
+            }
+        }
+
+        return recoveredSessions
+    }
+
+    private fun write(record: JSONObject): Boolean {
+        val queue = dataQueue ?: return false
+        if (!queue.add(DataEntity(record.toString()))) {
+            Log.debug(LOG_TAG, SOURCE_TAG, "write - Failed to write journal record (${record.optString(KEY_OPERATION)}).")
+            return false
+        }
+
+        return true
+    }
+}
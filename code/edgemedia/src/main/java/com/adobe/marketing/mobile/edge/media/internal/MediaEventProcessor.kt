@@ -13,38 +13,82 @@ package com.adobe.marketing.mobile.edge.media.internal
 
 import androidx.annotation.VisibleForTesting
 import com.adobe.marketing.mobile.Event
+import com.adobe.marketing.mobile.EventSource
+import com.adobe.marketing.mobile.EventType
 import com.adobe.marketing.mobile.edge.media.internal.MediaInternalConstants.LOG_TAG
+import com.adobe.marketing.mobile.edge.media.internal.xdm.XDMMediaCollection
 import com.adobe.marketing.mobile.edge.media.internal.xdm.XDMMediaEvent
+import com.adobe.marketing.mobile.edge.media.internal.xdm.XDMMediaEventType
+import com.adobe.marketing.mobile.edge.media.internal.xdm.XDMMediaSchema
 import com.adobe.marketing.mobile.services.Log
+import com.adobe.marketing.mobile.util.DataReader
 import java.util.UUID
+import java.util.concurrent.ConcurrentHashMap
 
 internal class MediaEventProcessor(
     private val mediaState: MediaState,
-    private val dispatcher: (event: Event) -> Unit
+    private val dispatcher: (event: Event) -> Unit,
+    private val journal: MediaEventJournal? = null,
+    private val liveSessionStore: MediaLiveSessionStore? = null
 ) {
     private val sourceTag = "MediaEventProcessor"
-    private val sessionsMutex = Any()
 
     // Determines if a MediaSession can be removed from the queue
     private val isMediaSessionInactive = { mediaSession: MediaSession ->
         !mediaSession.isSessionActive && mediaSession.getQueueSize() == 0
     }
 
+    // Sessions are not guarded by a global lock. Each MediaSession is only accessed while holding
+    // its own monitor, so events of different sessions are built and dispatched in parallel.
     @VisibleForTesting
-    internal val mediaSessions: MutableMap<String, MediaSession> = mutableMapOf()
+    internal val mediaSessions: ConcurrentHashMap<String, MediaSession> = ConcurrentHashMap()
+
+    // Session IDs by the Edge request event ID of their sessionStart request, and the reverse
+    private val sessionIdsByRequestEventId: MutableMap<String, String> = ConcurrentHashMap()
+    private val requestEventIdsBySessionId: MutableMap<String, String> = ConcurrentHashMap()
 
     /**
      * Creates new [MediaSession], assigning it a new random ID.
      * @return the session ID of the new [MediaSession]
      */
     fun createSession(): String {
-        synchronized(sessionsMutex) {
-            val sessionId = UUID.randomUUID().toString()
-            val session = MediaRealTimeSession(sessionId, mediaState, dispatcher)
-            mediaSessions[sessionId] = session
-            Log.trace(LOG_TAG, sourceTag, "Created new session ($sessionId)")
-            return sessionId
+        val sessionId = UUID.randomUUID().toString()
+        addSession(sessionId, MediaRealTimeSession(sessionId, mediaState, dispatcher, null, liveSessionStore))
+        Log.trace(LOG_TAG, sourceTag, "Created new session ($sessionId)")
+        return sessionId
+    }
+
+    /**
+     * Creates new [MediaSession] whose queued events are persisted in the [MediaEventJournal], so
+     * they can be sent by [recoverPersistedSessions] if the process dies before they are sent.
+     * Creates a session kept in memory only if no journal is available.
+     * @return the session ID of the new [MediaSession]
+     */
+    fun createPersistentSession(): String {
+        if (journal == null) {
+            return createSession()
+        }
+
+        val sessionId = UUID.randomUUID().toString()
+        addSession(sessionId, MediaRealTimeSession(sessionId, mediaState, dispatcher, journal, liveSessionStore))
+        Log.trace(LOG_TAG, sourceTag, "Created new persistent session ($sessionId)")
+        return sessionId
+    }
+
+    /**
+     * Adds the [MediaSession] and indexes it by the request event ID of its sessionStart request
+     * once dispatched, so Edge responses are routed to it.
+     * @param sessionId the ID of the [MediaSession]
+     * @param session the [MediaSession] to add
+     */
+    @VisibleForTesting
+    internal fun addSession(sessionId: String, session: MediaSession) {
+        // Called while holding the session monitor, before the request is dispatched
+        session.sessionStartListener = { requestEventId ->
+            sessionIdsByRequestEventId[requestEventId] = sessionId
+            requestEventIdsBySessionId[sessionId] = requestEventId
         }
+        mediaSessions[sessionId] = session
     }
 
     /**
@@ -53,21 +97,22 @@ internal class MediaEventProcessor(
      * @see [MediaSession.end]
      */
     fun endSession(sessionId: String) {
-        synchronized(sessionsMutex) {
-            val session = mediaSessions[sessionId]
-            if (session != null) {
-                session.end()
-            } else {
-                Log.trace(
-                    LOG_TAG,
-                    sourceTag,
-                    "Cannot end media session as session ID ($sessionId) is invalid."
-                )
-            }
+        val session = mediaSessions[sessionId]
+        if (session == null) {
+            Log.trace(
+                LOG_TAG,
+                sourceTag,
+                "Cannot end media session as session ID ($sessionId) is invalid."
+            )
+            return
+        }
 
-            // Clean up any ended sessions
-            mediaSessions.values.removeAll { isMediaSessionInactive(it) }
+        synchronized(session) {
+            session.end()
         }
+
+        // Clean up the session if ended
+        removeSessionIfInactive(sessionId, session)
     }
 
     /**
@@ -77,23 +122,25 @@ internal class MediaEventProcessor(
      * @see [MediaSession.queue]
      */
     fun processEvent(sessionId: String, event: XDMMediaEvent) {
-        synchronized(sessionsMutex) {
-            val session = mediaSessions[sessionId]
-            if (session != null) {
-                session.queue(event)
-                Log.trace(
-                    LOG_TAG,
-                    sourceTag,
-                    "Successfully queued event (${event.xdmData.eventType}) for session ($sessionId)"
-                )
-            } else {
-                Log.trace(
-                    LOG_TAG,
-                    sourceTag,
-                    "Cannot queue event (${event.xdmData.eventType}) as session ID ($sessionId) is invalid."
-                )
-            }
+        val session = mediaSessions[sessionId]
+        if (session == null) {
+            Log.trace(
+                LOG_TAG,
+                sourceTag,
+                "Cannot queue event (${event.xdmData.eventType}) as session ID ($sessionId) is invalid."
+            )
+            return
+        }
+
+        synchronized(session) {
+            session.queue(event)
         }
+
+        Log.trace(
+            LOG_TAG,
+            sourceTag,
+            "Successfully queued event (${event.xdmData.eventType}) for session ($sessionId)"
+        )
     }
 
     /**
@@ -101,14 +148,15 @@ internal class MediaEventProcessor(
      * @see [MediaSession.handleSessionUpdate]
      */
     fun notifyBackendSessionId(requestEventId: String, backendSessionId: String?) {
-        synchronized(sessionsMutex) {
-            mediaSessions.forEach { (_, session) ->
-                session.handleSessionUpdate(requestEventId, backendSessionId)
-            }
+        val sessionId = sessionIdsByRequestEventId[requestEventId] ?: return
+        val session = mediaSessions[sessionId] ?: return
 
-            // Session may be aborted if backend session ID is invalid
-            mediaSessions.values.removeAll { isMediaSessionInactive(it) }
+        synchronized(session) {
+            session.handleSessionUpdate(requestEventId, backendSessionId)
         }
+
+        // Session may be aborted if backend session ID is invalid
+        removeSessionIfInactive(sessionId, session)
     }
 
     /**
@@ -117,14 +165,15 @@ internal class MediaEventProcessor(
      * @see [MediaSession.handleErrorResponse]
      */
     fun notifyErrorResponse(requestEventId: String, data: Map<String, Any>) {
-        synchronized(sessionsMutex) {
-            mediaSessions.forEach { (_, session) ->
-                session.handleErrorResponse(requestEventId, data)
-            }
+        val sessionId = sessionIdsByRequestEventId[requestEventId] ?: return
+        val session = mediaSessions[sessionId] ?: return
 
-            // Session may be aborted on error response
-            mediaSessions.values.removeAll { isMediaSessionInactive(it) }
+        synchronized(session) {
+            session.handleErrorResponse(requestEventId, data)
         }
+
+        // Session may be aborted on error response
+        removeSessionIfInactive(sessionId, session)
     }
 
     /**
@@ -134,11 +183,14 @@ internal class MediaEventProcessor(
      * @see [MediaSession.handleMediaStateUpdate]
      */
     fun updateMediaState(stateData: Map<String, Any>) {
-        synchronized(sessionsMutex) {
-            mediaState.updateState(stateData)
-            mediaSessions.forEach { (_, session) ->
+        mediaState.updateState(stateData)
+        mediaSessions.forEach { (sessionId, session) ->
+            synchronized(session) {
                 session.handleMediaStateUpdate()
             }
+
+            // Ended sessions may have processed their remaining events
+            removeSessionIfInactive(sessionId, session)
         }
     }
 
@@ -147,13 +199,160 @@ internal class MediaEventProcessor(
      * @see [MediaSession.abort]
      */
     fun abortAllSessions() {
-        synchronized(sessionsMutex) {
-            mediaSessions.forEach { (_, session) ->
+        mediaSessions.forEach { (sessionId, session) ->
+            synchronized(session) {
                 session.abort()
             }
 
             // Remove all session after abort
-            mediaSessions.clear()
+            removeSession(sessionId, session)
+        }
+    }
+
+    /**
+     * Sends the events which persistent sessions of the previous launch still had queued when the
+     * process died, then ends these sessions on the backend.
+     * Events of sessions which did not receive their backend session ID are dropped, as the
+     * backend session was either not started or cannot be addressed.
+     */
+    fun recoverPersistedSessions() {
+        journal?.recover()?.let { recoverRealTimeSessions(it) }
+    }
+
+    /**
+     * Ends on the backend the sessions which the previous launch left open when the process died,
+     * as recorded in the [MediaLiveSessionStore], and removes their records.
+     * Sessions with a [MediaEventJournal] are skipped, [recoverPersistedSessions] ends them after
+     * sending their queued events.
+     */
+    fun closeOrphanedSessions() {
+        val orphanedSessions = liveSessionStore?.getOrphanedSessions() ?: return
+        closeOrphanedSessions(orphanedSessions.filter { journal == null || !it.isJournaled })
+    }
+
+    private fun closeOrphanedSessions(orphanedSessions: List<MediaLiveSessionStore.OrphanedSession>) {
+        if (orphanedSessions.isEmpty()) {
+            return
+        }
+
+        // Dispatched in a single pass, the records are removed with a single write.
+        for (orphanedSession in orphanedSessions) {
+            val mediaCollection = XDMMediaCollection(
+                playhead = orphanedSession.playhead,
+                sessionID = orphanedSession.backendSessionId
+            )
+            val sessionEnd = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.SESSION_END, orphanedSession.timestamp, mediaCollection))
+            dispatcher(buildEdgeEvent(XDMMediaEventType.SESSION_END, sessionEnd.serializeToXDM()))
+        }
+
+        liveSessionStore?.remove(orphanedSessions.map { it.backendSessionId })
+        Log.debug(
+            LOG_TAG,
+            sourceTag,
+            "closeOrphanedSessions - Ended ${orphanedSessions.size} sessions left open before the process stopped."
+        )
+    }
+
+    private fun recoverRealTimeSessions(recoveredSessions: List<MediaEventJournal.RecoveredSession>) {
+        // Journaled sessions left open without queued events only need to be ended.
+        val orphanedSessions = liveSessionStore?.getOrphanedSessions()?.filter { it.isJournaled } ?: emptyList()
+        val recoveredBackendSessionIds = recoveredSessions.mapNotNull { it.backendSessionId }.toSet()
+        closeOrphanedSessions(orphanedSessions.filter { it.backendSessionId !in recoveredBackendSessionIds })
+        liveSessionStore?.remove(recoveredBackendSessionIds)
+
+        for (recoveredSession in recoveredSessions) {
+            val backendSessionId = recoveredSession.backendSessionId
+            if (backendSessionId == null) {
+                Log.debug(
+                    LOG_TAG,
+                    sourceTag,
+                    "recoverPersistedSessions - Dropping ${recoveredSession.events.size} events of session (${recoveredSession.sessionId}) as its backend session ID was not received."
+                )
+                continue
+            }
+
+            for (recoveredEvent in recoveredSession.events) {
+                val eventType = getEventType(recoveredEvent)
+                if (eventType == null || eventType == XDMMediaEventType.SESSION_START) {
+                    continue
+                }
+
+                dispatcher(buildRecoveredEdgeEvent(eventType, recoveredEvent.data, backendSessionId))
+            }
+
+            if (!isSessionClosed(recoveredSession)) {
+                val sessionEnd = buildRecoveredSessionEnd(recoveredSession.events.last())
+                sessionEnd.xdmData.mediaCollection.sessionID = backendSessionId
+                dispatcher(buildEdgeEvent(XDMMediaEventType.SESSION_END, sessionEnd.serializeToXDM()))
+            }
+
+            Log.debug(
+                LOG_TAG,
+                sourceTag,
+                "recoverPersistedSessions - Sent ${recoveredSession.events.size} events of session (${recoveredSession.sessionId}) queued before the process stopped."
+            )
+        }
+    }
+
+    private fun getEventType(recoveredEvent: MediaEventJournal.RecoveredEvent): XDMMediaEventType? {
+        return XDMMediaEventType.values().firstOrNull { it.value == recoveredEvent.eventType }
+    }
+
+    private fun isSessionClosed(recoveredSession: MediaEventJournal.RecoveredSession): Boolean {
+        val eventType = getEventType(recoveredSession.events.last())
+        return eventType == XDMMediaEventType.SESSION_END || eventType == XDMMediaEventType.SESSION_COMPLETE
+    }
+
+    // The sessionEnd closing a recovered session, at the timestamp and playhead of its last event
+    private fun buildRecoveredSessionEnd(lastEvent: MediaEventJournal.RecoveredEvent): XDMMediaEvent {
+        val mediaCollection = XDMMediaCollection(
+            playhead = DataReader.optInt(getMediaCollection(lastEvent.data), "playhead", 0)
+        )
+        return XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.SESSION_END, lastEvent.timestamp, mediaCollection))
+    }
+
+    private fun buildRecoveredEdgeEvent(eventType: XDMMediaEventType, data: Map<String, Any?>, backendSessionId: String): Event {
+        // Attach the media state as done by MediaRealTimeSession when the event was sent
+        @Suppress("UNCHECKED_CAST")
+        val mediaCollection = getMediaCollection(data) as? MutableMap<String, Any?>
+        mediaCollection?.put("sessionID", backendSessionId)
+
+        if (eventType == XDMMediaEventType.AD_START) {
+            @Suppress("UNCHECKED_CAST")
+            (mediaCollection?.get("advertisingDetails") as? MutableMap<String, Any?>)?.put("playerName", mediaState.mediaPlayerName)
+        }
+
+        return buildEdgeEvent(eventType, data)
+    }
+
+    private fun buildEdgeEvent(eventType: XDMMediaEventType, data: Map<String, Any?>): Event {
+        return Event.Builder(eventType.edgeEventName, EventType.EDGE, EventSource.REQUEST_CONTENT)
+            .setEventData(data)
+            .build()
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    private fun getMediaCollection(data: Map<String, Any?>): Map<String, Any?>? {
+        return (data["xdm"] as? Map<String, Any?>)?.get("mediaCollection") as? Map<String, Any?>
+    }
+
+    /**
+     * Removes the given [MediaSession] if it is inactive, along with its request event ID index
+     * entry.
+     */
+    private fun removeSessionIfInactive(sessionId: String, session: MediaSession) {
+        val isInactive = synchronized(session) {
+            isMediaSessionInactive(session)
+        }
+
+        if (isInactive) {
+            removeSession(sessionId, session)
+        }
+    }
+
+    private fun removeSession(sessionId: String, session: MediaSession) {
+        if (mediaSessions.remove(sessionId, session)) {
+            requestEventIdsBySessionId.remove(sessionId)?.let { sessionIdsByRequestEventId.remove(it) }
         }
     }
 }
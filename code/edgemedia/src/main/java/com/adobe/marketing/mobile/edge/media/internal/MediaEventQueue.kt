@@ -0,0 +1,234 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.media.internal
+
+import com.adobe.marketing.mobile.edge.media.internal.xdm.XDMMediaEvent
+import com.adobe.marketing.mobile.edge.media.internal.xdm.XDMMediaEventType
+
+/**
+ * Bounded FIFO queue of the [XDMMediaEvent]s of a [MediaSession], backed by a ring buffer.
+ *
+ * Once [capacity] events are queued, the overflow policy makes room as follows:
+ *  - A ping following a queued ping is merged into it, keeping the latest playhead.
+ *  - Otherwise the oldest queued ping is dropped.
+ *  - Otherwise the new event is dropped, unless it is a session, ad break, ad or chapter event.
+ *  - Session, ad break, ad and chapter events are never dropped, the buffer grows for them.
+ *
+ * Consecutive pings can also be merged before the queue is full with [mergeIntoLastPing].
+ *
+ * The number of dropped and merged events is kept in [droppedCount] and [mergedCount]. The
+ * [listener] is notified of every event entering or leaving the queue, and once when it is cleared.
+ * Not thread safe, guarded by the monitor of the owning [MediaSession], see [MediaEventProcessor].
+ *
+ * @property capacity the number of events queued before the overflow policy applies
+ */
+internal class MediaEventQueue(val capacity: Int = DEFAULT_CAPACITY) {
+
+    companion object {
+        const val DEFAULT_CAPACITY = 100
+    }
+
+    /**
+     * Notified of the events entering and leaving the queue, for example to mirror it on disk.
+     */
+    interface Listener {
+        fun onEventQueued(event: XDMMediaEvent)
+        fun onEventRemoved(event: XDMMediaEvent)
+
+        /**
+         * Called once when all the events are removed by [clear], instead of [onEventRemoved].
+         */
+        fun onQueueCleared()
+    }
+
+    init {
+        require(capacity > 0) { "capacity must be positive" }
+    }
+
+    private var buffer = arrayOfNulls<XDMMediaEvent>(capacity)
+    private var head = 0
+
+    /**
+     * The number of queued events.
+     */
+    var size = 0
+        private set
+
+    /**
+     * The number of events dropped by the overflow policy.
+     */
+    var droppedCount = 0
+        private set
+
+    /**
+     * The number of pings merged into a queued ping.
+     */
+    var mergedCount = 0
+        private set
+
+    var listener: Listener? = null
+
+    fun isEmpty(): Boolean = size == 0
+
+    fun isNotEmpty(): Boolean = size != 0
+
+    /**
+     * Returns the event at the given position, 0 being the next event to be processed.
+     */
+    operator fun get(index: Int): XDMMediaEvent {
+        if (index < 0 || index >= size) {
+            throw IndexOutOfBoundsException("Index: $index, Size: $size")
+        }
+
+        return buffer[physicalIndex(index)]!!
+    }
+
+    fun first(): XDMMediaEvent {
+        if (isEmpty()) {
+            throw NoSuchElementException("Queue is empty.")
+        }
+
+        return buffer[head]!!
+    }
+
+    fun removeFirst(): XDMMediaEvent {
+        val event = first()
+        buffer[head] = null
+        head = (head + 1) % buffer.size
+        size--
+        listener?.onEventRemoved(event)
+        return event
+    }
+
+    /**
+     * Queues the event, applying the overflow policy if the queue is full.
+     *
+     * @param event the [XDMMediaEvent] to queue
+     * @return false if the event was dropped or merged, true if it was queued
+     */
+    fun add(event: XDMMediaEvent): Boolean {
+        if (size >= capacity) {
+            val eventType = event.xdmData.eventType
+
+            if (mergeIntoLastPing(event)) {
+                return false
+            }
+
+            val pingIndex = indexOfFirst(XDMMediaEventType.PING)
+            if (pingIndex >= 0) {
+                removeAt(pingIndex)
+                droppedCount++
+            } else if (!isProtected(eventType)) {
+                droppedCount++
+                return false
+            } else if (size == buffer.size) {
+                grow()
+            }
+        }
+
+        buffer[physicalIndex(size)] = event
+        size++
+        listener?.onEventQueued(event)
+        return true
+    }
+
+    /**
+     * Merges the given ping into the last queued event if it is a ping as well.
+     * The merged ping keeps the timestamp and playhead of the given ping, and the QoE of the queued
+     * ping if the given ping has none.
+     *
+     * @param event the [XDMMediaEvent] to merge
+     * @return true if the event was merged, false if it still needs to be queued
+     */
+    fun mergeIntoLastPing(event: XDMMediaEvent): Boolean {
+        if (event.xdmData.eventType != XDMMediaEventType.PING ||
+            isEmpty() ||
+            get(size - 1).xdmData.eventType != XDMMediaEventType.PING
+        ) {
+            return false
+        }
+
+        val index = physicalIndex(size - 1)
+        val queuedPing = buffer[index]!!
+
+        // Pings only carry the QoE which changed since the previous event, keep it.
+        if (event.xdmData.mediaCollection.qoeDataDetails == null) {
+            event.xdmData.mediaCollection.qoeDataDetails = queuedPing.xdmData.mediaCollection.qoeDataDetails
+        }
+
+        buffer[index] = event
+        mergedCount++
+        listener?.onEventRemoved(queuedPing)
+        listener?.onEventQueued(event)
+        return true
+    }
+
+    fun clear() {
+        listener?.onQueueCleared()
+
+        buffer.fill(null)
+        head = 0
+        size = 0
+    }
+
+    private fun indexOfFirst(eventType: XDMMediaEventType): Int {
+        for (i in 0 until size) {
+            if (get(i).xdmData.eventType == eventType) {
+                return i
+            }
+        }
+
+        return -1
+    }
+
+    private fun removeAt(index: Int) {
+        val event = get(index)
+        for (i in index until size - 1) {
+            buffer[physicalIndex(i)] = buffer[physicalIndex(i + 1)]
+        }
+
+        buffer[physicalIndex(size - 1)] = null
+        size--
+        listener?.onEventRemoved(event)
+    }
+
+    private fun grow() {
+        val grown = arrayOfNulls<XDMMediaEvent>(buffer.size * 2)
+        for (i in 0 until size) {
+            grown[i] = get(i)
+        }
+
+        buffer = grown
+        head = 0
+    }
+
+    private fun physicalIndex(index: Int): Int {
+        return (head + index) % buffer.size
+    }
+
+    private fun isProtected(eventType: XDMMediaEventType): Boolean {
+        return when (eventType) {
+            XDMMediaEventType.SESSION_START,
+            XDMMediaEventType.SESSION_COMPLETE,
+            XDMMediaEventType.SESSION_END,
+            XDMMediaEventType.AD_BREAK_START,
+            XDMMediaEventType.AD_BREAK_COMPLETE,
+            XDMMediaEventType.AD_START,
+            XDMMediaEventType.AD_SKIP,
+            XDMMediaEventType.AD_COMPLETE,
+            XDMMediaEventType.CHAPTER_START,
+            XDMMediaEventType.CHAPTER_SKIP,
+            XDMMediaEventType.CHAPTER_COMPLETE -> true
+            else -> false
+        }
+    }
+}
@@ -15,26 +15,19 @@ import androidx.annotation.VisibleForTesting;
 import com.adobe.marketing.mobile.Event;
 import com.adobe.marketing.mobile.services.Log;
 import com.adobe.marketing.mobile.util.DataReader;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 class MediaEventTracker implements MediaEventTracking {
     private static final String SOURCE_TAG = "MediaCollectionTracker";
-    private static final String KEY_INFO = "key_info";
-    private static final String KEY_METADATA = "key_metadata";
-    private static final String KEY_EVENT_TS = "key_eventts";
-    private static final String KEY_SESSIONID = "key_sessionid";
     private static final int INVALID_NUMERIC_VALUE = -1;
+    private static final MediaRuleEngine RULE_ENGINE = createMediaRules();
     private MediaContext mediaContext;
-    private final MediaRuleEngine ruleEngine;
     private MediaEventProcessor eventProcessor;
     private MediaXDMEventGenerator xdmEventGenerator;
-    private Map<String, Object> trackerConfig;
+    private final MediaTrackerConfig trackerConfig;
+    private final MediaSessionCheckpoint checkpoint;
 
     // Idle Detection
     private static final long IDLE_TIMEOUT = 1800000; // 30 minutes
@@ -44,27 +37,49 @@ class MediaEventTracker implements MediaEventTracking {
 
     private static final int INVALID_TIMESTAMP = -1; // Indicates uninitialized value of timestamp.
     // Session Timeout
-    private static final long SESSION_TIMEOUT_IN_MILLIS =
+    static final long SESSION_TIMEOUT_IN_MILLIS =
             TimeUnit.DAYS.toMillis(1); // Restart session after 24 hrs.
     private long sessionRefTs = INVALID_TIMESTAMP;
 
     // Preroll
     private boolean inPrerollInterval;
     private long prerollRefTS;
-    private List<PrerollQueuedRule> prerollRulesQueue;
+    private final MediaPrerollBuffer prerollBuffer = new MediaPrerollBuffer();
     private boolean contentStarted;
     private long contentStartRefTs;
 
+    private final MediaMetadataSanitizer metadataSanitizer = new MediaMetadataSanitizer();
+
+    // Rule contexts reused for every tracking call
+    private final MediaRuleContext ruleContext = new MediaRuleContext(this);
+    private final MediaRuleContext pendingPlayheadRuleContext = new MediaRuleContext(this);
+
+    // Tick deadlines
+    private final MediaTrackerRegistry.DeadlineListener deadlineListener;
+    private long lastNotifiedDeadlineTS = MediaTrackerRegistry.NO_DEADLINE;
+
     MediaEventTracker(final MediaEventProcessor eventProcessor, final Map<String, Object> config) {
-        reset();
+        this(eventProcessor, config, null);
+    }
 
-        this.eventProcessor = eventProcessor;
-        trackerConfig = config;
+    MediaEventTracker(
+            final MediaEventProcessor eventProcessor,
+            final Map<String, Object> config,
+            final MediaTrackerRegistry.DeadlineListener deadlineListener) {
+        this(eventProcessor, config, deadlineListener, null);
+    }
 
-        ruleEngine = new MediaRuleEngine();
-        prerollRulesQueue = new ArrayList<>();
+    MediaEventTracker(
+            final MediaEventProcessor eventProcessor,
+            final Map<String, Object> config,
+            final MediaTrackerRegistry.DeadlineListener deadlineListener,
+            final MediaSessionCheckpoint checkpoint) {
+        reset();
 
-        setUpMediaRules();
+        this.eventProcessor = eventProcessor;
+        this.deadlineListener = deadlineListener;
+        trackerConfig = MediaTrackerConfig.create(config);
+        this.checkpoint = trackerConfig.getCheckpointSession() ? checkpoint : null;
     }
 
     void reset() {
@@ -75,7 +90,7 @@ class MediaEventTracker implements MediaEventTracking {
         isMediaIdle = false;
 
         inPrerollInterval = false;
-        prerollRulesQueue = null;
+        prerollBuffer.clear();
 
         contentStarted = false;
         contentStartRefTs = INVALID_TIMESTAMP;
@@ -85,12 +100,45 @@ class MediaEventTracker implements MediaEventTracking {
 
     @Override
     public boolean track(final Event event) {
+        if (event == null) {
+            return false;
+        }
+
+        return trackEventData(event.getEventData());
+    }
 
-        if (event == null || event.getEventData() == null) {
+    @Override
+    public boolean trackEventData(final Map<String, Object> eventData) {
+        if (eventData == null) {
             return false;
         }
 
-        Map<String, Object> eventData = event.getEventData();
+        boolean isTracked;
+        List<Map<String, Object>> batch =
+                DataReader.optTypedListOfMap(
+                        Object.class,
+                        eventData,
+                        MediaInternalConstants.EventDataKeys.Tracker.EVENT_BATCH,
+                        null);
+
+        if (batch != null) {
+            // Run all the batched tracking calls in order, in a single pass.
+            isTracked = true;
+            for (Map<String, Object> entry : batch) {
+                isTracked &= trackEntry(entry);
+            }
+        } else {
+            isTracked = trackEntry(eventData);
+        }
+
+        notifyNextDeadline();
+        return isTracked;
+    }
+
+    private boolean trackEntry(final Map<String, Object> eventData) {
+        if (eventData == null) {
+            return false;
+        }
 
         String eventName =
                 DataReader.optString(
@@ -112,13 +160,9 @@ class MediaEventTracker implements MediaEventTracking {
             return false;
         }
 
-        Map<String, Object> context = new HashMap<>();
-
         Object eventTS =
                 eventData.get(MediaInternalConstants.EventDataKeys.Tracker.EVENT_TIMESTAMP);
-        if (eventTS != null) {
-            context.put(KEY_EVENT_TS, eventTS);
-        } else {
+        if (eventTS == null) {
             Log.debug(
                     MediaInternalConstants.LOG_TAG,
                     SOURCE_TAG,
@@ -126,17 +170,23 @@ class MediaEventTracker implements MediaEventTracking {
             return false;
         }
 
-        String sessionId =
+        // The pooled context is reused for every tracking call.
+        MediaRuleContext context = ruleContext;
+        context.reset();
+        context.setEventTS(
+                DataReader.optLong(
+                        eventData,
+                        MediaInternalConstants.EventDataKeys.Tracker.EVENT_TIMESTAMP,
+                        INVALID_NUMERIC_VALUE));
+        context.setSessionId(
                 DataReader.optString(
-                        eventData, MediaInternalConstants.EventDataKeys.Tracker.SESSION_ID, null);
-        if (sessionId != null) {
-            context.put(KEY_SESSIONID, sessionId);
-        }
-
-        Object params = eventData.get(MediaInternalConstants.EventDataKeys.Tracker.EVENT_PARAM);
-        if (params != null) {
-            context.put(KEY_INFO, params);
-        }
+                        eventData, MediaInternalConstants.EventDataKeys.Tracker.SESSION_ID, null));
+        context.setInfo(
+                DataReader.optTypedMap(
+                        Object.class,
+                        eventData,
+                        MediaInternalConstants.EventDataKeys.Tracker.EVENT_PARAM,
+                        null));
 
         Map<String, String> metadata =
                 DataReader.optStringMap(
@@ -145,8 +195,13 @@ class MediaEventTracker implements MediaEventTracking {
                         null);
 
         if (metadata != null) {
-            Map<String, String> cleanedMetadata = cleanMetadata(metadata);
-            context.put(KEY_METADATA, cleanedMetadata);
+            context.setMetadata(cleanMetadata(metadata));
+        }
+
+        // Apply the latest coalesced playhead before the event it was attached to.
+        MediaRuleContext pendingPlayheadContext = getPendingPlayheadContext(eventData, context);
+        if (pendingPlayheadContext != null) {
+            trackPlayheadUpdate(pendingPlayheadContext);
         }
 
         if (rule != MediaRuleName.PlayheadUpdate) {
@@ -157,15 +212,164 @@ class MediaEventTracker implements MediaEventTracking {
                     eventName);
         }
 
+        if (rule == MediaRuleName.PlayheadUpdate) {
+            return trackPlayheadUpdate(context);
+        }
+
         if (prerollDeferRule(rule.ordinal(), context)) {
             return true;
         }
 
-        return processRule(rule.ordinal(), context);
+        boolean isProcessed = processRule(rule.ordinal(), context);
+        if (isProcessed) {
+            // Checkpoint after state-changing rules only, playhead updates returned above
+            saveCheckpoint(getRefTS(context));
+        }
+
+        return isProcessed;
+    }
+
+    private void saveCheckpoint(final long refTS) {
+        if (checkpoint == null) {
+            return;
+        }
+
+        if (mediaContext == null) {
+            checkpoint.clear();
+        } else {
+            checkpoint.save(mediaContext, refTS);
+        }
+    }
+
+    private boolean trackPlayheadUpdate(final MediaRuleContext context) {
+        if (processPlayheadFastPath(context)) {
+            return true;
+        }
+
+        if (prerollDeferRule(MediaRuleName.PlayheadUpdate.ordinal(), context)) {
+            return true;
+        }
+
+        return processRule(MediaRuleName.PlayheadUpdate.ordinal(), context);
+    }
+
+    /**
+     * Applies a playhead update without running the rule pipeline, when none of the time-based
+     * checks of {@link #cmdExitAction} can fire for this update.
+     *
+     * <p>After every processed rule the idle, session timeout and content start detection have
+     * settled and the playback state has been reported, so for a playhead update, which changes
+     * no tracker state, these checks only act once one of the deadlines from {@link
+     * #getNextDeadlineTS()} has passed. Before that the full pipeline would only update the
+     * playhead and the reference timestamp.
+     *
+     * @param context the {@link MediaRuleContext} of the playhead update
+     * @return true if the update was applied, false if it needs the full rule pipeline
+     */
+    boolean processPlayheadFastPath(final MediaRuleContext context) {
+        if (inPrerollInterval || mediaContext == null || xdmEventGenerator == null) {
+            return false;
+        }
+
+        long refTS = getRefTS(context);
+
+        if (refTS >= getNextDeadlineTS() || !xdmEventGenerator.isPlaybackStateReported()) {
+            return false;
+        }
+
+        // Same as cmdEnterAction and cmdPlayheadUpdate
+        if (refTS != INVALID_TIMESTAMP) {
+            xdmEventGenerator.setRefTS(refTS);
+        }
+
+        int playhead = getPlayhead(context);
+
+        if (playhead >= 0) {
+            mediaContext.setPlayhead(playhead);
+        }
+
+        return true;
+    }
+
+    private MediaRuleContext getPendingPlayheadContext(
+            final Map<String, Object> eventData, final MediaRuleContext eventContext) {
+        Object playhead =
+                eventData.get(MediaInternalConstants.EventDataKeys.Tracker.PENDING_PLAYHEAD);
+        if (!(playhead instanceof Number)) {
+            return null;
+        }
+
+        MediaRuleContext context = pendingPlayheadRuleContext;
+        context.reset();
+        context.setPlayhead(((Number) playhead).intValue());
+        context.setEventTS(
+                DataReader.optLong(
+                        eventData,
+                        MediaInternalConstants.EventDataKeys.Tracker.PENDING_PLAYHEAD_TIMESTAMP,
+                        eventContext.getEventTS()));
+        context.setSessionId(eventContext.getSessionId());
+
+        return context;
+    }
+
+    /**
+     * Computes the earliest timestamp at which a time-based rule action is due, without another
+     * tracking call: the end of the preroll wait, the next ping, content start detection, idle
+     * timeout and session timeout.
+     *
+     * @return the next deadline timestamp in milliseconds, or {@link
+     *     MediaTrackerRegistry#NO_DEADLINE} if nothing is due.
+     */
+    long getNextDeadlineTS() {
+        if (mediaContext == null || xdmEventGenerator == null) {
+            return MediaTrackerRegistry.NO_DEADLINE;
+        }
+
+        long deadlineTS = MediaTrackerRegistry.NO_DEADLINE;
+
+        if (inPrerollInterval) {
+            deadlineTS = prerollRefTS + mediaContext.getMediaInfo().getPrerollWaitTime();
+        }
+
+        if (isTrackerIdle) {
+            // Tracking resumes only on the next tracking call.
+            return deadlineTS;
+        }
+
+        deadlineTS = Math.min(deadlineTS, xdmEventGenerator.getNextPingTS());
+
+        if (sessionRefTs != INVALID_TIMESTAMP) {
+            deadlineTS = Math.min(deadlineTS, sessionRefTs + SESSION_TIMEOUT_IN_MILLIS);
+        }
+
+        if (isMediaIdle) {
+            deadlineTS = Math.min(deadlineTS, mediaIdleStartTS + IDLE_TIMEOUT);
+        }
+
+        if (!contentStarted
+                && contentStartRefTs != INVALID_TIMESTAMP
+                && !mediaContext.isIdle()
+                && !mediaContext.isInAdBreak()) {
+            deadlineTS = Math.min(deadlineTS, contentStartRefTs + CONTENT_START_DURATION);
+        }
+
+        return deadlineTS;
+    }
+
+    private void notifyNextDeadline() {
+        if (deadlineListener == null) {
+            return;
+        }
+
+        long deadlineTS = getNextDeadlineTS();
+        if (deadlineTS != lastNotifiedDeadlineTS) {
+            lastNotifiedDeadlineTS = deadlineTS;
+            deadlineListener.onNextDeadline(deadlineTS);
+        }
     }
 
-    boolean processRule(final int rule, final Map<String, Object> context) {
-        MediaRuleResponse response = this.ruleEngine.processRule(rule, context);
+    boolean processRule(final int rule, final MediaRuleContext context) {
+        MediaRuleResponse response = RULE_ENGINE.processRule(rule, context);
 
         if (!response.isValid) {
             Log.warning(MediaInternalConstants.LOG_TAG, SOURCE_TAG, response.message);
@@ -174,22 +378,40 @@ class MediaEventTracker implements MediaEventTracking {
         return response.isValid;
     }
 
-    Map<String, String> getMetadata(final Map<String, Object> context) {
-        return DataReader.optStringMap(context, KEY_METADATA, null);
+    Map<String, String> getMetadata(final MediaRuleContext context) {
+        return context.getMetadata();
     }
 
-    String getSessionId(final Map<String, Object> context) {
-        return DataReader.optString(context, KEY_SESSIONID, null);
+    MediaInfo getMediaInfo(final MediaRuleContext context) {
+        return context.getTypedInfo(MediaInfo.class, MediaInfo::fromObjectMap);
     }
 
-    int getPlayhead(final Map<String, Object> context) {
-        Map<String, Object> info = DataReader.optTypedMap(Object.class, context, KEY_INFO, null);
-        if (info == null) {
-            return INVALID_NUMERIC_VALUE;
-        }
+    AdBreakInfo getAdBreakInfo(final MediaRuleContext context) {
+        return context.getTypedInfo(AdBreakInfo.class, AdBreakInfo::fromObjectMap);
+    }
+
+    AdInfo getAdInfo(final MediaRuleContext context) {
+        return context.getTypedInfo(AdInfo.class, AdInfo::fromObjectMap);
+    }
+
+    ChapterInfo getChapterInfo(final MediaRuleContext context) {
+        return context.getTypedInfo(ChapterInfo.class, ChapterInfo::fromObjectMap);
+    }
+
+    QoEInfo getQoEInfo(final MediaRuleContext context) {
+        return context.getTypedInfo(QoEInfo.class, QoEInfo::fromObjectMap);
+    }
+
+    StateInfo getStateInfo(final MediaRuleContext context) {
+        return context.getTypedInfo(StateInfo.class, StateInfo::fromObjectMap);
+    }
+
+    String getSessionId(final MediaRuleContext context) {
+        return context.getSessionId();
+    }
 
-        return DataReader.optInt(
-                info, MediaInternalConstants.EventDataKeys.Tracker.PLAYHEAD, INVALID_NUMERIC_VALUE);
+    int getPlayhead(final MediaRuleContext context) {
+        return context.getPlayhead();
     }
 
     boolean isInPrerollInterval() {
@@ -200,533 +422,485 @@ class MediaEventTracker implements MediaEventTracking {
         return isTrackerIdle;
     }
 
-    long getRefTS(final Map<String, Object> context) {
-        return DataReader.optLong(context, KEY_EVENT_TS, INVALID_NUMERIC_VALUE);
+    long getRefTS(final MediaRuleContext context) {
+        return context.getEventTS();
     }
 
-    String getError(final Map<String, Object> context) {
-        Map<String, Object> info = DataReader.optTypedMap(Object.class, context, KEY_INFO, null);
-        if (info == null) {
-            return null;
+    String getError(final MediaRuleContext context) {
+        return context.getErrorId();
+    }
+
+    // Predicates
+    // State flags for the state predicates, see MediaRule.addStatePredicate
+    int getRuleState() {
+        if (mediaContext == null) {
+            return 0;
+        }
+
+        int state = MediaRule.STATE_IN_MEDIA;
+
+        if (mediaContext.isInAdBreak()) {
+            state |= MediaRule.STATE_IN_AD_BREAK;
+        }
+
+        if (mediaContext.isInAd()) {
+            state |= MediaRule.STATE_IN_AD;
         }
 
-        return DataReader.optString(info, MediaInternalConstants.EventDataKeys.ErrorInfo.ID, null);
+        if (mediaContext.isInChapter()) {
+            state |= MediaRule.STATE_IN_CHAPTER;
+        }
+
+        if (mediaContext.isInState(MediaPlaybackState.Buffer)) {
+            state |= MediaRule.STATE_IN_BUFFERING;
+        }
+
+        if (mediaContext.isInState(MediaPlaybackState.Seek)) {
+            state |= MediaRule.STATE_IN_SEEKING;
+        }
+
+        return state;
     }
 
-    // Predicates
-    final IMediaRuleCallback isInMedia = (rule, context) -> mediaContext != null;
-
-    final IMediaRuleCallback isInAdBreak = (rule, context) -> mediaContext.isInAdBreak();
-
-    final IMediaRuleCallback isInAd = (rule, context) -> mediaContext.isInAd();
-
-    final IMediaRuleCallback isInChapter = (rule, context) -> mediaContext.isInChapter();
-
-    final IMediaRuleCallback isInBuffering =
-            (rule, context) -> mediaContext.isInState(MediaPlaybackState.Buffer);
-
-    final IMediaRuleCallback isInSeeking =
-            (rule, context) -> mediaContext.isInState(MediaPlaybackState.Seek);
-
-    final IMediaRuleCallback isValidMediaInfo =
-            (rule, context) -> {
-                Map<String, Object> info =
-                        DataReader.optTypedMap(Object.class, context, KEY_INFO, null);
-                return info != null && MediaInfo.fromObjectMap(info) != null;
-            };
-
-    final IMediaRuleCallback isValidAdBreakInfo =
-            (rule, context) -> {
-                Map<String, Object> info =
-                        DataReader.optTypedMap(Object.class, context, KEY_INFO, null);
-                return info != null && AdBreakInfo.fromObjectMap(info) != null;
-            };
-
-    final IMediaRuleCallback isValidAdInfo =
-            (rule, context) -> {
-                Map<String, Object> info =
-                        DataReader.optTypedMap(Object.class, context, KEY_INFO, null);
-                return info != null && AdInfo.fromObjectMap(info) != null;
-            };
-
-    final IMediaRuleCallback isValidChapterInfo =
-            (rule, context) -> {
-                Map<String, Object> info =
-                        DataReader.optTypedMap(Object.class, context, KEY_INFO, null);
-                return info != null && ChapterInfo.fromObjectMap(info) != null;
-            };
-
-    final IMediaRuleCallback isValidQoEInfo =
-            (rule, context) -> {
-                Map<String, Object> info =
-                        DataReader.optTypedMap(Object.class, context, KEY_INFO, null);
-                return info != null && QoEInfo.fromObjectMap(info) != null;
-            };
-
-    final IMediaRuleCallback isValidStateInfo =
-            (rule, context) -> {
-                Map<String, Object> info =
-                        DataReader.optTypedMap(Object.class, context, KEY_INFO, null);
-                return info != null && StateInfo.fromObjectMap(info) != null;
-            };
-
-    final IMediaRuleCallback isValidErrorInfo =
-            (rule, context) -> {
-                String errorId = getError(context);
-                return errorId != null && !errorId.isEmpty();
-            };
-
-    final IMediaRuleCallback isDifferentAdBreakInfo =
-            (rule, context) -> {
-                if (!mediaContext.isInAdBreak()) {
-                    return true;
-                }
+    boolean isValidMediaInfo(final MediaRule rule, final MediaRuleContext context) {
+        return getMediaInfo(context) != null;
+    }
+
+    boolean isValidAdBreakInfo(final MediaRule rule, final MediaRuleContext context) {
+        return getAdBreakInfo(context) != null;
+    }
 
-                AdBreakInfo currentAdBreakInfo = mediaContext.getAdBreakInfo();
+    boolean isValidAdInfo(final MediaRule rule, final MediaRuleContext context) {
+        return getAdInfo(context) != null;
+    }
 
-                Map<String, Object> info =
-                        DataReader.optTypedMap(Object.class, context, KEY_INFO, null);
-                AdBreakInfo newAdBreakInfo = AdBreakInfo.fromObjectMap(info);
+    boolean isValidChapterInfo(final MediaRule rule, final MediaRuleContext context) {
+        return getChapterInfo(context) != null;
+    }
 
-                return !(currentAdBreakInfo.equals(newAdBreakInfo));
-            };
+    boolean isValidQoEInfo(final MediaRule rule, final MediaRuleContext context) {
+        return getQoEInfo(context) != null;
+    }
 
-    final IMediaRuleCallback isDifferentAdInfo =
-            (rule, context) -> {
-                if (!mediaContext.isInAd()) {
-                    return true;
-                }
+    boolean isValidStateInfo(final MediaRule rule, final MediaRuleContext context) {
+        return getStateInfo(context) != null;
+    }
 
-                AdInfo currentAdInfo = mediaContext.getAdInfo();
-                Map<String, Object> info =
-                        DataReader.optTypedMap(Object.class, context, KEY_INFO, null);
-                AdInfo newAdInfo = AdInfo.fromObjectMap(info);
+    boolean isValidErrorInfo(final MediaRule rule, final MediaRuleContext context) {
+        String errorId = getError(context);
+        return errorId != null && !errorId.isEmpty();
+    }
 
-                return !(currentAdInfo.equals(newAdInfo));
-            };
+    boolean isDifferentAdBreakInfo(final MediaRule rule, final MediaRuleContext context) {
+        if (!mediaContext.isInAdBreak()) {
+            return true;
+        }
 
-    final IMediaRuleCallback isDifferentChapterInfo =
-            (rule, context) -> {
-                if (!mediaContext.isInChapter()) {
-                    return true;
-                }
+        AdBreakInfo currentAdBreakInfo = mediaContext.getAdBreakInfo();
 
-                ChapterInfo currentChapterInfo = mediaContext.getChapterInfo();
-                Map<String, Object> info =
-                        DataReader.optTypedMap(Object.class, context, KEY_INFO, null);
-                ChapterInfo newChapterInfo = ChapterInfo.fromObjectMap(info);
-
-                return !(currentChapterInfo.equals(newChapterInfo));
-            };
-
-    final IMediaRuleCallback allowPlaybackStateChange =
-            (rule, context) -> {
-                // Allow player state change only if we are in main content or if we are inside an
-                // ad.
-                return !mediaContext.isInAdBreak() || mediaContext.isInAd();
-            };
-
-    final IMediaRuleCallback isInTrackedState =
-            (rule, context) -> {
-                Map<String, Object> info =
-                        DataReader.optTypedMap(Object.class, context, KEY_INFO, null);
-                StateInfo stateInfo = StateInfo.fromObjectMap(info);
-                return mediaContext.isInPlayerState(stateInfo);
-            };
-
-    final IMediaRuleCallback allowStateTrack =
-            (rule, context) -> {
-                Map<String, Object> info =
-                        DataReader.optTypedMap(Object.class, context, KEY_INFO, null);
-                StateInfo stateInfo = StateInfo.fromObjectMap(info);
-                return mediaContext.hasTrackedState(stateInfo)
-                        || !mediaContext.hasReachedStateLimit();
-            };
+        AdBreakInfo newAdBreakInfo = getAdBreakInfo(context);
+
+        return !(currentAdBreakInfo.equals(newAdBreakInfo));
+    }
+
+    boolean isDifferentAdInfo(final MediaRule rule, final MediaRuleContext context) {
+        if (!mediaContext.isInAd()) {
+            return true;
+        }
+
+        AdInfo currentAdInfo = mediaContext.getAdInfo();
+        AdInfo newAdInfo = getAdInfo(context);
+
+        return !(currentAdInfo.equals(newAdInfo));
+    }
+
+    boolean isDifferentChapterInfo(final MediaRule rule, final MediaRuleContext context) {
+        if (!mediaContext.isInChapter()) {
+            return true;
+        }
+
+        ChapterInfo currentChapterInfo = mediaContext.getChapterInfo();
+        ChapterInfo newChapterInfo = getChapterInfo(context);
+
+        return !(currentChapterInfo.equals(newChapterInfo));
+    }
+
+    boolean allowPlaybackStateChange(final MediaRule rule, final MediaRuleContext context) {
+        // Allow player state change only if we are in main content or if we are inside an
+        // ad.
+        return !mediaContext.isInAdBreak() || mediaContext.isInAd();
+    }
+
+    boolean isInTrackedState(final MediaRule rule, final MediaRuleContext context) {
+        StateInfo stateInfo = getStateInfo(context);
+        return mediaContext.isInPlayerState(stateInfo);
+    }
+
+    boolean allowStateTrack(final MediaRule rule, final MediaRuleContext context) {
+        StateInfo stateInfo = getStateInfo(context);
+        return mediaContext.hasTrackedState(stateInfo)
+                || !mediaContext.hasReachedStateLimit();
+    }
 
     // Actions
-    final IMediaRuleCallback cmdIdleDetection =
-            (rule, context) -> {
-                if (mediaContext.isIdle()) {
-
-                    long refTS = getRefTS(context);
-
-                    // Media was already idle during previous call.
-                    if (isMediaIdle
-                            && (!isTrackerIdle && (refTS - mediaIdleStartTS) >= IDLE_TIMEOUT)) {
-                        // We stop tracking if media has been idle for 30 mins.
-                        xdmEventGenerator.processSessionAbort();
-                        isTrackerIdle = true;
-                    } else if (!isMediaIdle) {
-                        // Set the media in Idle state and store the TS
-                        isMediaIdle = true;
-                        mediaIdleStartTS = refTS;
-                    }
-                } else {
-                    // Media is not currently idle
-                    if (isTrackerIdle) {
-                        // We resume tracking if we have stopped tracking.
-                        xdmEventGenerator.processSessionRestart();
-                        isTrackerIdle = false;
-
-                        sessionRefTs = getRefTS(context);
-                        // if media is idle, reset content started flag
-                        contentStarted = false;
-                        contentStartRefTs = INVALID_TIMESTAMP;
-                    }
-
-                    isMediaIdle = false;
-                }
+    boolean cmdIdleDetection(final MediaRule rule, final MediaRuleContext context) {
+        if (mediaContext.isIdle()) {
 
-                return true;
-            };
+            long refTS = getRefTS(context);
 
-    final IMediaRuleCallback cmdContentStartDetection =
-            (rule, context) -> {
-                if (mediaContext.isIdle() || contentStarted) {
-                    return true;
-                }
+            // Media was already idle during previous call.
+            if (isMediaIdle && (!isTrackerIdle && (refTS - mediaIdleStartTS) >= IDLE_TIMEOUT)) {
+                // We stop tracking if media has been idle for 30 mins.
+                xdmEventGenerator.processSessionAbort();
+                isTrackerIdle = true;
+            } else if (!isMediaIdle) {
+                // Set the media in Idle state and store the TS
+                isMediaIdle = true;
+                mediaIdleStartTS = refTS;
+            }
+        } else {
+            // Media is not currently idle
+            if (isTrackerIdle) {
+                // We resume tracking if we have stopped tracking.
+                xdmEventGenerator.processSessionRestart();
+                isTrackerIdle = false;
+
+                sessionRefTs = getRefTS(context);
+                // if media is idle, reset content started flag
+                contentStarted = false;
+                contentStartRefTs = INVALID_TIMESTAMP;
+            }
 
-                // We send content start ping after main content plays for one second.
-                if (mediaContext.isInAdBreak()) {
-                    contentStartRefTs = INVALID_TIMESTAMP;
-                    return true;
-                }
+            isMediaIdle = false;
+        }
 
-                if (contentStartRefTs == INVALID_TIMESTAMP) {
-                    // update content_start_ref_ts_ when main content is playing
-                    contentStartRefTs = getRefTS(context);
-                }
+        return true;
+    }
 
-                long refTS = getRefTS(context);
+    boolean cmdContentStartDetection(final MediaRule rule, final MediaRuleContext context) {
+        if (mediaContext.isIdle() || contentStarted) {
+            return true;
+        }
 
-                if ((refTS - contentStartRefTs) >= CONTENT_START_DURATION) {
-                    xdmEventGenerator.processPlayback(true);
-                    contentStarted = true;
-                }
+        // We send content start ping after main content plays for one second.
+        if (mediaContext.isInAdBreak()) {
+            contentStartRefTs = INVALID_TIMESTAMP;
+            return true;
+        }
+
+        if (contentStartRefTs == INVALID_TIMESTAMP) {
+            // update content_start_ref_ts_ when main content is playing
+            contentStartRefTs = getRefTS(context);
+        }
+
+        long refTS = getRefTS(context);
+
+        if ((refTS - contentStartRefTs) >= CONTENT_START_DURATION) {
+            xdmEventGenerator.processPlayback(true);
+            contentStarted = true;
+        }
 
-                return true;
-            };
+        return true;
+    }
 
     /**
      * Callback for determining If session has been running for {@link #SESSION_TIMEOUT_IN_MILLIS}.
      * If yes, restart the session.
      */
-    final IMediaRuleCallback cmdSessionTimeoutDetection =
-            (rule, context) -> {
-                final long refTs = getRefTS(context);
-
-                if (!isTrackerIdle
-                        && refTs - sessionRefTs
-                                >= SESSION_TIMEOUT_IN_MILLIS) { // Session is playing for more than
-                    // 24hrs. Restart session.
-                    xdmEventGenerator.processSessionAbort();
-                    xdmEventGenerator.processSessionRestart();
-                    sessionRefTs = refTs;
-                    contentStarted = false;
-                    contentStartRefTs = INVALID_TIMESTAMP;
-                }
-                return true;
-            };
+    boolean cmdSessionTimeoutDetection(final MediaRule rule, final MediaRuleContext context) {
+        final long refTs = getRefTS(context);
+
+        if (!isTrackerIdle
+                && refTs - sessionRefTs
+                        >= SESSION_TIMEOUT_IN_MILLIS) { // Session is playing for more than
+            // 24hrs. Restart session.
+            xdmEventGenerator.processSessionAbort();
+            xdmEventGenerator.processSessionRestart();
+            sessionRefTs = refTs;
+            contentStarted = false;
+            contentStartRefTs = INVALID_TIMESTAMP;
+        }
+        return true;
+    }
 
-    final IMediaRuleCallback cmdEnterAction =
-            (rule, context) -> {
-                long refTS = getRefTS(context);
+    boolean cmdEnterAction(final MediaRule rule, final MediaRuleContext context) {
+        long refTS = getRefTS(context);
 
-                if (xdmEventGenerator != null && getRefTS(context) != -1) {
-                    xdmEventGenerator.setRefTS(refTS);
-                }
+        if (xdmEventGenerator != null && getRefTS(context) != -1) {
+            xdmEventGenerator.setRefTS(refTS);
+        }
 
-                return true;
-            };
+        return true;
+    }
 
-    final IMediaRuleCallback cmdExitAction =
-            (rule, context) -> {
-                if (mediaContext == null) {
-                    return false;
-                }
+    boolean cmdExitAction(final MediaRule rule, final MediaRuleContext context) {
+        if (mediaContext == null) {
+            return false;
+        }
 
-                // Additional logic based on how the serverside media api processing works.
+        // Additional logic based on how the serverside media api processing works.
 
-                // Force the state to play when we receive adStart before any play/pause.
-                // Happens usually for preroll ad. We manually switch our state to play as the
-                // backend automatically switches state to play after adStart.
-                int ruleName = rule.getName();
+        // Force the state to play when we receive adStart before any play/pause.
+        // Happens usually for preroll ad. We manually switch our state to play as the
+        // backend automatically switches state to play after adStart.
+        int ruleName = rule.getName();
 
-                if (ruleName == MediaRuleName.AdStart.ordinal()) {
-                    if (mediaContext.isInState(MediaPlaybackState.Init)
-                            && !mediaContext.isInState(MediaPlaybackState.Buffer)
-                            && !mediaContext.isInState(MediaPlaybackState.Seek)) {
-                        mediaContext.enterState(MediaPlaybackState.Play);
-                    }
-                }
+        if (ruleName == MediaRuleName.AdStart.ordinal()) {
+            if (mediaContext.isInState(MediaPlaybackState.Init)
+                    && !mediaContext.isInState(MediaPlaybackState.Buffer)
+                    && !mediaContext.isInState(MediaPlaybackState.Seek)) {
+                mediaContext.enterState(MediaPlaybackState.Play);
+            }
+        }
 
-                // If we receive BufferComplete / SeekComplete before first play / pause,
-                // we manually switch to pause as there is not way to go back to init state.
-                if (ruleName == MediaRuleName.BufferComplete.ordinal()
-                        || ruleName == MediaRuleName.SeekComplete.ordinal()) {
-                    if (mediaContext.isInState(MediaPlaybackState.Init)) {
-                        mediaContext.enterState(MediaPlaybackState.Pause);
-                    }
-                }
+        // If we receive BufferComplete / SeekComplete before first play / pause,
+        // we manually switch to pause as there is not way to go back to init state.
+        if (ruleName == MediaRuleName.BufferComplete.ordinal()
+                || ruleName == MediaRuleName.SeekComplete.ordinal()) {
+            if (mediaContext.isInState(MediaPlaybackState.Init)) {
+                mediaContext.enterState(MediaPlaybackState.Pause);
+            }
+        }
 
-                cmdIdleDetection.call(rule, context);
-                cmdSessionTimeoutDetection.call(rule, context);
-                cmdContentStartDetection.call(rule, context);
+        cmdIdleDetection(rule, context);
+        cmdSessionTimeoutDetection(rule, context);
+        cmdContentStartDetection(rule, context);
 
-                // Flush playback state after AdStart and AdBreakComplete
-                boolean flushState =
-                        (rule.getName() == MediaRuleName.AdStart.ordinal())
-                                || (rule.getName() == MediaRuleName.AdBreakComplete.ordinal());
-                xdmEventGenerator.processPlayback(flushState);
+        // Flush playback state after AdStart and AdBreakComplete
+        boolean flushState =
+                (rule.getName() == MediaRuleName.AdStart.ordinal())
+                        || (rule.getName() == MediaRuleName.AdBreakComplete.ordinal());
+        xdmEventGenerator.processPlayback(flushState);
 
-                return true;
-            };
+        return true;
+    }
 
-    final IMediaRuleCallback cmdMediaStart =
-            (rule, context) -> {
-                Map<String, Object> info =
-                        DataReader.optTypedMap(Object.class, context, KEY_INFO, null);
-                MediaInfo mediaInfo = MediaInfo.fromObjectMap(info);
+    boolean cmdMediaStart(final MediaRule rule, final MediaRuleContext context) {
+        MediaInfo mediaInfo = getMediaInfo(context);
 
-                long refTS = getRefTS(context);
-                Map<String, String> metadata = getMetadata(context);
+        long refTS = getRefTS(context);
+        Map<String, String> metadata = getMetadata(context);
 
-                mediaContext = new MediaContext(mediaInfo, metadata);
+        mediaContext = new MediaContext(mediaInfo, metadata);
 
-                xdmEventGenerator =
-                        new MediaXDMEventGenerator(
-                                mediaContext, eventProcessor, trackerConfig, refTS);
+        xdmEventGenerator =
+                new MediaXDMEventGenerator(
+                        mediaContext, eventProcessor, trackerConfig, refTS);
 
-                xdmEventGenerator.processSessionStart(false);
-                sessionRefTs = refTS;
+        sessionRefTs = refTS;
+        prerollRefTS = refTS;
 
-                inPrerollInterval = mediaInfo.getPrerollWaitTime() > 0;
-                prerollRefTS = refTS;
+        // A resumed session continues from the checkpoint saved before the process was killed
+        if (checkpoint != null
+                && mediaInfo.isResumed()
+                && checkpoint.restore(mediaContext, refTS)) {
+            xdmEventGenerator.processSessionResume();
+            inPrerollInterval = false;
+            return true;
+        }
 
-                return true;
-            };
+        xdmEventGenerator.processSessionStart(false);
+        inPrerollInterval = mediaInfo.getPrerollWaitTime() > 0;
 
-    final IMediaRuleCallback cmdMediaComplete =
-            (rule, context) -> {
-                xdmEventGenerator.processSessionComplete();
+        return true;
+    }
 
-                xdmEventGenerator = null;
-                mediaContext = null;
+    boolean cmdMediaComplete(final MediaRule rule, final MediaRuleContext context) {
+        xdmEventGenerator.processSessionComplete();
 
-                return true;
-            };
+        xdmEventGenerator = null;
+        mediaContext = null;
 
-    final IMediaRuleCallback cmdMediaSkip =
-            (rule, context) -> {
-                xdmEventGenerator.processSessionEnd();
+        return true;
+    }
 
-                xdmEventGenerator = null;
-                mediaContext = null;
+    boolean cmdMediaSkip(final MediaRule rule, final MediaRuleContext context) {
+        xdmEventGenerator.processSessionEnd();
 
-                return true;
-            };
+        xdmEventGenerator = null;
+        mediaContext = null;
 
-    final IMediaRuleCallback cmdAdBreakStart =
-            (rule, context) -> {
-                Map<String, Object> info =
-                        DataReader.optTypedMap(Object.class, context, KEY_INFO, null);
-                AdBreakInfo adBreakInfo = AdBreakInfo.fromObjectMap(info);
-                mediaContext.setAdBreakInfo(adBreakInfo);
-                xdmEventGenerator.processAdBreakStart();
+        return true;
+    }
 
-                return true;
-            };
+    boolean cmdAdBreakStart(final MediaRule rule, final MediaRuleContext context) {
+        AdBreakInfo adBreakInfo = getAdBreakInfo(context);
+        mediaContext.setAdBreakInfo(adBreakInfo);
+        xdmEventGenerator.processAdBreakStart();
 
-    final IMediaRuleCallback cmdAdBreakComplete =
-            (rule, context) -> {
-                xdmEventGenerator.processAdBreakComplete();
-                mediaContext.clearAdBreakInfo();
+        return true;
+    }
 
-                return true;
-            };
+    boolean cmdAdBreakComplete(final MediaRule rule, final MediaRuleContext context) {
+        xdmEventGenerator.processAdBreakComplete();
+        mediaContext.clearAdBreakInfo();
 
-    final IMediaRuleCallback cmdAdBreakSkip =
-            (rule, context) -> {
-                if (mediaContext.isInAdBreak()) {
-                    xdmEventGenerator.processAdBreakSkip();
-                    mediaContext.clearAdBreakInfo();
-                }
+        return true;
+    }
 
-                return true;
-            };
-
-    final IMediaRuleCallback cmdAdStart =
-            (rule, context) -> {
-                Map<String, Object> info =
-                        DataReader.optTypedMap(Object.class, context, KEY_INFO, null);
-                AdInfo adInfo = AdInfo.fromObjectMap(info);
-                Map<String, String> metadata = getMetadata(context);
-                mediaContext.setAdInfo(adInfo, metadata);
-                xdmEventGenerator.processAdStart();
-
-                return true;
-            };
-
-    final IMediaRuleCallback cmdAdComplete =
-            (rule, context) -> {
-                xdmEventGenerator.processAdComplete();
-                mediaContext.clearAdInfo();
-
-                return true;
-            };
-
-    final IMediaRuleCallback cmdAdSkip =
-            (rule, context) -> {
-                if (mediaContext.isInAd()) {
-                    xdmEventGenerator.processAdSkip();
-                    mediaContext.clearAdInfo();
-                }
+    boolean cmdAdBreakSkip(final MediaRule rule, final MediaRuleContext context) {
+        if (mediaContext.isInAdBreak()) {
+            xdmEventGenerator.processAdBreakSkip();
+            mediaContext.clearAdBreakInfo();
+        }
 
-                return true;
-            };
-
-    final IMediaRuleCallback cmdChapterStart =
-            (rule, context) -> {
-                Map<String, Object> info =
-                        DataReader.optTypedMap(Object.class, context, KEY_INFO, null);
-                ChapterInfo chapterInfo = ChapterInfo.fromObjectMap(info);
-                Map<String, String> metadata = getMetadata(context);
-                mediaContext.setChapterInfo(chapterInfo, metadata);
-                xdmEventGenerator.processChapterStart();
-
-                return true;
-            };
-
-    final IMediaRuleCallback cmdChapterComplete =
-            (rule, context) -> {
-                xdmEventGenerator.processChapterComplete();
-                mediaContext.clearChapterInfo();
-
-                return true;
-            };
-
-    final IMediaRuleCallback cmdChapterSkip =
-            (rule, context) -> {
-                if (mediaContext.isInChapter()) {
-                    xdmEventGenerator.processChapterSkip();
-                    mediaContext.clearChapterInfo();
-                }
+        return true;
+    }
 
-                return true;
-            };
+    boolean cmdAdStart(final MediaRule rule, final MediaRuleContext context) {
+        AdInfo adInfo = getAdInfo(context);
+        Map<String, String> metadata = getMetadata(context);
+        mediaContext.setAdInfo(adInfo, metadata);
+        xdmEventGenerator.processAdStart();
 
-    final IMediaRuleCallback cmdPlay =
-            (rule, context) -> {
-                mediaContext.enterState(MediaPlaybackState.Play);
-                return true;
-            };
+        return true;
+    }
 
-    final IMediaRuleCallback cmdPause =
-            (rule, context) -> {
-                mediaContext.enterState(MediaPlaybackState.Pause);
-                return true;
-            };
-
-    final IMediaRuleCallback cmdBufferStart =
-            (rule, context) -> {
-                mediaContext.enterState(MediaPlaybackState.Buffer);
-                return true;
-            };
-
-    final IMediaRuleCallback cmdBufferComplete =
-            (rule, context) -> {
-                if (mediaContext.isInState(MediaPlaybackState.Buffer)) {
-                    mediaContext.exitState(MediaPlaybackState.Buffer);
-                }
+    boolean cmdAdComplete(final MediaRule rule, final MediaRuleContext context) {
+        xdmEventGenerator.processAdComplete();
+        mediaContext.clearAdInfo();
 
-                return true;
-            };
+        return true;
+    }
 
-    final IMediaRuleCallback cmdSeekStart =
-            (rule, context) -> {
-                mediaContext.enterState(MediaPlaybackState.Seek);
-                return true;
-            };
+    boolean cmdAdSkip(final MediaRule rule, final MediaRuleContext context) {
+        if (mediaContext.isInAd()) {
+            xdmEventGenerator.processAdSkip();
+            mediaContext.clearAdInfo();
+        }
 
-    final IMediaRuleCallback cmdSeekComplete =
-            (rule, context) -> {
-                if (mediaContext.isInState(MediaPlaybackState.Seek)) {
-                    mediaContext.exitState(MediaPlaybackState.Seek);
-                }
+        return true;
+    }
 
-                return true;
-            };
+    boolean cmdChapterStart(final MediaRule rule, final MediaRuleContext context) {
+        ChapterInfo chapterInfo = getChapterInfo(context);
+        Map<String, String> metadata = getMetadata(context);
+        mediaContext.setChapterInfo(chapterInfo, metadata);
+        xdmEventGenerator.processChapterStart();
 
-    final IMediaRuleCallback cmdError =
-            (rule, context) -> {
-                String errorId = getError(context);
+        return true;
+    }
 
-                if (errorId != null) {
-                    xdmEventGenerator.processError(errorId);
-                }
+    boolean cmdChapterComplete(final MediaRule rule, final MediaRuleContext context) {
+        xdmEventGenerator.processChapterComplete();
+        mediaContext.clearChapterInfo();
 
-                return true;
-            };
-
-    final IMediaRuleCallback cmdBitrateChange =
-            (rule, context) -> {
-                xdmEventGenerator.processBitrateChange();
-
-                return true;
-            };
-
-    final IMediaRuleCallback cmdQoEUpdate =
-            (rule, context) -> {
-                Map<String, Object> info =
-                        DataReader.optTypedMap(Object.class, context, KEY_INFO, null);
-                QoEInfo qoeInfo = QoEInfo.fromObjectMap(info);
-                mediaContext.setQoEInfo(qoeInfo);
-
-                return true;
-            };
-
-    final IMediaRuleCallback cmdStateStart =
-            (rule, context) -> {
-                Map<String, Object> info =
-                        DataReader.optTypedMap(Object.class, context, KEY_INFO, null);
-                StateInfo stateInfo = StateInfo.fromObjectMap(info);
-                mediaContext.startState(stateInfo);
-                xdmEventGenerator.processStateStart(stateInfo);
-                return true;
-            };
-
-    final IMediaRuleCallback cmdStateEnd =
-            (rule, context) -> {
-                Map<String, Object> info =
-                        DataReader.optTypedMap(Object.class, context, KEY_INFO, null);
-                StateInfo stateInfo = StateInfo.fromObjectMap(info);
-                mediaContext.endState(stateInfo);
-                xdmEventGenerator.processStateEnd(stateInfo);
-                return true;
-            };
-
-    final IMediaRuleCallback cmdPlayheadUpdate =
-            (rule, context) -> {
-                int playhead = getPlayhead(context);
-
-                if (playhead >= 0) {
-                    mediaContext.setPlayhead(playhead);
-                }
+        return true;
+    }
 
-                return true;
-            };
+    boolean cmdChapterSkip(final MediaRule rule, final MediaRuleContext context) {
+        if (mediaContext.isInChapter()) {
+            xdmEventGenerator.processChapterSkip();
+            mediaContext.clearChapterInfo();
+        }
 
-    void setUpMediaRules() {
-        ruleEngine.onEnterRule(cmdEnterAction);
-        ruleEngine.onExitRule(cmdExitAction);
+        return true;
+    }
+
+    boolean cmdPlay(final MediaRule rule, final MediaRuleContext context) {
+        mediaContext.enterState(MediaPlaybackState.Play);
+        return true;
+    }
+
+    boolean cmdPause(final MediaRule rule, final MediaRuleContext context) {
+        mediaContext.enterState(MediaPlaybackState.Pause);
+        return true;
+    }
+
+    boolean cmdBufferStart(final MediaRule rule, final MediaRuleContext context) {
+        mediaContext.enterState(MediaPlaybackState.Buffer);
+        return true;
+    }
+
+    boolean cmdBufferComplete(final MediaRule rule, final MediaRuleContext context) {
+        if (mediaContext.isInState(MediaPlaybackState.Buffer)) {
+            mediaContext.exitState(MediaPlaybackState.Buffer);
+        }
+
+        return true;
+    }
+
+    boolean cmdSeekStart(final MediaRule rule, final MediaRuleContext context) {
+        mediaContext.enterState(MediaPlaybackState.Seek);
+        return true;
+    }
+
+    boolean cmdSeekComplete(final MediaRule rule, final MediaRuleContext context) {
+        if (mediaContext.isInState(MediaPlaybackState.Seek)) {
+            mediaContext.exitState(MediaPlaybackState.Seek);
+        }
+
+        return true;
+    }
+
+    boolean cmdError(final MediaRule rule, final MediaRuleContext context) {
+        String errorId = getError(context);
+
+        if (errorId != null) {
+            xdmEventGenerator.processError(errorId);
+        }
+
+        return true;
+    }
+
+    boolean cmdBitrateChange(final MediaRule rule, final MediaRuleContext context) {
+        xdmEventGenerator.processBitrateChange();
+
+        return true;
+    }
+
+    boolean cmdQoEUpdate(final MediaRule rule, final MediaRuleContext context) {
+        QoEInfo qoeInfo = getQoEInfo(context);
+        mediaContext.setQoEInfo(qoeInfo);
+
+        return true;
+    }
+
+    boolean cmdStateStart(final MediaRule rule, final MediaRuleContext context) {
+        StateInfo stateInfo = getStateInfo(context);
+        mediaContext.startState(stateInfo);
+        xdmEventGenerator.processStateStart(stateInfo);
+        return true;
+    }
+
+    boolean cmdStateEnd(final MediaRule rule, final MediaRuleContext context) {
+        StateInfo stateInfo = getStateInfo(context);
+        mediaContext.endState(stateInfo);
+        xdmEventGenerator.processStateEnd(stateInfo);
+        return true;
+    }
+
+    boolean cmdPlayheadUpdate(final MediaRule rule, final MediaRuleContext context) {
+        int playhead = getPlayhead(context);
+
+        if (playhead >= 0) {
+            mediaContext.setPlayhead(playhead);
+        }
+
+        return true;
+    }
+
+    /**
+     * Builds the media rules. The rules hold no tracker state and are shared by all the {@link
+     * MediaEventTracker} instances, the tracker is read from the {@link MediaRuleContext}.
+     */
+    private static MediaRuleEngine createMediaRules() {
+        MediaRuleEngine ruleEngine = new MediaRuleEngine();
+        ruleEngine.onEnterRule(forTracker(MediaEventTracker::cmdEnterAction));
+        ruleEngine.onExitRule(forTracker(MediaEventTracker::cmdExitAction));
+        ruleEngine.setStateProvider(context -> context.getTracker().getRuleState());
 
         // MediaRule::trackSessionStart
         MediaRule mediaStart =
                 new MediaRule(MediaRuleName.MediaStart.ordinal(), "API::trackSessionStart");
         mediaStart
-                .addPredicate(isInMedia, false, ErrorMessage.ErrInMedia.getValue())
-                .addPredicate(isValidMediaInfo, true, ErrorMessage.ErrInvalidMediaInfo.getValue())
-                .addAction(cmdMediaStart);
+                .addStatePredicate(
+                        MediaRule.STATE_IN_MEDIA, false, ErrorMessage.ErrInMedia.getValue())
+                .addPredicate(
+                        forTracker(MediaEventTracker::isValidMediaInfo),
+                        true,
+                        ErrorMessage.ErrInvalidMediaInfo.getValue())
+                .addAction(forTracker(MediaEventTracker::cmdMediaStart));
 
         ruleEngine.addRule(mediaStart);
 
@@ -734,11 +908,12 @@ class MediaEventTracker implements MediaEventTracking {
         MediaRule mediaComplete =
                 new MediaRule(MediaRuleName.MediaComplete.ordinal(), "API::trackSessionComplete");
         mediaComplete
-                .addPredicate(isInMedia, true, ErrorMessage.ErrNotInMedia.getValue())
-                .addAction(cmdAdSkip)
-                .addAction(cmdAdBreakSkip)
-                .addAction(cmdChapterSkip)
-                .addAction(cmdMediaComplete);
+                .addStatePredicate(
+                        MediaRule.STATE_IN_MEDIA, true, ErrorMessage.ErrNotInMedia.getValue())
+                .addAction(forTracker(MediaEventTracker::cmdAdSkip))
+                .addAction(forTracker(MediaEventTracker::cmdAdBreakSkip))
+                .addAction(forTracker(MediaEventTracker::cmdChapterSkip))
+                .addAction(forTracker(MediaEventTracker::cmdMediaComplete));
 
         ruleEngine.addRule(mediaComplete);
 
@@ -746,47 +921,56 @@ class MediaEventTracker implements MediaEventTracking {
         MediaRule mediaSkip =
                 new MediaRule(MediaRuleName.MediaSkip.ordinal(), "API::trackSessionEnd");
         mediaSkip
-                .addPredicate(isInMedia, true, ErrorMessage.ErrNotInMedia.getValue())
-                .addAction(cmdAdSkip)
-                .addAction(cmdAdBreakSkip)
-                .addAction(cmdChapterSkip)
-                .addAction(cmdMediaSkip);
+                .addStatePredicate(
+                        MediaRule.STATE_IN_MEDIA, true, ErrorMessage.ErrNotInMedia.getValue())
+                .addAction(forTracker(MediaEventTracker::cmdAdSkip))
+                .addAction(forTracker(MediaEventTracker::cmdAdBreakSkip))
+                .addAction(forTracker(MediaEventTracker::cmdChapterSkip))
+                .addAction(forTracker(MediaEventTracker::cmdMediaSkip));
 
         ruleEngine.addRule(mediaSkip);
 
         // MediaRule::trackError
         MediaRule error = new MediaRule(MediaRuleName.Error.ordinal(), "API::trackError");
-        error.addPredicate(isInMedia, true, ErrorMessage.ErrNotInMedia.getValue())
-                .addPredicate(isValidErrorInfo, true, ErrorMessage.ErrInvalidErrorId.getValue())
-                .addAction(cmdError);
+        error.addStatePredicate(
+                        MediaRule.STATE_IN_MEDIA, true, ErrorMessage.ErrNotInMedia.getValue())
+                .addPredicate(
+                        forTracker(MediaEventTracker::isValidErrorInfo),
+                        true,
+                        ErrorMessage.ErrInvalidErrorId.getValue())
+                .addAction(forTracker(MediaEventTracker::cmdError));
 
         ruleEngine.addRule(error);
 
         // MediaRule::trackPlay
         MediaRule play = new MediaRule(MediaRuleName.Play.ordinal(), "API::trackPlay");
-        play.addPredicate(isInMedia, true, ErrorMessage.ErrNotInMedia.getValue())
+        play.addStatePredicate(
+                        MediaRule.STATE_IN_MEDIA, true, ErrorMessage.ErrNotInMedia.getValue())
                 .addPredicate(
-                        allowPlaybackStateChange,
+                        forTracker(MediaEventTracker::allowPlaybackStateChange),
                         true,
                         ErrorMessage.ErrInvalidPlaybackState.getValue())
-                .addAction(cmdSeekComplete)
-                .addAction(cmdBufferComplete)
-                .addAction(cmdPlay);
+                .addAction(forTracker(MediaEventTracker::cmdSeekComplete))
+                .addAction(forTracker(MediaEventTracker::cmdBufferComplete))
+                .addAction(forTracker(MediaEventTracker::cmdPlay));
 
         ruleEngine.addRule(play);
 
         // MediaRule::trackPause
         MediaRule pause = new MediaRule(MediaRuleName.Pause.ordinal(), "API::trackPause");
-        pause.addPredicate(isInMedia, true, ErrorMessage.ErrNotInMedia.getValue())
+        pause.addStatePredicate(
+                        MediaRule.STATE_IN_MEDIA, true, ErrorMessage.ErrNotInMedia.getValue())
                 .addPredicate(
-                        allowPlaybackStateChange,
+                        forTracker(MediaEventTracker::allowPlaybackStateChange),
                         true,
                         ErrorMessage.ErrInvalidPlaybackState.getValue())
-                .addPredicate(isInBuffering, false, ErrorMessage.ErrInBuffer.getValue())
-                .addPredicate(isInSeeking, false, ErrorMessage.ErrInSeek.getValue())
-                .addAction(cmdSeekComplete)
-                .addAction(cmdBufferComplete)
-                .addAction(cmdPause);
+                .addStatePredicate(
+                        MediaRule.STATE_IN_BUFFERING, false, ErrorMessage.ErrInBuffer.getValue())
+                .addStatePredicate(
+                        MediaRule.STATE_IN_SEEKING, false, ErrorMessage.ErrInSeek.getValue())
+                .addAction(forTracker(MediaEventTracker::cmdSeekComplete))
+                .addAction(forTracker(MediaEventTracker::cmdBufferComplete))
+                .addAction(forTracker(MediaEventTracker::cmdPause));
 
         ruleEngine.addRule(pause);
 
@@ -794,14 +978,17 @@ class MediaEventTracker implements MediaEventTracking {
         MediaRule bufferStart =
                 new MediaRule(MediaRuleName.BufferStart.ordinal(), "API::trackEvent(BufferStart)");
         bufferStart
-                .addPredicate(isInMedia, true, ErrorMessage.ErrNotInMedia.getValue())
+                .addStatePredicate(
+                        MediaRule.STATE_IN_MEDIA, true, ErrorMessage.ErrNotInMedia.getValue())
                 .addPredicate(
-                        allowPlaybackStateChange,
+                        forTracker(MediaEventTracker::allowPlaybackStateChange),
                         true,
                         ErrorMessage.ErrInvalidPlaybackState.getValue())
-                .addPredicate(isInBuffering, false, ErrorMessage.ErrInBuffer.getValue())
-                .addPredicate(isInSeeking, false, ErrorMessage.ErrInSeek.getValue())
-                .addAction(cmdBufferStart);
+                .addStatePredicate(
+                        MediaRule.STATE_IN_BUFFERING, false, ErrorMessage.ErrInBuffer.getValue())
+                .addStatePredicate(
+                        MediaRule.STATE_IN_SEEKING, false, ErrorMessage.ErrInSeek.getValue())
+                .addAction(forTracker(MediaEventTracker::cmdBufferStart));
 
         ruleEngine.addRule(bufferStart);
 
@@ -810,13 +997,15 @@ class MediaEventTracker implements MediaEventTracking {
                 new MediaRule(
                         MediaRuleName.BufferComplete.ordinal(), "API::trackEvent(BufferComplete)");
         bufferComplete
-                .addPredicate(isInMedia, true, ErrorMessage.ErrNotInMedia.getValue())
+                .addStatePredicate(
+                        MediaRule.STATE_IN_MEDIA, true, ErrorMessage.ErrNotInMedia.getValue())
                 .addPredicate(
-                        allowPlaybackStateChange,
+                        forTracker(MediaEventTracker::allowPlaybackStateChange),
                         true,
                         ErrorMessage.ErrInvalidPlaybackState.getValue())
-                .addPredicate(isInBuffering, true, ErrorMessage.ErrNotInBuffer.getValue())
-                .addAction(cmdBufferComplete);
+                .addStatePredicate(
+                        MediaRule.STATE_IN_BUFFERING, true, ErrorMessage.ErrNotInBuffer.getValue())
+                .addAction(forTracker(MediaEventTracker::cmdBufferComplete));
 
         ruleEngine.addRule(bufferComplete);
 
@@ -824,14 +1013,17 @@ class MediaEventTracker implements MediaEventTracking {
         MediaRule seekStart =
                 new MediaRule(MediaRuleName.SeekStart.ordinal(), "API::trackEvent(SeekStart)");
         seekStart
-                .addPredicate(isInMedia, true, ErrorMessage.ErrNotInMedia.getValue())
+                .addStatePredicate(
+                        MediaRule.STATE_IN_MEDIA, true, ErrorMessage.ErrNotInMedia.getValue())
                 .addPredicate(
-                        allowPlaybackStateChange,
+                        forTracker(MediaEventTracker::allowPlaybackStateChange),
                         true,
                         ErrorMessage.ErrInvalidPlaybackState.getValue())
-                .addPredicate(isInSeeking, false, ErrorMessage.ErrInSeek.getValue())
-                .addPredicate(isInBuffering, false, ErrorMessage.ErrInBuffer.getValue())
-                .addAction(cmdSeekStart);
+                .addStatePredicate(
+                        MediaRule.STATE_IN_SEEKING, false, ErrorMessage.ErrInSeek.getValue())
+                .addStatePredicate(
+                        MediaRule.STATE_IN_BUFFERING, false, ErrorMessage.ErrInBuffer.getValue())
+                .addAction(forTracker(MediaEventTracker::cmdSeekStart));
 
         ruleEngine.addRule(seekStart);
 
@@ -840,13 +1032,15 @@ class MediaEventTracker implements MediaEventTracking {
                 new MediaRule(
                         MediaRuleName.SeekComplete.ordinal(), "API::trackEvent(SeekComplete)");
         seekComplete
-                .addPredicate(isInMedia, true, ErrorMessage.ErrNotInMedia.getValue())
+                .addStatePredicate(
+                        MediaRule.STATE_IN_MEDIA, true, ErrorMessage.ErrNotInMedia.getValue())
                 .addPredicate(
-                        allowPlaybackStateChange,
+                        forTracker(MediaEventTracker::allowPlaybackStateChange),
                         true,
                         ErrorMessage.ErrInvalidPlaybackState.getValue())
-                .addPredicate(isInSeeking, true, ErrorMessage.ErrNotInSeek.getValue())
-                .addAction(cmdSeekComplete);
+                .addStatePredicate(
+                        MediaRule.STATE_IN_SEEKING, true, ErrorMessage.ErrNotInSeek.getValue())
+                .addAction(forTracker(MediaEventTracker::cmdSeekComplete));
 
         ruleEngine.addRule(seekComplete);
 
@@ -855,16 +1049,19 @@ class MediaEventTracker implements MediaEventTracking {
                 new MediaRule(
                         MediaRuleName.AdBreakStart.ordinal(), "API::trackEvent(AdBreakStart)");
         adBreakStart
-                .addPredicate(isInMedia, true, ErrorMessage.ErrNotInMedia.getValue())
+                .addStatePredicate(
+                        MediaRule.STATE_IN_MEDIA, true, ErrorMessage.ErrNotInMedia.getValue())
                 .addPredicate(
-                        isValidAdBreakInfo, true, ErrorMessage.ErrInvalidAdBreakInfo.getValue())
+                        forTracker(MediaEventTracker::isValidAdBreakInfo),
+                        true,
+                        ErrorMessage.ErrInvalidAdBreakInfo.getValue())
                 .addPredicate(
-                        isDifferentAdBreakInfo,
+                        forTracker(MediaEventTracker::isDifferentAdBreakInfo),
                         true,
                         ErrorMessage.ErrDuplicateAdBreakInfo.getValue())
-                .addAction(cmdAdSkip)
-                .addAction(cmdAdBreakSkip)
-                .addAction(cmdAdBreakStart);
+                .addAction(forTracker(MediaEventTracker::cmdAdSkip))
+                .addAction(forTracker(MediaEventTracker::cmdAdBreakSkip))
+                .addAction(forTracker(MediaEventTracker::cmdAdBreakStart));
 
         ruleEngine.addRule(adBreakStart);
 
@@ -874,22 +1071,32 @@ class MediaEventTracker implements MediaEventTracking {
                         MediaRuleName.AdBreakComplete.ordinal(),
                         "API::trackEvent(AdBreakComplete)");
         adBreakComplete
-                .addPredicate(isInMedia, true, ErrorMessage.ErrNotInMedia.getValue())
-                .addPredicate(isInAdBreak, true, ErrorMessage.ErrNotInAdBreak.getValue())
-                .addAction(cmdAdSkip)
-                .addAction(cmdAdBreakComplete);
+                .addStatePredicate(
+                        MediaRule.STATE_IN_MEDIA, true, ErrorMessage.ErrNotInMedia.getValue())
+                .addStatePredicate(
+                        MediaRule.STATE_IN_AD_BREAK, true, ErrorMessage.ErrNotInAdBreak.getValue())
+                .addAction(forTracker(MediaEventTracker::cmdAdSkip))
+                .addAction(forTracker(MediaEventTracker::cmdAdBreakComplete));
 
         ruleEngine.addRule(adBreakComplete);
 
         // MediaRule::trackEvent(AdStart)
         MediaRule adStart =
                 new MediaRule(MediaRuleName.AdStart.ordinal(), "API::trackEvent(AdStart)");
-        adStart.addPredicate(isInMedia, true, ErrorMessage.ErrNotInMedia.getValue())
-                .addPredicate(isInAdBreak, true, ErrorMessage.ErrNotInAdBreak.getValue())
-                .addPredicate(isValidAdInfo, true, ErrorMessage.ErrInvalidAdInfo.getValue())
-                .addPredicate(isDifferentAdInfo, true, ErrorMessage.ErrDuplicateAdInfo.getValue())
-                .addAction(cmdAdSkip)
-                .addAction(cmdAdStart);
+        adStart.addStatePredicate(
+                        MediaRule.STATE_IN_MEDIA, true, ErrorMessage.ErrNotInMedia.getValue())
+                .addStatePredicate(
+                        MediaRule.STATE_IN_AD_BREAK, true, ErrorMessage.ErrNotInAdBreak.getValue())
+                .addPredicate(
+                        forTracker(MediaEventTracker::isValidAdInfo),
+                        true,
+                        ErrorMessage.ErrInvalidAdInfo.getValue())
+                .addPredicate(
+                        forTracker(MediaEventTracker::isDifferentAdInfo),
+                        true,
+                        ErrorMessage.ErrDuplicateAdInfo.getValue())
+                .addAction(forTracker(MediaEventTracker::cmdAdSkip))
+                .addAction(forTracker(MediaEventTracker::cmdAdStart));
 
         ruleEngine.addRule(adStart);
 
@@ -897,19 +1104,23 @@ class MediaEventTracker implements MediaEventTracking {
         MediaRule adComplete =
                 new MediaRule(MediaRuleName.AdComplete.ordinal(), "API::trackEvent(AdComplete)");
         adComplete
-                .addPredicate(isInMedia, true, ErrorMessage.ErrNotInMedia.getValue())
-                .addPredicate(isInAdBreak, true, ErrorMessage.ErrNotInAdBreak.getValue())
-                .addPredicate(isInAd, true, ErrorMessage.ErrNotInAd.getValue())
-                .addAction(cmdAdComplete);
+                .addStatePredicate(
+                        MediaRule.STATE_IN_MEDIA, true, ErrorMessage.ErrNotInMedia.getValue())
+                .addStatePredicate(
+                        MediaRule.STATE_IN_AD_BREAK, true, ErrorMessage.ErrNotInAdBreak.getValue())
+                .addStatePredicate(MediaRule.STATE_IN_AD, true, ErrorMessage.ErrNotInAd.getValue())
+                .addAction(forTracker(MediaEventTracker::cmdAdComplete));
 
         ruleEngine.addRule(adComplete);
 
         // MediaRule::trackEvent(AdSkip)
         MediaRule adSkip = new MediaRule(MediaRuleName.AdSkip.ordinal(), "API::trackEvent(AdSkip)");
-        adSkip.addPredicate(isInMedia, true, ErrorMessage.ErrNotInMedia.getValue())
-                .addPredicate(isInAdBreak, true, ErrorMessage.ErrNotInAdBreak.getValue())
-                .addPredicate(isInAd, true, ErrorMessage.ErrNotInAd.getValue())
-                .addAction(cmdAdSkip);
+        adSkip.addStatePredicate(
+                        MediaRule.STATE_IN_MEDIA, true, ErrorMessage.ErrNotInMedia.getValue())
+                .addStatePredicate(
+                        MediaRule.STATE_IN_AD_BREAK, true, ErrorMessage.ErrNotInAdBreak.getValue())
+                .addStatePredicate(MediaRule.STATE_IN_AD, true, ErrorMessage.ErrNotInAd.getValue())
+                .addAction(forTracker(MediaEventTracker::cmdAdSkip));
 
         ruleEngine.addRule(adSkip);
 
@@ -918,15 +1129,18 @@ class MediaEventTracker implements MediaEventTracking {
                 new MediaRule(
                         MediaRuleName.ChapterStart.ordinal(), "API::trackEvent(ChapterStart)");
         chapterStart
-                .addPredicate(isInMedia, true, ErrorMessage.ErrNotInMedia.getValue())
+                .addStatePredicate(
+                        MediaRule.STATE_IN_MEDIA, true, ErrorMessage.ErrNotInMedia.getValue())
                 .addPredicate(
-                        isValidChapterInfo, true, ErrorMessage.ErrInvalidChapterInfo.getValue())
+                        forTracker(MediaEventTracker::isValidChapterInfo),
+                        true,
+                        ErrorMessage.ErrInvalidChapterInfo.getValue())
                 .addPredicate(
-                        isDifferentChapterInfo,
+                        forTracker(MediaEventTracker::isDifferentChapterInfo),
                         true,
                         ErrorMessage.ErrDuplicateChapterInfo.getValue())
-                .addAction(cmdChapterSkip)
-                .addAction(cmdChapterStart);
+                .addAction(forTracker(MediaEventTracker::cmdChapterSkip))
+                .addAction(forTracker(MediaEventTracker::cmdChapterStart));
 
         ruleEngine.addRule(chapterStart);
 
@@ -936,9 +1150,11 @@ class MediaEventTracker implements MediaEventTracking {
                         MediaRuleName.ChapterComplete.ordinal(),
                         "API::trackEvent(ChapterComplete)");
         chapterComplete
-                .addPredicate(isInMedia, true, ErrorMessage.ErrNotInMedia.getValue())
-                .addPredicate(isInChapter, true, ErrorMessage.ErrNotInChapter.getValue())
-                .addAction(cmdChapterComplete);
+                .addStatePredicate(
+                        MediaRule.STATE_IN_MEDIA, true, ErrorMessage.ErrNotInMedia.getValue())
+                .addStatePredicate(
+                        MediaRule.STATE_IN_CHAPTER, true, ErrorMessage.ErrNotInChapter.getValue())
+                .addAction(forTracker(MediaEventTracker::cmdChapterComplete));
 
         ruleEngine.addRule(chapterComplete);
 
@@ -946,9 +1162,11 @@ class MediaEventTracker implements MediaEventTracking {
         MediaRule chapterSkip =
                 new MediaRule(MediaRuleName.ChapterSkip.ordinal(), "API::trackEvent(ChapterSkip)");
         chapterSkip
-                .addPredicate(isInMedia, true, ErrorMessage.ErrNotInMedia.getValue())
-                .addPredicate(isInChapter, true, ErrorMessage.ErrNotInChapter.getValue())
-                .addAction(cmdChapterSkip);
+                .addStatePredicate(
+                        MediaRule.STATE_IN_MEDIA, true, ErrorMessage.ErrNotInMedia.getValue())
+                .addStatePredicate(
+                        MediaRule.STATE_IN_CHAPTER, true, ErrorMessage.ErrNotInChapter.getValue())
+                .addAction(forTracker(MediaEventTracker::cmdChapterSkip));
 
         ruleEngine.addRule(chapterSkip);
 
@@ -957,8 +1175,9 @@ class MediaEventTracker implements MediaEventTracking {
                 new MediaRule(
                         MediaRuleName.BitrateChange.ordinal(), "API::trackEvent(BitrateChange)");
         bitrateChange
-                .addPredicate(isInMedia, true, ErrorMessage.ErrNotInMedia.getValue())
-                .addAction(cmdBitrateChange);
+                .addStatePredicate(
+                        MediaRule.STATE_IN_MEDIA, true, ErrorMessage.ErrNotInMedia.getValue())
+                .addAction(forTracker(MediaEventTracker::cmdBitrateChange));
 
         ruleEngine.addRule(bitrateChange);
 
@@ -966,9 +1185,13 @@ class MediaEventTracker implements MediaEventTracking {
         MediaRule qoeUpdate =
                 new MediaRule(MediaRuleName.QoEUpdate.ordinal(), "API::updateQoEInfo");
         qoeUpdate
-                .addPredicate(isInMedia, true, ErrorMessage.ErrNotInMedia.getValue())
-                .addPredicate(isValidQoEInfo, true, ErrorMessage.ErrInvalidQoEInfo.getValue())
-                .addAction(cmdQoEUpdate);
+                .addStatePredicate(
+                        MediaRule.STATE_IN_MEDIA, true, ErrorMessage.ErrNotInMedia.getValue())
+                .addPredicate(
+                        forTracker(MediaEventTracker::isValidQoEInfo),
+                        true,
+                        ErrorMessage.ErrInvalidQoEInfo.getValue())
+                .addAction(forTracker(MediaEventTracker::cmdQoEUpdate));
 
         ruleEngine.addRule(qoeUpdate);
 
@@ -976,99 +1199,102 @@ class MediaEventTracker implements MediaEventTracking {
         MediaRule playheadUpdate =
                 new MediaRule(MediaRuleName.PlayheadUpdate.ordinal(), "API::updatePlayhead");
         playheadUpdate
-                .addPredicate(isInMedia, true, ErrorMessage.ErrNotInMedia.getValue())
-                .addAction(cmdPlayheadUpdate);
+                .addStatePredicate(
+                        MediaRule.STATE_IN_MEDIA, true, ErrorMessage.ErrNotInMedia.getValue())
+                .addAction(forTracker(MediaEventTracker::cmdPlayheadUpdate));
 
         ruleEngine.addRule(playheadUpdate);
 
         // MediaRule::stateStart
         MediaRule stateStart = new MediaRule(MediaRuleName.StateStart.ordinal(), "API::stateStart");
         stateStart
-                .addPredicate(isInMedia, true, ErrorMessage.ErrNotInMedia.getValue())
-                .addPredicate(isValidStateInfo, true, ErrorMessage.ErrInvalidStateInfo.getValue())
-                .addPredicate(isInTrackedState, false, ErrorMessage.ErrInTrackedState.getValue())
+                .addStatePredicate(
+                        MediaRule.STATE_IN_MEDIA, true, ErrorMessage.ErrNotInMedia.getValue())
+                .addPredicate(
+                        forTracker(MediaEventTracker::isValidStateInfo),
+                        true,
+                        ErrorMessage.ErrInvalidStateInfo.getValue())
                 .addPredicate(
-                        allowStateTrack, true, ErrorMessage.ErrTrackedStatesLimitReached.getValue())
-                .addAction(cmdStateStart);
+                        forTracker(MediaEventTracker::isInTrackedState),
+                        false,
+                        ErrorMessage.ErrInTrackedState.getValue())
+                .addPredicate(
+                        forTracker(MediaEventTracker::allowStateTrack),
+                        true,
+                        ErrorMessage.ErrTrackedStatesLimitReached.getValue())
+                .addAction(forTracker(MediaEventTracker::cmdStateStart));
 
         ruleEngine.addRule(stateStart);
 
         // MediaRule::stateEnd
         MediaRule stateEnd = new MediaRule(MediaRuleName.StateEnd.ordinal(), "API::stateEnd");
-        stateEnd.addPredicate(isInMedia, true, ErrorMessage.ErrNotInMedia.getValue())
-                .addPredicate(isValidStateInfo, true, ErrorMessage.ErrInvalidStateInfo.getValue())
-                .addPredicate(isInTrackedState, true, ErrorMessage.ErrNotInTrackedState.getValue())
-                .addAction(cmdStateEnd);
+        stateEnd.addStatePredicate(
+                        MediaRule.STATE_IN_MEDIA, true, ErrorMessage.ErrNotInMedia.getValue())
+                .addPredicate(
+                        forTracker(MediaEventTracker::isValidStateInfo),
+                        true,
+                        ErrorMessage.ErrInvalidStateInfo.getValue())
+                .addPredicate(
+                        forTracker(MediaEventTracker::isInTrackedState),
+                        true,
+                        ErrorMessage.ErrNotInTrackedState.getValue())
+                .addAction(forTracker(MediaEventTracker::cmdStateEnd));
 
         ruleEngine.addRule(stateEnd);
-    }
-
-    Map<String, String> cleanMetadata(final Map<String, String> metadata) {
-        Map<String, String> cleanedMetadata = new HashMap<>();
-
-        if (metadata.isEmpty()) {
-            return cleanedMetadata;
-        }
-
-        for (Map.Entry<String, String> entry : metadata.entrySet()) {
-            String key = entry.getKey();
-            String value = entry.getValue();
-
-            if (value == null || key == null) {
-                // drop the metadata with null values
-                Log.debug(
-                        MediaInternalConstants.LOG_TAG,
-                        SOURCE_TAG,
-                        "cleanMetadata - Dropping metadata entry key:%s, since the key/value is"
-                                + " null.");
-                continue;
-            }
 
-            Pattern metadataPattern = Pattern.compile("^[a-zA-Z0-9_.]+$");
-            Matcher metadataMatcher = metadataPattern.matcher(key);
+        return ruleEngine;
+    }
 
-            if (!metadataMatcher.find()) {
-                Log.debug(
-                        MediaInternalConstants.LOG_TAG,
-                        SOURCE_TAG,
-                        "cleanMetadata - Dropping metadata entry key:%s value:%s. Key should"
-                                + " contain only alphabets, digits, '_' and '.'.",
-                        key,
-                        value);
-            } else {
+    /** A rule predicate or action run for the tracker the rule is processed for. */
+    interface TrackerRuleCallback {
+        boolean call(MediaEventTracker tracker, MediaRule rule, MediaRuleContext context);
+    }
 
-                cleanedMetadata.put(key, value);
-            }
-        }
+    private static IMediaRuleCallback forTracker(final TrackerRuleCallback callback) {
+        return (rule, context) -> callback.call(context.getTracker(), rule, context);
+    }
 
-        return cleanedMetadata;
+    Map<String, String> cleanMetadata(final Map<String, String> metadata) {
+        return metadataSanitizer.sanitize(metadata);
     }
 
-    boolean prerollDeferRule(final int rule, final Map<String, Object> context) {
+    boolean prerollDeferRule(final int rule, final MediaRuleContext context) {
         if (inPrerollInterval && mediaContext != null) {
             long prerollWaitTime = mediaContext.getMediaInfo().getPrerollWaitTime();
 
             // We are going to queue the events and stop further downstream
             // processing for prerollWaitTime ms.
-            prerollRulesQueue.add(new PrerollQueuedRule(rule, context));
+            prerollBuffer.add(rule, context);
 
             long refTS = getRefTS(context);
 
             if (((refTS - prerollRefTS) >= prerollWaitTime)
                     || (rule == MediaRuleName.AdBreakStart.ordinal())
                     || (rule == MediaRuleName.MediaComplete.ordinal())
-                    || (rule == MediaRuleName.MediaSkip.ordinal())) {
+                    || (rule == MediaRuleName.MediaSkip.ordinal())
+                    || prerollBuffer.isFull()) {
+
+                if (prerollBuffer.isFull()) {
+                    Log.debug(
+                            MediaInternalConstants.LOG_TAG,
+                            SOURCE_TAG,
+                            "prerollDeferRule - Preroll buffer is full, ending the preroll"
+                                    + " interval early.");
+                }
 
                 // If prerollWaitTime has elapsed or we get any of these rules
                 // We start processing all the queued rules.
-                List<PrerollQueuedRule> reorderedRules = reorderPrerollRules(prerollRulesQueue);
+                prerollBuffer.reorder();
 
-                for (PrerollQueuedRule prerollQueuedRule : reorderedRules) {
+                List<PrerollQueuedRule> queuedRules = prerollBuffer.getRules();
+
+                for (int i = 0, size = queuedRules.size(); i < size; i++) {
+                    PrerollQueuedRule prerollQueuedRule = queuedRules.get(i);
                     processRule(
                             prerollQueuedRule.getRuleName(), prerollQueuedRule.getRuleContext());
                 }
 
-                prerollRulesQueue.clear();
+                prerollBuffer.clear();
                 inPrerollInterval = false;
             }
 
@@ -1078,35 +1304,6 @@ class MediaEventTracker implements MediaEventTracking {
         return false;
     }
 
-    List<PrerollQueuedRule> reorderPrerollRules(final List<PrerollQueuedRule> rules) {
-        List<PrerollQueuedRule> reorderedRules = new ArrayList<>();
-        int adBreakStartPosition = -1;
-
-        for (int i = 0; i < rules.size(); i++) {
-            if (rules.get(i).getRuleName() == MediaRuleName.AdBreakStart.ordinal()) {
-                adBreakStartPosition = i;
-                break;
-            }
-        }
-
-        // We drop any play rule before adBreak start.
-        boolean dropPlay = adBreakStartPosition > -1;
-
-        for (PrerollQueuedRule eventRule : rules) {
-            if (eventRule.getRuleName() == MediaRuleName.Play.ordinal() && dropPlay) {
-                continue;
-            }
-
-            if (eventRule.getRuleName() == MediaRuleName.AdBreakStart.ordinal()) {
-                dropPlay = false;
-            }
-
-            reorderedRules.add(eventRule);
-        }
-
-        return reorderedRules;
-    }
-
     @VisibleForTesting
     MediaEventProcessor getEventProcessor() {
         return eventProcessor;
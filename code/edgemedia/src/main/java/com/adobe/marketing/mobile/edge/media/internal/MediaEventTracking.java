@@ -12,7 +12,10 @@
 package com.adobe.marketing.mobile.edge.media.internal;
 
 import com.adobe.marketing.mobile.Event;
+import java.util.Map;
 
 interface MediaEventTracking {
     boolean track(Event event);
+
+    boolean trackEventData(Map<String, Object> eventData);
 }
@@ -23,6 +23,7 @@ import com.adobe.marketing.mobile.SharedStateResolution;
 import com.adobe.marketing.mobile.SharedStateResult;
 import com.adobe.marketing.mobile.edge.media.Media;
 import com.adobe.marketing.mobile.services.Log;
+import com.adobe.marketing.mobile.services.ServiceProvider;
 import com.adobe.marketing.mobile.util.DataReader;
 import com.adobe.marketing.mobile.util.MapUtils;
 import com.adobe.marketing.mobile.util.StringUtils;
@@ -34,6 +35,7 @@ import java.util.Map;
 public class MediaExtension extends Extension {
 
     private static final String SOURCE_TAG = "MediaExtension";
+    private static final String SWEEP_THREAD_NAME = "EdgeMediaOrphanedSessionSweep";
 
     @VisibleForTesting protected final Map<String, MediaEventTracking> trackers;
 
@@ -48,7 +50,22 @@ public class MediaExtension extends Extension {
                         event -> {
                             getApi().dispatch(event);
                             return null;
-                        });
+                        },
+                        createJournal(MediaEventJournal.DATA_QUEUE_NAME),
+                        new MediaLiveSessionStore(
+                                () ->
+                                        ServiceProvider.getInstance()
+                                                .getDataStoreService()
+                                                .getNamedCollection(
+                                                        MediaLiveSessionStore.DATA_STORE_NAME)));
+    }
+
+    private static MediaEventJournal createJournal(@NonNull final String dataQueueName) {
+        return new MediaEventJournal(
+                () ->
+                        ServiceProvider.getInstance()
+                                .getDataQueueService()
+                                .getDataQueue(dataQueueName));
     }
 
     @NonNull @Override
@@ -91,6 +108,33 @@ public class MediaExtension extends Extension {
                         EventType.CONFIGURATION,
                         EventSource.RESPONSE_CONTENT,
                         this::handleConfigurationResponseEvent);
+
+        startOrphanedSessionSweep();
+    }
+
+    /**
+     * Ends the sessions left open by the previous launch from a background thread, so reading the
+     * local storage does not delay the registration or the creation of trackers.
+     */
+    private void startOrphanedSessionSweep() {
+        final MediaEventProcessor processor = mediaEventProcessor;
+        Thread thread =
+                new Thread(
+                        () -> {
+                            try {
+                                processor.closeOrphanedSessions();
+                            } catch (Exception e) {
+                                Log.warning(
+                                        MediaInternalConstants.LOG_TAG,
+                                        SOURCE_TAG,
+                                        "startOrphanedSessionSweep - Exception while ending"
+                                                + " orphaned sessions: %s",
+                                        e.getLocalizedMessage());
+                            }
+                        },
+                        SWEEP_THREAD_NAME);
+        thread.setDaemon(true);
+        thread.start();
     }
 
     /**
@@ -155,6 +199,8 @@ public class MediaExtension extends Extension {
                                 SharedStateResolution.ANY);
         if (configStateResult != null && !MapUtils.isNullOrEmpty(configStateResult.getValue())) {
             mediaEventProcessor.updateMediaState(configStateResult.getValue());
+            // Sent once the configuration is known, recovered ad events need the player name
+            mediaEventProcessor.recoverPersistedSessions();
         }
     }
 
@@ -192,7 +238,18 @@ public class MediaExtension extends Extension {
                         + " %s.",
                 trackerId);
 
-        trackers.put(trackerId, new MediaEventTracker(mediaEventProcessor, trackerConfig));
+        trackers.put(
+                trackerId,
+                new MediaEventTracker(
+                        mediaEventProcessor,
+                        trackerConfig,
+                        deadlineTS ->
+                                MediaTrackerRegistry.notifyNextDeadline(trackerId, deadlineTS),
+                        new MediaSessionCheckpoint(
+                                ServiceProvider.getInstance()
+                                        .getDataStoreService()
+                                        .getNamedCollection(
+                                                MediaSessionCheckpoint.DATA_STORE_NAME))));
     }
 
     /**
@@ -224,12 +281,44 @@ public class MediaExtension extends Extension {
                     "handleMediaTrackEvent - Unable to find internal tracker for the given tracker"
                             + " ID: %s",
                     trackerId);
+            clearTrackChannel(event, trackerId);
+            return;
+        }
+
+        if (DataReader.optBoolean(
+                event.getEventData(),
+                MediaInternalConstants.EventDataKeys.Tracker.DIRECT_DISPATCH,
+                false)) {
+            MediaTrackChannel channel = MediaTrackerRegistry.getTrackChannel(trackerId);
+            if (channel != null) {
+                channel.drain(
+                        DataReader.optLong(
+                                event.getEventData(),
+                                MediaInternalConstants.EventDataKeys.Tracker.SIGNAL_SEQUENCE,
+                                0L),
+                        tracker::trackEventData);
+            }
             return;
         }
 
         tracker.track(event);
     }
 
+    // Tracking calls queued for a tracker which does not exist are discarded.
+    private void clearTrackChannel(@NonNull final Event event, @NonNull final String trackerId) {
+        if (!DataReader.optBoolean(
+                event.getEventData(),
+                MediaInternalConstants.EventDataKeys.Tracker.DIRECT_DISPATCH,
+                false)) {
+            return;
+        }
+
+        MediaTrackChannel channel = MediaTrackerRegistry.getTrackChannel(trackerId);
+        if (channel != null) {
+            channel.clear();
+        }
+    }
+
     /**
      * Handler for reset identities requests. Clears all media trackers and sessions.
      *
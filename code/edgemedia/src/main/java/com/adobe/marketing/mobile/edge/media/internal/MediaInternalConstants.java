@@ -126,7 +126,12 @@ final class MediaInternalConstants {
             static final String EVENT_METADATA = "event.metadata";
             static final String EVENT_TIMESTAMP = "event.timestamp";
             static final String EVENT_INTERNAL = "event.internal";
+            static final String EVENT_BATCH = "event.batch";
+            static final String DIRECT_DISPATCH = "event.directdispatch";
+            static final String SIGNAL_SEQUENCE = "event.signalsequence";
             static final String PLAYHEAD = "time.playhead";
+            static final String PENDING_PLAYHEAD = "event.pendingplayhead";
+            static final String PENDING_PLAYHEAD_TIMESTAMP = "event.pendingplayheadtimestamp";
             static final String BACKEND_SESSION_ID = "mediaservice.sessionid";
 
             private Tracker() {}
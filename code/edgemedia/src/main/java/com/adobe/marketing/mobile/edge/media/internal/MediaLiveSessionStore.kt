@@ -0,0 +1,171 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.media.internal
+
+import com.adobe.marketing.mobile.edge.media.internal.MediaInternalConstants.LOG_TAG
+import com.adobe.marketing.mobile.services.Log
+import com.adobe.marketing.mobile.services.NamedCollection
+import org.json.JSONException
+import org.json.JSONObject
+
+/**
+ * Record of the backend sessions started and not yet closed, kept in local storage so the sessions
+ * left open when the process died can be closed on next launch.
+ *
+ * All records are stored as a single JSON string keyed by backend session ID, holding the timestamp
+ * and playhead of the last event sent for the session. The store is written when a session is added
+ * or removed, the last sent event of a session is written at most once per ping interval. The
+ * records found in storage when first accessed are the orphaned sessions of the previous launch.
+ *
+ * Thread safe, shared by all the sessions of a [MediaEventProcessor].
+ *
+ * @param storeProvider provides the [NamedCollection], called once on first use
+ */
+internal class MediaLiveSessionStore(storeProvider: () -> NamedCollection?) {
+
+    companion object {
+        const val DATA_STORE_NAME = "com.adobe.edge.media.livesessions"
+
+        private const val SOURCE_TAG = "MediaLiveSessionStore"
+        private const val KEY_SESSIONS = "sessions"
+        private const val KEY_TIMESTAMP = "timestamp"
+        private const val KEY_PLAYHEAD = "playhead"
+        private const val KEY_JOURNALED = "journaled"
+    }
+
+    /**
+     * A backend session left open by the previous launch.
+     * @property backendSessionId the backend session ID
+     * @property timestamp the timestamp of the last event sent for the session
+     * @property playhead the playhead of the last event sent for the session
+     * @property isJournaled true if the queued events of the session are in a [MediaEventJournal]
+     */
+    data class OrphanedSession(
+        val backendSessionId: String,
+        val timestamp: Long,
+        val playhead: Int,
+        val isJournaled: Boolean
+    )
+
+    private val store: NamedCollection? by lazy { storeProvider() }
+
+    private var records: JSONObject? = null
+
+    // Backend session IDs recorded by the previous launch and not closed yet
+    private val orphanedSessionIds = LinkedHashSet<String>()
+
+    // Timestamp of the last event of each session as written to storage
+    private val writtenTimestamps = HashMap<String, Long>()
+
+    /**
+     * Records the backend session, started by a session of this launch.
+     * @param backendSessionId the backend session ID
+     * @param timestamp the timestamp of the last event sent for the session
+     * @param playhead the playhead of the last event sent for the session
+     * @param isJournaled true if the queued events of the session are in a [MediaEventJournal]
+     */
+    @Synchronized
+    fun add(backendSessionId: String, timestamp: Long, playhead: Int, isJournaled: Boolean) {
+        val records = load() ?: return
+        val record = JSONObject()
+            .put(KEY_TIMESTAMP, timestamp)
+            .put(KEY_PLAYHEAD, playhead)
+        if (isJournaled) {
+            record.put(KEY_JOURNALED, true)
+        }
+
+        records.put(backendSessionId, record)
+        write(records)
+    }
+
+    /**
+     * Updates the last event sent for the recorded backend session. The update is written to
+     * storage once a ping interval elapsed since the last write of the session, or with the next
+     * write of the store.
+     */
+    @Synchronized
+    fun update(backendSessionId: String, timestamp: Long, playhead: Int) {
+        val records = load() ?: return
+        val record = records.optJSONObject(backendSessionId) ?: return
+        record.put(KEY_TIMESTAMP, timestamp).put(KEY_PLAYHEAD, playhead)
+
+        val writtenTimestamp = writtenTimestamps[backendSessionId]
+        if (writtenTimestamp == null || timestamp - writtenTimestamp >= MediaInternalConstants.PingInterval.REALTIME_TRACKING_MS) {
+            write(records)
+        }
+    }
+
+    /**
+     * Removes the records of the given backend sessions, once closed.
+     */
+    @Synchronized
+    fun remove(backendSessionIds: Collection<String>) {
+        val records = load() ?: return
+        var isChanged = false
+        for (backendSessionId in backendSessionIds) {
+            orphanedSessionIds.remove(backendSessionId)
+            isChanged = records.remove(backendSessionId) != null || isChanged
+        }
+
+        if (isChanged) {
+            write(records)
+        }
+    }
+
+    /**
+     * Returns the backend sessions left open by the previous launch and not removed yet.
+     */
+    @Synchronized
+    fun getOrphanedSessions(): List<OrphanedSession> {
+        val records = load() ?: return emptyList()
+        return orphanedSessionIds.mapNotNull { backendSessionId ->
+            records.optJSONObject(backendSessionId)?.let {
+                OrphanedSession(
+                    backendSessionId,
+                    it.optLong(KEY_TIMESTAMP),
+                    it.optInt(KEY_PLAYHEAD),
+                    it.optBoolean(KEY_JOURNALED)
+                )
+            }
+        }
+    }
+
+    private fun load(): JSONObject? {
+        records?.let { return it }
+        val store = store ?: return null
+
+        val loadedRecords = try {
+            store.getString(KEY_SESSIONS, null)?.let { JSONObject(it) } ?: JSONObject()
+        } catch (e: JSONException) {
+            Log.debug(LOG_TAG, SOURCE_TAG, "load - Discarding invalid live session records: ${e.message}")
+            JSONObject()
+        }
+
+        // Nothing was recorded by this launch yet, all loaded sessions are orphaned.
+        loadedRecords.keys().forEach { orphanedSessionIds.add(it) }
+        records = loadedRecords
+        return loadedRecords
+    }
+
+    private fun write(records: JSONObject) {
+        if (records.length() == 0) {
+            store?.remove(KEY_SESSIONS)
+        } else {
+            store?.setString(KEY_SESSIONS, records.toString())
+        }
+
+        writtenTimestamps.clear()
+        records.keys().forEach { key ->
+            records.optJSONObject(key)?.let { writtenTimestamps[key] = it.optLong(KEY_TIMESTAMP) }
+        }
+    }
+}
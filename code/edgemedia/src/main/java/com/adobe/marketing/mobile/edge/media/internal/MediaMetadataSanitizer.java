@@ -0,0 +1,141 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.media.internal;
+
+import androidx.annotation.NonNull;
+import com.adobe.marketing.mobile.services.Log;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Drops the metadata entries with a null key or value, or with a key containing characters other
+ * than alphabets, digits, '_' and '.'.
+ *
+ * <p>Players usually send the same metadata keys, and often the same metadata map, for every
+ * ad or chapter. The validity of recently seen keys is cached, and the result for the last
+ * metadata map is returned as is when the next map is equal to it. Not thread safe, each {@link
+ * MediaEventTracker} owns an instance.
+ */
+final class MediaMetadataSanitizer {
+    private static final String SOURCE_TAG = "MediaMetadataSanitizer";
+    static final int MAX_CACHED_KEYS = 256;
+
+    // Validity of recently seen keys, least recently used keys are evicted first.
+    private final Map<String, Boolean> keyCache =
+            new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, Boolean> eldest) {
+                    return size() > MAX_CACHED_KEYS;
+                }
+            };
+
+    // Last sanitized metadata and its result
+    private Map<String, String> lastMetadata;
+    private Map<String, String> lastSanitizedMetadata;
+
+    /**
+     * Returns the valid entries of the given metadata.
+     *
+     * @param metadata the metadata to be sanitized
+     * @return an unmodifiable map with the valid metadata entries
+     */
+    @NonNull Map<String, String> sanitize(@NonNull final Map<String, String> metadata) {
+        if (metadata.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        if (lastSanitizedMetadata != null && metadata.equals(lastMetadata)) {
+            return lastSanitizedMetadata;
+        }
+
+        Map<String, String> sanitizedMetadata = new HashMap<>(capacityFor(metadata.size()));
+
+        for (Map.Entry<String, String> entry : metadata.entrySet()) {
+            String key = entry.getKey();
+            String value = entry.getValue();
+
+            if (value == null || key == null) {
+                // drop the metadata with null values
+                Log.debug(
+                        MediaInternalConstants.LOG_TAG,
+                        SOURCE_TAG,
+                        "sanitize - Dropping metadata entry key:%s, since the key/value is null.",
+                        key);
+                continue;
+            }
+
+            if (!isValidKeyCached(key)) {
+                Log.debug(
+                        MediaInternalConstants.LOG_TAG,
+                        SOURCE_TAG,
+                        "sanitize - Dropping metadata entry key:%s value:%s. Key should contain"
+                                + " only alphabets, digits, '_' and '.'.",
+                        key,
+                        value);
+            } else {
+                sanitizedMetadata.put(key, value);
+            }
+        }
+
+        lastMetadata = new HashMap<>(metadata);
+        lastSanitizedMetadata = Collections.unmodifiableMap(sanitizedMetadata);
+        return lastSanitizedMetadata;
+    }
+
+    private boolean isValidKeyCached(final String key) {
+        Boolean isValid = keyCache.get(key);
+
+        if (isValid == null) {
+            isValid = isValidKey(key);
+            keyCache.put(key, isValid);
+        }
+
+        return isValid;
+    }
+
+    /**
+     * Checks that the key is not empty and only contains alphabets, digits, '_' and '.', same as
+     * the {@code ^[a-zA-Z0-9_.]+$} pattern.
+     *
+     * @param key the metadata key to be checked
+     * @return true if the key is valid
+     */
+    static boolean isValidKey(@NonNull final String key) {
+        int length = key.length();
+
+        if (length == 0) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            char c = key.charAt(i);
+            boolean isValidChar =
+                    (c >= 'a' && c <= 'z')
+                            || (c >= 'A' && c <= 'Z')
+                            || (c >= '0' && c <= '9')
+                            || c == '_'
+                            || c == '.';
+
+            if (!isValidChar) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static int capacityFor(final int size) {
+        return (int) (size / 0.75f) + 1;
+    }
+}
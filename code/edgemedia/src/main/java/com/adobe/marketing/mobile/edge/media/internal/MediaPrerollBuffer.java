@@ -0,0 +1,175 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.media.internal;
+
+import androidx.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Bounded buffer of the rules deferred during the preroll interval.
+ *
+ * <p>Entries superseded by a newer one are collapsed as they arrive:
+ *
+ * <ul>
+ *   <li>Within a run of playhead and QoE updates only the last playhead update and the last QoE
+ *       update are kept. The run ends at the next other rule, so every queued rule is still
+ *       processed with the playhead and QoE that were current when it was tracked.
+ *   <li>A Play or Pause which repeats the previous Play or Pause is dropped.
+ *   <li>A Pause following a Play replaces it, unless a buffer or seek was started. The Play ends
+ *       a buffer or seek, which the Pause predicates do not allow.
+ * </ul>
+ *
+ * <p>Once the buffer is full the preroll interval should end early.
+ */
+final class MediaPrerollBuffer {
+    static final int DEFAULT_CAPACITY = 64;
+
+    private final int capacity;
+    private final ArrayList<PrerollQueuedRule> rules;
+    private boolean hasBufferOrSeekStart;
+
+    MediaPrerollBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    MediaPrerollBuffer(final int capacity) {
+        this.capacity = capacity;
+        this.rules = new ArrayList<>(capacity);
+    }
+
+    /**
+     * Adds a copy of the given rule context to the buffer, collapsing the entries it supersedes.
+     *
+     * @param ruleName the name of the deferred rule
+     * @param context the {@link MediaRuleContext} of the deferred rule
+     */
+    void add(final int ruleName, @NonNull final MediaRuleContext context) {
+        if (isProgressUpdate(ruleName)) {
+            int index = findInTrailingProgressUpdates(ruleName);
+
+            if (index >= 0) {
+                rules.remove(index);
+            }
+        } else if (ruleName == MediaRuleName.Play.ordinal()
+                || ruleName == MediaRuleName.Pause.ordinal()) {
+            int index = findLastNonProgressUpdate();
+
+            if (index >= 0) {
+                int lastRuleName = rules.get(index).getRuleName();
+
+                if (lastRuleName == ruleName) {
+                    // Repeated Play or Pause, no state change.
+                    return;
+                }
+
+                if (lastRuleName == MediaRuleName.Play.ordinal() && !hasBufferOrSeekStart) {
+                    // Pause following a Play.
+                    rules.remove(index);
+                    index = findLastNonProgressUpdate();
+
+                    if (index >= 0 && rules.get(index).getRuleName() == ruleName) {
+                        return;
+                    }
+                }
+            }
+        } else if (ruleName == MediaRuleName.BufferStart.ordinal()
+                || ruleName == MediaRuleName.SeekStart.ordinal()) {
+            hasBufferOrSeekStart = true;
+        }
+
+        // The context is pooled, the queued rule keeps its own copy.
+        rules.add(new PrerollQueuedRule(ruleName, new MediaRuleContext(context)));
+    }
+
+    /** Drops the Play rules queued before the first AdBreakStart, in place. */
+    void reorder() {
+        int adBreakStartPosition = -1;
+
+        for (int i = 0, size = rules.size(); i < size; i++) {
+            if (rules.get(i).getRuleName() == MediaRuleName.AdBreakStart.ordinal()) {
+                adBreakStartPosition = i;
+                break;
+            }
+        }
+
+        if (adBreakStartPosition < 0) {
+            return;
+        }
+
+        int writeIndex = 0;
+
+        for (int readIndex = 0, size = rules.size(); readIndex < size; readIndex++) {
+            PrerollQueuedRule rule = rules.get(readIndex);
+
+            if (readIndex < adBreakStartPosition
+                    && rule.getRuleName() == MediaRuleName.Play.ordinal()) {
+                continue;
+            }
+
+            rules.set(writeIndex++, rule);
+        }
+
+        rules.subList(writeIndex, rules.size()).clear();
+    }
+
+    /** Returns true once the buffer holds as many rules as its capacity. */
+    boolean isFull() {
+        return rules.size() >= capacity;
+    }
+
+    int size() {
+        return rules.size();
+    }
+
+    /** Returns a read-only view of the queued rules, in the order they are to be processed. */
+    @NonNull List<PrerollQueuedRule> getRules() {
+        return Collections.unmodifiableList(rules);
+    }
+
+    void clear() {
+        rules.clear();
+        hasBufferOrSeekStart = false;
+    }
+
+    private int findInTrailingProgressUpdates(final int ruleName) {
+        for (int i = rules.size() - 1; i >= 0; i--) {
+            int queuedRuleName = rules.get(i).getRuleName();
+
+            if (!isProgressUpdate(queuedRuleName)) {
+                break;
+            }
+
+            if (queuedRuleName == ruleName) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private int findLastNonProgressUpdate() {
+        for (int i = rules.size() - 1; i >= 0; i--) {
+            if (!isProgressUpdate(rules.get(i).getRuleName())) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static boolean isProgressUpdate(final int ruleName) {
+        return ruleName == MediaRuleName.PlayheadUpdate.ordinal()
+                || ruleName == MediaRuleName.QoEUpdate.ordinal();
+    }
+}
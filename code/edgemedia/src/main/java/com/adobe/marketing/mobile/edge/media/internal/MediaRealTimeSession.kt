@@ -25,7 +25,9 @@ import com.adobe.marketing.mobile.util.StringUtils
 internal class MediaRealTimeSession(
     id: String,
     state: MediaState,
-    dispatchHandler: (Event) -> Unit
+    dispatchHandler: (Event) -> Unit,
+    private val journal: MediaEventJournal? = null,
+    private val liveSessionStore: MediaLiveSessionStore? = null
 ) : MediaSession(id, state, dispatchHandler) {
 
     private val sourceTag = "MediaRealTimeSession" // Log source tag
@@ -41,6 +43,28 @@ internal class MediaRealTimeSession(
     @VisibleForTesting
     internal var sessionStartEdgeRequestId: String? = null
 
+    // Last event sent to the backend, its timestamp and playhead are recorded in the live session store
+    private var lastSentEvent: XDMMediaEvent? = null
+
+    init {
+        // Persistent sessions mirror the events waiting in their queue in the journal, for recovery
+        // on next launch
+        journal?.let {
+            eventQueue.listener = object : MediaEventQueue.Listener {
+                // Appended once they wait, see journalWaitingEvents
+                override fun onEventQueued(event: XDMMediaEvent) {}
+
+                override fun onEventRemoved(event: XDMMediaEvent) {
+                    it.remove(id, event)
+                }
+
+                override fun onQueueCleared() {
+                    it.removeSession(id)
+                }
+            }
+        }
+    }
+
     /**
      * Handles media state update notifications by triggering the event processing loop.
      */
@@ -60,6 +84,10 @@ internal class MediaRealTimeSession(
         } else {
             Log.trace(LOG_TAG, sourceTag, "Media session ($id) with id $mediaBackendSessionId was ended but not all queued events could be processed.")
         }
+
+        if (eventQueue.droppedCount > 0 || eventQueue.mergedCount > 0) {
+            Log.debug(LOG_TAG, sourceTag, "Media session ($id) dropped ${eventQueue.droppedCount} and merged ${eventQueue.mergedCount} events as its event queue was full.")
+        }
     }
 
     /**
@@ -68,6 +96,7 @@ internal class MediaRealTimeSession(
      */
     override fun handleSessionAbort() {
         eventQueue.clear()
+        mediaBackendSessionId?.let { liveSessionStore?.remove(listOf(it)) }
         Log.trace(LOG_TAG, sourceTag, "Successfully aborted media session ($id) with id $mediaBackendSessionId")
     }
 
@@ -76,7 +105,13 @@ internal class MediaRealTimeSession(
      * @see [MediaSession.queue]
      */
     override fun handleQueueEvent(event: XDMMediaEvent) {
-        eventQueue.add(event)
+        // While the backend session ID is pending, consecutive pings are collapsed into the latest
+        // one. No other event is tracked between them, so the backend accounts the same playback time.
+        if (mediaBackendSessionId == null && eventQueue.mergeIntoLastPing(event)) {
+            Log.trace(LOG_TAG, sourceTag, "handleQueueEvent - Session ($id): Merged ping into the previous queued ping while waiting for the media session id.")
+        } else if (!eventQueue.add(event)) {
+            Log.debug(LOG_TAG, sourceTag, "handleQueueEvent - Session ($id): Event queue is full, dropped or merged event (${event.xdmData.eventType.value}). Dropped ${eventQueue.droppedCount} and merged ${eventQueue.mergedCount} events so far.")
+        }
         processMediaEvents()
     }
 
@@ -97,6 +132,14 @@ internal class MediaRealTimeSession(
 
         mediaBackendSessionId = backendSessionId
         Log.trace(LOG_TAG, sourceTag, "Session ($id) updated with Edge Network session ID ($mediaBackendSessionId).")
+        mediaBackendSessionId?.let {
+            journal?.setBackendSessionId(id, it)
+            // Recorded until closed, so the session is closed on next launch if the process dies
+            lastSentEvent?.let { event ->
+                liveSessionStore?.add(it, event.xdmData.timestamp, event.xdmData.mediaCollection.playhead ?: 0, journal != null)
+            }
+        }
+
         if (mediaBackendSessionId != null) {
             processMediaEvents()
         } else {
@@ -129,14 +172,22 @@ internal class MediaRealTimeSession(
     }
 
     /**
-     * Processes queued [XDMMediaEvent]s.
+     * Processes queued [XDMMediaEvent]s, then journals the events which still wait in the queue.
+     */
+    private fun processMediaEvents() {
+        dispatchMediaEvents()
+        journalWaitingEvents()
+    }
+
+    /**
+     * Dispatches queued [XDMMediaEvent]s.
      * If no backend session id is set and the event type is not `sessionStart`, then processing
      * is stopped until a valid backend session id is received.
      * Dispatches an experience event to the Edge extension for each successfully processed event.
      */
-    private fun processMediaEvents() {
+    private fun dispatchMediaEvents() {
         if (!state.isValid) {
-            Log.trace(LOG_TAG, sourceTag, "processMediaEvents - Session ($id): Exiting as the required configuration is missing. Verify 'edgemedia.channel' and 'edgemedia.playerName' are configured.")
+            Log.trace(LOG_TAG, sourceTag, "dispatchMediaEvents - Session ($id): Exiting as the required configuration is missing. Verify 'edgemedia.channel' and 'edgemedia.playerName' are configured.")
             return
         }
 
@@ -144,18 +195,52 @@ internal class MediaRealTimeSession(
             val event = eventQueue.first()
 
             if (event.xdmData.eventType != XDMMediaEventType.SESSION_START && mediaBackendSessionId == null) {
-                Log.trace(LOG_TAG, sourceTag, "processMediaEvents - Session ($id): Exiting as the media session id is unavailable, will retry later.")
+                Log.trace(LOG_TAG, sourceTag, "dispatchMediaEvents - Session ($id): Exiting as the media session id is unavailable, will retry later.")
                 return
             }
 
             attachMediaStateInfo(event)
 
             dispatchExperienceEvent(event, dispatchHandler)
+            recordSentEvent(event)
 
             eventQueue.removeFirst()
         }
     }
 
+    /**
+     * Records the sent [XDMMediaEvent] in the live session store, removing the session record once
+     * the session is closed on the backend.
+     */
+    private fun recordSentEvent(event: XDMMediaEvent) {
+        lastSentEvent = event
+        val backendSessionId = mediaBackendSessionId ?: return
+        val store = liveSessionStore ?: return
+
+        when (event.xdmData.eventType) {
+            XDMMediaEventType.SESSION_END,
+            XDMMediaEventType.SESSION_COMPLETE -> store.remove(listOf(backendSessionId))
+            else -> store.update(backendSessionId, event.xdmData.timestamp, event.xdmData.mediaCollection.playhead ?: 0)
+        }
+    }
+
+    /**
+     * Appends the queued events not journaled yet, so events sent right away are never written.
+     * Journaled events are the oldest queued events, only the newest ones need to be appended.
+     */
+    private fun journalWaitingEvents() {
+        val journal = journal ?: return
+
+        var index = eventQueue.size
+        while (index > 0 && !journal.contains(eventQueue[index - 1])) {
+            index--
+        }
+
+        for (i in index until eventQueue.size) {
+            journal.append(id, mediaBackendSessionId, eventQueue[i])
+        }
+    }
+
     /**
      * Attaches the required [MediaState] information to the given [XDMMediaEvent].
      */
@@ -179,7 +264,7 @@ internal class MediaRealTimeSession(
      */
     private fun dispatchExperienceEvent(mediaEvent: XDMMediaEvent, dispatcher: (event: Event) -> Unit) {
         val edgeEvent = Event.Builder(
-            "Edge Media - ${XDMMediaEventType.getTypeString(mediaEvent.xdmData.eventType)}",
+            mediaEvent.xdmData.eventType.edgeEventName,
             EventType.EDGE,
             EventSource.REQUEST_CONTENT
         )
@@ -188,6 +273,7 @@ internal class MediaRealTimeSession(
 
         if (XDMMediaEventType.SESSION_START == mediaEvent.xdmData.eventType) {
             sessionStartEdgeRequestId = edgeEvent.uniqueIdentifier
+            notifySessionStartDispatched(edgeEvent.uniqueIdentifier)
         }
 
         // Dispatch the media event to the eventhub to be sent to the backend service by the edge extension
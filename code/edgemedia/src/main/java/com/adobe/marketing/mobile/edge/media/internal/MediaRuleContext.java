@@ -0,0 +1,187 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.media.internal;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.adobe.marketing.mobile.util.DataReader;
+import java.util.Map;
+
+/**
+ * Context of a tracking call passed to the {@link MediaRule} predicates and actions.
+ *
+ * <p>Values derived from the info map are parsed on first use and cached for the remaining
+ * predicates and actions. Instances are reused by {@link MediaEventTracker} between tracking
+ * calls, so a context which needs to outlive the current call must be copied.
+ *
+ * <p>The media rules are shared by all trackers, the context carries the {@link
+ * MediaEventTracker} the rules are processed for.
+ */
+final class MediaRuleContext {
+    static final long INVALID_TIMESTAMP = -1;
+    static final int INVALID_PLAYHEAD = -1;
+
+    interface InfoParser<T> {
+        T parse(Map<String, Object> info);
+    }
+
+    private final MediaEventTracker tracker;
+    private Map<String, Object> info;
+    private Map<String, String> metadata;
+    private long eventTS;
+    private String sessionId;
+
+    // Cached values parsed from the info map
+    private Class<?> parsedInfoClass;
+    private Object parsedInfo;
+    private boolean isPlayheadParsed;
+    private int playhead;
+    private boolean isErrorIdParsed;
+    private String errorId;
+
+    MediaRuleContext() {
+        this(null);
+    }
+
+    MediaRuleContext(@Nullable final MediaEventTracker tracker) {
+        this.tracker = tracker;
+        reset();
+    }
+
+    /**
+     * Creates a copy of the given context, including its cached values.
+     *
+     * @param other the {@link MediaRuleContext} to be copied
+     */
+    MediaRuleContext(@NonNull final MediaRuleContext other) {
+        tracker = other.tracker;
+        info = other.info;
+        metadata = other.metadata;
+        eventTS = other.eventTS;
+        sessionId = other.sessionId;
+        parsedInfoClass = other.parsedInfoClass;
+        parsedInfo = other.parsedInfo;
+        isPlayheadParsed = other.isPlayheadParsed;
+        playhead = other.playhead;
+        isErrorIdParsed = other.isErrorIdParsed;
+        errorId = other.errorId;
+    }
+
+    /**
+     * Clears all the values so the instance can be reused for another tracking call. The tracker
+     * is kept.
+     */
+    void reset() {
+        info = null;
+        metadata = null;
+        eventTS = INVALID_TIMESTAMP;
+        sessionId = null;
+        parsedInfoClass = null;
+        parsedInfo = null;
+        isPlayheadParsed = false;
+        playhead = INVALID_PLAYHEAD;
+        isErrorIdParsed = false;
+        errorId = null;
+    }
+
+    @Nullable MediaEventTracker getTracker() {
+        return tracker;
+    }
+
+    @Nullable Map<String, Object> getInfo() {
+        return info;
+    }
+
+    void setInfo(@Nullable final Map<String, Object> info) {
+        this.info = info;
+        parsedInfoClass = null;
+        parsedInfo = null;
+        isPlayheadParsed = false;
+        isErrorIdParsed = false;
+    }
+
+    @Nullable Map<String, String> getMetadata() {
+        return metadata;
+    }
+
+    void setMetadata(@Nullable final Map<String, String> metadata) {
+        this.metadata = metadata;
+    }
+
+    long getEventTS() {
+        return eventTS;
+    }
+
+    void setEventTS(final long eventTS) {
+        this.eventTS = eventTS;
+    }
+
+    @Nullable String getSessionId() {
+        return sessionId;
+    }
+
+    void setSessionId(@Nullable final String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    /**
+     * Gets the info map parsed as {@code infoClass}, parsing it only on the first call.
+     *
+     * @param infoClass the class of the parsed info
+     * @param parser the parser used to create {@code infoClass} from the info map
+     * @return the parsed info, or null if the info is missing or invalid
+     */
+    @Nullable <T> T getTypedInfo(
+            @NonNull final Class<T> infoClass, @NonNull final InfoParser<T> parser) {
+        if (parsedInfoClass != infoClass) {
+            parsedInfo = info != null ? parser.parse(info) : null;
+            parsedInfoClass = infoClass;
+        }
+
+        return infoClass.cast(parsedInfo);
+    }
+
+    int getPlayhead() {
+        if (!isPlayheadParsed) {
+            playhead =
+                    DataReader.optInt(
+                            info,
+                            MediaInternalConstants.EventDataKeys.Tracker.PLAYHEAD,
+                            INVALID_PLAYHEAD);
+            isPlayheadParsed = true;
+        }
+
+        return playhead;
+    }
+
+    /**
+     * Sets the playhead directly, without an info map.
+     *
+     * @param playhead the playhead value
+     */
+    void setPlayhead(final int playhead) {
+        setInfo(null);
+        this.playhead = playhead;
+        isPlayheadParsed = true;
+    }
+
+    @Nullable String getErrorId() {
+        if (!isErrorIdParsed) {
+            errorId =
+                    DataReader.optString(
+                            info, MediaInternalConstants.EventDataKeys.ErrorInfo.ID, null);
+            isErrorIdParsed = true;
+        }
+
+        return errorId;
+    }
+}
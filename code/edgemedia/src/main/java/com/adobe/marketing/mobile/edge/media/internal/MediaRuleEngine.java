@@ -12,28 +12,42 @@
 package com.adobe.marketing.mobile.edge.media.internal;
 
 import com.adobe.marketing.mobile.services.Log;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 // MediaRuleEngine
 class MediaRuleEngine {
     private static final String LOG_TAG = "MediaRuleEngine";
     private static final String RULE_NOT_FOUND = "Matching rule not found";
-    private final Map<Integer, MediaRule> rulesMap;
+    private static final MediaRuleResponse RULE_NOT_FOUND_RESPONSE =
+            new MediaRuleResponse(false, RULE_NOT_FOUND);
+
+    // Rules indexed by name, which is the MediaRuleName ordinal for the tracker rules.
+    private MediaRule[] rules;
     private IMediaRuleCallback enterFunction, exitFunction;
+    private IMediaRuleStateProvider stateProvider;
 
     public MediaRuleEngine() {
-        rulesMap = new HashMap<>();
+        rules = new MediaRule[MediaRuleName.values().length];
     }
 
     public boolean addRule(final MediaRule rule) {
-        if (rulesMap.containsKey(rule.getName())) {
+        int name = rule.getName();
+
+        if (name < 0) {
+            return false;
+        }
+
+        if (name >= rules.length) {
+            rules = Arrays.copyOf(rules, name + 1);
+        }
+
+        if (rules[name] != null) {
             return false;
         }
 
-        rulesMap.put(rule.getName(), rule);
+        rules[name] = rule;
         return true;
     }
 
@@ -45,19 +59,31 @@ class MediaRuleEngine {
         this.exitFunction = exitFunction;
     }
 
+    /**
+     * Sets the provider of the current {@link MediaRule} state flags used to evaluate the state
+     * predicates added with {@link MediaRule#addStatePredicate(int, boolean, String)}.
+     */
+    public void setStateProvider(final IMediaRuleStateProvider stateProvider) {
+        this.stateProvider = stateProvider;
+    }
+
     public MediaRuleResponse processRule(final int ruleName) {
-        Map<String, Object> context = new HashMap<>();
+        MediaRuleContext context = new MediaRuleContext();
         return processRule(ruleName, context);
     }
 
-    public MediaRuleResponse processRule(final int ruleName, final Map<String, Object> context) {
+    public MediaRuleResponse processRule(final int ruleName, final MediaRuleContext context) {
 
-        if (!rulesMap.containsKey(ruleName)) {
-            return new MediaRuleResponse(false, RULE_NOT_FOUND);
+        if (ruleName < 0 || ruleName >= rules.length || rules[ruleName] == null) {
+            return RULE_NOT_FOUND_RESPONSE;
         }
 
-        MediaRule rule = rulesMap.get(ruleName);
-        MediaRuleResponse response = rule.runPredicates(context);
+        MediaRule rule = rules[ruleName];
+        int state =
+                (stateProvider != null && rule.hasStatePredicates())
+                        ? stateProvider.getState(context)
+                        : 0;
+        MediaRuleResponse response = rule.runPredicates(context, state);
 
         do {
             if (!response.isValid) {
@@ -98,18 +124,33 @@ class MediaRuleEngine {
 
 // MediaRule
 class MediaRule {
+    // State flags checked by state predicates, see IMediaRuleStateProvider.
+    static final int STATE_IN_MEDIA = 1;
+    static final int STATE_IN_AD_BREAK = 1 << 1;
+    static final int STATE_IN_AD = 1 << 2;
+    static final int STATE_IN_CHAPTER = 1 << 3;
+    static final int STATE_IN_BUFFERING = 1 << 4;
+    static final int STATE_IN_SEEKING = 1 << 5;
+
+    static final MediaRuleResponse SUCCESS_RESPONSE = new MediaRuleResponse(true, "");
 
     private final int name;
     private final String description;
     private final List<MediaPredicate> predicateList;
+    private final List<MediaPredicate> callbackPredicateList;
     private final List<IMediaRuleCallback> actionList;
 
+    // State flags which must be set, respectively unset, for all state predicates to pass.
+    private int requiredStateMask;
+    private int forbiddenStateMask;
+
     MediaRule(final int name, final String description) {
 
         this.name = name;
         this.description = description;
-        this.actionList = new LinkedList<>();
-        this.predicateList = new LinkedList<>();
+        this.actionList = new ArrayList<>();
+        this.predicateList = new ArrayList<>();
+        this.callbackPredicateList = new ArrayList<>();
     }
 
     int getName() {
@@ -126,6 +167,21 @@ class MediaRule {
             final String errorString) {
         MediaPredicate predicate = new MediaPredicate(predicateFn, expectedVal, errorString);
         predicateList.add(predicate);
+        callbackPredicateList.add(predicate);
+        return this;
+    }
+
+    MediaRule addStatePredicate(
+            final int stateFlag, final boolean expectedVal, final String errorString) {
+        MediaPredicate predicate = new MediaPredicate(stateFlag, expectedVal, errorString);
+        predicateList.add(predicate);
+
+        if (expectedVal) {
+            requiredStateMask |= stateFlag;
+        } else {
+            forbiddenStateMask |= stateFlag;
+        }
+
         return this;
     }
 
@@ -134,22 +190,48 @@ class MediaRule {
         return this;
     }
 
-    MediaRuleResponse runPredicates(final Map<String, Object> context) {
-        for (MediaPredicate predicate : predicateList) {
-            IMediaRuleCallback predicateFn = predicate.fn;
-            boolean expectedVal = predicate.expectedValue;
+    boolean hasStatePredicates() {
+        return (requiredStateMask | forbiddenStateMask) != 0;
+    }
+
+    MediaRuleResponse runPredicates(final MediaRuleContext context) {
+        return runPredicates(context, 0);
+    }
+
+    MediaRuleResponse runPredicates(final MediaRuleContext context, final int state) {
+        if ((state & requiredStateMask) != requiredStateMask
+                || (state & forbiddenStateMask) != 0) {
+            // Rare failure path, evaluate in order to report the first failing predicate.
+            return runAllPredicates(context, state);
+        }
+
+        // All state predicates passed, only the callback predicates are left.
+        for (int i = 0, size = callbackPredicateList.size(); i < size; i++) {
+            MediaPredicate predicate = callbackPredicateList.get(i);
 
-            if (predicateFn.call(null, context) != expectedVal) {
-                return new MediaRuleResponse(false, predicate.msg);
+            if (!predicate.evaluate(context, state)) {
+                return predicate.failureResponse;
             }
         }
 
-        return new MediaRuleResponse(true, "");
+        return SUCCESS_RESPONSE;
     }
 
-    boolean runActions(final Map<String, Object> context) {
-        for (IMediaRuleCallback action : actionList) {
-            boolean retVal = action.call(null, context);
+    private MediaRuleResponse runAllPredicates(final MediaRuleContext context, final int state) {
+        for (int i = 0, size = predicateList.size(); i < size; i++) {
+            MediaPredicate predicate = predicateList.get(i);
+
+            if (!predicate.evaluate(context, state)) {
+                return predicate.failureResponse;
+            }
+        }
+
+        return SUCCESS_RESPONSE;
+    }
+
+    boolean runActions(final MediaRuleContext context) {
+        for (int i = 0, size = actionList.size(); i < size; i++) {
+            boolean retVal = actionList.get(i).call(null, context);
 
             if (!retVal) {
                 return false;
@@ -160,9 +242,19 @@ class MediaRule {
     }
 }
 
+// IMediaRuleStateProvider
+interface IMediaRuleStateProvider {
+    /**
+     * Returns the current state as a combination of the {@code MediaRule.STATE_*} flags.
+     *
+     * @param context the {@link MediaRuleContext} of the rule being processed
+     */
+    int getState(final MediaRuleContext context);
+}
+
 // IMediaRuleCallback
 interface IMediaRuleCallback {
-    boolean call(final MediaRule rule, final Map<String, Object> context);
+    boolean call(final MediaRule rule, final MediaRuleContext context);
 }
 
 // MediaRuleResponse
@@ -180,12 +272,33 @@ class MediaRuleResponse {
 class MediaPredicate {
 
     final IMediaRuleCallback fn;
+    final int stateFlag;
     final boolean expectedValue;
     final String msg;
+    final MediaRuleResponse failureResponse;
 
     MediaPredicate(final IMediaRuleCallback fn, final boolean expectedValue, final String msg) {
+        this(fn, 0, expectedValue, msg);
+    }
+
+    MediaPredicate(final int stateFlag, final boolean expectedValue, final String msg) {
+        this(null, stateFlag, expectedValue, msg);
+    }
+
+    private MediaPredicate(
+            final IMediaRuleCallback fn,
+            final int stateFlag,
+            final boolean expectedValue,
+            final String msg) {
         this.fn = fn;
+        this.stateFlag = stateFlag;
         this.expectedValue = expectedValue;
         this.msg = msg;
+        this.failureResponse = new MediaRuleResponse(false, msg);
+    }
+
+    boolean evaluate(final MediaRuleContext context, final int state) {
+        boolean value = fn != null ? fn.call(null, context) : (state & stateFlag) != 0;
+        return value == expectedValue;
     }
 }
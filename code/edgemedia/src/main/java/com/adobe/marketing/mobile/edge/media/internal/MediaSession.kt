@@ -34,9 +34,12 @@ internal abstract class MediaSession(
     internal var isSessionActive: Boolean = true
         @VisibleForTesting internal set
 
-    // List of events to be processed
+    // Called with the Edge request event ID of the sessionStart request once it is dispatched
+    internal var sessionStartListener: ((requestEventId: String) -> Unit)? = null
+
+    // Queue of events to be processed
     @VisibleForTesting(otherwise = VisibleForTesting.PROTECTED)
-    internal val eventQueue: MutableList<XDMMediaEvent> = mutableListOf()
+    internal val eventQueue: MediaEventQueue = MediaEventQueue()
 
     /**
      * Get the number of queued [XDMMediaEvent]s.
@@ -85,6 +88,14 @@ internal abstract class MediaSession(
         handleSessionAbort()
     }
 
+    /**
+     * Notifies the [sessionStartListener] that the sessionStart request was dispatched.
+     * @param requestEventId the [Edge] request event ID of the sessionStart request
+     */
+    protected fun notifySessionStartDispatched(requestEventId: String) {
+        sessionStartListener?.invoke(requestEventId)
+    }
+
     /**
      * Called when [MediaState] for this session is updated.
      */
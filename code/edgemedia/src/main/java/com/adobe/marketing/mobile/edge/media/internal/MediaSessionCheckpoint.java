@@ -0,0 +1,419 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.media.internal;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.adobe.marketing.mobile.services.Log;
+import com.adobe.marketing.mobile.services.NamedCollection;
+import com.adobe.marketing.mobile.util.DataReader;
+import com.adobe.marketing.mobile.util.JSONUtils;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Checkpoint of the {@link MediaContext} of a tracked session, kept in local storage so the session
+ * can be resumed after the process is killed.
+ *
+ * <p>The checkpoint is keyed by media ID and split in sections (ad break, ad, chapter, states and
+ * playback), each stored as a JSON string. Only the sections which changed since the previous save
+ * are written. Media info and metadata are not stored, the resumed {@code trackSessionStart} call
+ * provides them again.
+ *
+ * <p>The time of the last write of each checkpoint is kept in an index. Checkpoints not written
+ * for longer than the session timeout cannot be resumed and are purged when a session starts.
+ */
+class MediaSessionCheckpoint {
+    static final String DATA_STORE_NAME = "com.adobe.edge.media.checkpoint";
+
+    private static final String SOURCE_TAG = "MediaSessionCheckpoint";
+    private static final String KEY_INDEX = "checkpoints";
+    private static final String SECTION_AD_BREAK = "adBreak";
+    private static final String SECTION_AD = "ad";
+    private static final String SECTION_CHAPTER = "chapter";
+    private static final String SECTION_STATES = "states";
+    private static final String SECTION_PLAYBACK = "playback";
+    private static final String[] SECTIONS = {
+        SECTION_AD_BREAK, SECTION_AD, SECTION_CHAPTER, SECTION_STATES, SECTION_PLAYBACK
+    };
+    private static final String KEY_INFO = "info";
+    private static final String KEY_METADATA = "metadata";
+    private static final String KEY_PLAY_STATE = "playState";
+    private static final String KEY_BUFFERING = "buffering";
+    private static final String KEY_SEEKING = "seeking";
+    private static final String KEY_PLAYHEAD = "playhead";
+    private static final String KEY_QOE = "qoe";
+
+    private final NamedCollection store;
+    private String mediaId;
+    // Last saved value of each section, to only write the sections which changed
+    private final Map<String, Map<String, Object>> savedSections = new HashMap<>();
+
+    MediaSessionCheckpoint(@Nullable final NamedCollection store) {
+        this.store = store;
+    }
+
+    /**
+     * Saves the sections of the {@link MediaContext} which changed since the previous save.
+     *
+     * @param mediaContext the {@link MediaContext} of the tracked session
+     * @param timestamp the time of the save in milliseconds since epoch
+     */
+    void save(@NonNull final MediaContext mediaContext, final long timestamp) {
+        if (store == null) {
+            return;
+        }
+
+        String id = mediaContext.getMediaInfo().getId();
+        if (!id.equals(mediaId)) {
+            clear();
+            purgeExpired(timestamp);
+            mediaId = id;
+            // Drop the sections a previous launch may have left for the same media
+            removeSections(id);
+        }
+
+        Map<String, Object> adBreak =
+                mediaContext.isInAdBreak()
+                        ? createInfoSection(mediaContext.getAdBreakInfo().toObjectMap(), null)
+                        : null;
+        Map<String, Object> ad =
+                mediaContext.isInAd()
+                        ? createInfoSection(
+                                mediaContext.getAdInfo().toObjectMap(),
+                                mediaContext.getAdMetadata())
+                        : null;
+        Map<String, Object> chapter =
+                mediaContext.isInChapter()
+                        ? createInfoSection(
+                                mediaContext.getChapterInfo().toObjectMap(),
+                                mediaContext.getChapterMetadata())
+                        : null;
+
+        boolean isChanged = saveSection(SECTION_AD_BREAK, adBreak);
+        isChanged |= saveSection(SECTION_AD, ad);
+        isChanged |= saveSection(SECTION_CHAPTER, chapter);
+        isChanged |= saveSection(SECTION_STATES, createStatesSection(mediaContext));
+        isChanged |= saveSection(SECTION_PLAYBACK, createPlaybackSection(mediaContext));
+
+        // Sections are written as the session changes state, the save time is only updated then
+        if (isChanged) {
+            JSONObject index = readIndex();
+            try {
+                writeIndex(index.put(mediaId, timestamp));
+            } catch (JSONException e) {
+                Log.debug(
+                        MediaInternalConstants.LOG_TAG,
+                        SOURCE_TAG,
+                        "save - Failed to update the checkpoint index: %s",
+                        e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Restores the checkpoint saved for the media of the given {@link MediaContext}.
+     *
+     * @param mediaContext the {@link MediaContext} of the resumed session, with no ad, chapter or
+     *     state
+     * @param timestamp the time of the resume in milliseconds since epoch
+     * @return true if a checkpoint saved within the session timeout was found and restored
+     */
+    boolean restore(@NonNull final MediaContext mediaContext, final long timestamp) {
+        if (store == null) {
+            return false;
+        }
+
+        purgeExpired(timestamp);
+        String id = mediaContext.getMediaInfo().getId();
+        if (!readIndex().has(id)) {
+            return false;
+        }
+
+        Map<String, Map<String, Object>> sections = new HashMap<>();
+        for (String section : SECTIONS) {
+            Map<String, Object> value = readSection(id, section);
+            if (value != null) {
+                sections.put(section, value);
+            }
+        }
+
+        if (sections.isEmpty()) {
+            return false;
+        }
+
+        clear();
+        mediaId = id;
+        savedSections.putAll(sections);
+
+        Map<String, Object> adBreak = sections.get(SECTION_AD_BREAK);
+        if (adBreak != null) {
+            mediaContext.setAdBreakInfo(AdBreakInfo.fromObjectMap(getInfo(adBreak)));
+        }
+
+        Map<String, Object> ad = sections.get(SECTION_AD);
+        if (ad != null) {
+            mediaContext.setAdInfo(AdInfo.fromObjectMap(getInfo(ad)), getMetadata(ad));
+        }
+
+        Map<String, Object> chapter = sections.get(SECTION_CHAPTER);
+        if (chapter != null) {
+            mediaContext.setChapterInfo(
+                    ChapterInfo.fromObjectMap(getInfo(chapter)), getMetadata(chapter));
+        }
+
+        Map<String, Object> states = sections.get(SECTION_STATES);
+        if (states != null) {
+            for (String stateName : states.keySet()) {
+                StateInfo stateInfo = StateInfo.create(stateName);
+                if (stateInfo != null) {
+                    mediaContext.startState(stateInfo);
+                }
+            }
+        }
+
+        Map<String, Object> playback = sections.get(SECTION_PLAYBACK);
+        if (playback != null) {
+            restorePlayback(mediaContext, playback);
+        }
+
+        Log.debug(
+                MediaInternalConstants.LOG_TAG,
+                SOURCE_TAG,
+                "restore - Restored the checkpoint of media (%s).",
+                id);
+        return true;
+    }
+
+    /** Removes the checkpoint of the current media, once its session is complete or ended. */
+    void clear() {
+        if (mediaId == null) {
+            return;
+        }
+
+        removeSections(mediaId);
+        JSONObject index = readIndex();
+        if (index.remove(mediaId) != null) {
+            writeIndex(index);
+        }
+
+        mediaId = null;
+    }
+
+    /**
+     * Removes the checkpoints not written for longer than the session timeout, which can no longer
+     * be resumed.
+     */
+    private void purgeExpired(final long timestamp) {
+        JSONObject index = readIndex();
+        List<String> expiredIds = new ArrayList<>();
+        Iterator<String> ids = index.keys();
+        while (ids.hasNext()) {
+            String id = ids.next();
+            if (timestamp - index.optLong(id) > MediaEventTracker.SESSION_TIMEOUT_IN_MILLIS) {
+                expiredIds.add(id);
+            }
+        }
+
+        if (expiredIds.isEmpty()) {
+            return;
+        }
+
+        for (String id : expiredIds) {
+            removeSections(id);
+            index.remove(id);
+        }
+
+        writeIndex(index);
+        Log.debug(
+                MediaInternalConstants.LOG_TAG,
+                SOURCE_TAG,
+                "purgeExpired - Removed %d expired checkpoints.",
+                expiredIds.size());
+    }
+
+    @NonNull private JSONObject readIndex() {
+        String value = store.getString(KEY_INDEX, null);
+        if (value == null) {
+            return new JSONObject();
+        }
+
+        try {
+            return new JSONObject(value);
+        } catch (JSONException e) {
+            Log.debug(
+                    MediaInternalConstants.LOG_TAG,
+                    SOURCE_TAG,
+                    "readIndex - Ignoring invalid checkpoint index: %s",
+                    e.getMessage());
+            return new JSONObject();
+        }
+    }
+
+    private void writeIndex(@NonNull final JSONObject index) {
+        if (index.length() == 0) {
+            store.remove(KEY_INDEX);
+        } else {
+            store.setString(KEY_INDEX, index.toString());
+        }
+    }
+
+    private boolean saveSection(
+            @NonNull final String section, @Nullable final Map<String, Object> value) {
+        Map<String, Object> savedValue = savedSections.get(section);
+        if (value == null ? savedValue == null : value.equals(savedValue)) {
+            return false;
+        }
+
+        if (value == null) {
+            store.remove(getKey(mediaId, section));
+            savedSections.remove(section);
+        } else {
+            store.setString(getKey(mediaId, section), new JSONObject(value).toString());
+            savedSections.put(section, value);
+        }
+
+        return true;
+    }
+
+    @Nullable private Map<String, Object> readSection(
+            @NonNull final String id, @NonNull final String section) {
+        String value = store.getString(getKey(id, section), null);
+        if (value == null) {
+            return null;
+        }
+
+        try {
+            return JSONUtils.toMap(new JSONObject(value));
+        } catch (JSONException e) {
+            Log.debug(
+                    MediaInternalConstants.LOG_TAG,
+                    SOURCE_TAG,
+                    "readSection - Ignoring invalid checkpoint section (%s): %s",
+                    section,
+                    e.getMessage());
+            return null;
+        }
+    }
+
+    private void removeSections(@NonNull final String id) {
+        for (String section : SECTIONS) {
+            store.remove(getKey(id, section));
+        }
+
+        if (id.equals(mediaId)) {
+            savedSections.clear();
+        }
+    }
+
+    private static String getKey(@NonNull final String id, @NonNull final String section) {
+        return id + "." + section;
+    }
+
+    private static Map<String, Object> createInfoSection(
+            @NonNull final Map<String, Object> info,
+            @Nullable final Map<String, String> metadata) {
+        Map<String, Object> section = new HashMap<>();
+        section.put(KEY_INFO, info);
+        if (metadata != null && !metadata.isEmpty()) {
+            section.put(KEY_METADATA, new HashMap<>(metadata));
+        }
+
+        return section;
+    }
+
+    @Nullable private static Map<String, Object> createStatesSection(
+            @NonNull final MediaContext mediaContext) {
+        List<StateInfo> activeStates = mediaContext.getActiveTrackedStates();
+        if (activeStates.isEmpty()) {
+            return null;
+        }
+
+        Map<String, Object> section = new HashMap<>();
+        for (StateInfo stateInfo : activeStates) {
+            section.put(stateInfo.getStateName(), true);
+        }
+
+        return section;
+    }
+
+    private static Map<String, Object> createPlaybackSection(
+            @NonNull final MediaContext mediaContext) {
+        Map<String, Object> section = new HashMap<>();
+        section.put(KEY_PLAY_STATE, getPlayState(mediaContext).name());
+        section.put(KEY_BUFFERING, mediaContext.isInState(MediaPlaybackState.Buffer));
+        section.put(KEY_SEEKING, mediaContext.isInState(MediaPlaybackState.Seek));
+        section.put(KEY_PLAYHEAD, mediaContext.getPlayhead());
+        if (mediaContext.getQoEInfo() != null) {
+            section.put(KEY_QOE, mediaContext.getQoEInfo().toObjectMap());
+        }
+
+        return section;
+    }
+
+    private static MediaPlaybackState getPlayState(@NonNull final MediaContext mediaContext) {
+        if (mediaContext.isInState(MediaPlaybackState.Play)) {
+            return MediaPlaybackState.Play;
+        } else if (mediaContext.isInState(MediaPlaybackState.Pause)) {
+            return MediaPlaybackState.Pause;
+        } else if (mediaContext.isInState(MediaPlaybackState.Stall)) {
+            return MediaPlaybackState.Stall;
+        }
+
+        return MediaPlaybackState.Init;
+    }
+
+    private static void restorePlayback(
+            @NonNull final MediaContext mediaContext, @NonNull final Map<String, Object> playback) {
+        String playState = DataReader.optString(playback, KEY_PLAY_STATE, null);
+        if (MediaPlaybackState.Play.name().equals(playState)) {
+            mediaContext.enterState(MediaPlaybackState.Play);
+        } else if (MediaPlaybackState.Pause.name().equals(playState)) {
+            mediaContext.enterState(MediaPlaybackState.Pause);
+        } else if (MediaPlaybackState.Stall.name().equals(playState)) {
+            mediaContext.enterState(MediaPlaybackState.Stall);
+        }
+
+        if (DataReader.optBoolean(playback, KEY_BUFFERING, false)) {
+            mediaContext.enterState(MediaPlaybackState.Buffer);
+        }
+
+        if (DataReader.optBoolean(playback, KEY_SEEKING, false)) {
+            mediaContext.enterState(MediaPlaybackState.Seek);
+        }
+
+        mediaContext.setPlayhead(DataReader.optInt(playback, KEY_PLAYHEAD, 0));
+
+        Map<String, Object> qoe = DataReader.optTypedMap(Object.class, playback, KEY_QOE, null);
+        if (qoe != null) {
+            QoEInfo qoeInfo = QoEInfo.fromObjectMap(qoe);
+            if (qoeInfo != null) {
+                mediaContext.setQoEInfo(qoeInfo);
+            }
+        }
+    }
+
+    @Nullable private static Map<String, Object> getInfo(
+            @NonNull final Map<String, Object> section) {
+        return DataReader.optTypedMap(Object.class, section, KEY_INFO, null);
+    }
+
+    @Nullable private static Map<String, String> getMetadata(
+            @NonNull final Map<String, Object> section) {
+        return DataReader.optStringMap(section, KEY_METADATA, null);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.media.internal;
+
+import androidx.annotation.NonNull;
+import com.adobe.marketing.mobile.AdobeCallback;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free queue of tracking calls handed directly from a public tracker to its internal {@link
+ * MediaEventTracker}, bypassing the event data copies of the event hub.
+ *
+ * <p>The event hub is only used to signal the extension thread to drain the queue. Each tracking
+ * call is tagged with a sequence number, carried by the signal event dispatched for it, and a
+ * signal only drains the calls queued up to its own sequence number. A call is thus processed at
+ * the position of its own signal in the event hub, never before an event dispatched ahead of it
+ * such as an identity reset, a configuration or an Edge response.
+ */
+final class MediaTrackChannel {
+    private final Queue<Entry> entries = new ConcurrentLinkedQueue<>();
+    private final AtomicLong lastSequence = new AtomicLong(0);
+
+    /**
+     * Queues the tracking call event data. Calls are made under the lock of the public tracker, so
+     * the entries are queued in sequence order.
+     *
+     * @param eventData the tracking call event data
+     * @return the sequence number of the tracking call, to be set in its signal event
+     */
+    long offer(@NonNull final Map<String, Object> eventData) {
+        long sequence = lastSequence.incrementAndGet();
+        entries.offer(new Entry(sequence, eventData));
+        return sequence;
+    }
+
+    /**
+     * Removes the tracking calls queued up to the given sequence number in order and passes them to
+     * the {@code consumer}. Called from the extension thread only.
+     *
+     * @param sequence the sequence number carried by the signal event
+     * @param consumer the callback invoked with each queued tracking call event data
+     */
+    void drain(final long sequence, @NonNull final AdobeCallback<Map<String, Object>> consumer) {
+        Entry entry;
+        while ((entry = entries.peek()) != null && entry.sequence <= sequence) {
+            entries.poll();
+            consumer.call(entry.eventData);
+        }
+    }
+
+    /** Removes all the queued tracking calls without processing them. */
+    void clear() {
+        entries.clear();
+    }
+
+    private static final class Entry {
+        final long sequence;
+        final Map<String, Object> eventData;
+
+        Entry(final long sequence, final Map<String, Object> eventData) {
+            this.sequence = sequence;
+            this.eventData = eventData;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.media.internal
+
+import com.adobe.marketing.mobile.edge.media.MediaConstants
+import com.adobe.marketing.mobile.util.DataReader
+import com.adobe.marketing.mobile.util.StringUtils
+
+// / Tracker configuration parsed once when the tracker is created.
+// / - Parameters:
+// /   - channel: The channel name set in the tracker configuration, or null if not set.
+// /   - mainPingIntervalMs: The reporting interval for main content in milliseconds.
+// /   - adPingIntervalMs: The reporting interval for ad content in milliseconds.
+// /   - persistEvents: True if the queued events are persisted to be sent after the process is restarted.
+// /   - checkpointSession: True if the session state is checkpointed in local storage to be resumed after the process is killed.
+internal class MediaTrackerConfig private constructor(
+    val channel: String?,
+    val mainPingIntervalMs: Int,
+    val adPingIntervalMs: Int,
+    val persistEvents: Boolean,
+    val checkpointSession: Boolean
+) {
+    // / Gets the reporting interval for the current content.
+    // / - Parameter isAdStart: A Boolean  when true denotes reporting interval is needed for Ad content or denotes Main content when false.
+    // / - Return: the reporting interval in `MILLISECONDS`.
+    fun getReportingInterval(isAdStart: Boolean): Int {
+        return if (isAdStart) adPingIntervalMs else mainPingIntervalMs
+    }
+
+    companion object {
+        private val allowedAdPingIntervalRangeInSeconds = 1..10
+        private val allowedMainPingIntervalRangeInSeconds = 10..50
+
+        // / Parses the tracker configuration. Valid custom main ping interval range is (10 seconds - 50 seconds) and valid ad ping interval is (1 second - 10 seconds)
+        // / - Parameter config: The tracker configuration map passed to `Media.createTracker`.
+        // / - Return: a `MediaTrackerConfig` which uses the default `MediaConstants.PingInterval.REALTIME_TRACKING` for custom ping intervals which are invalid or not found.
+        @JvmStatic
+        fun create(config: Map<String, Any?>?): MediaTrackerConfig {
+            val channel = DataReader.optString(config, MediaConstants.TrackerConfig.CHANNEL, null)
+
+            return MediaTrackerConfig(
+                if (StringUtils.isNullOrEmpty(channel)) null else channel,
+                getPingInterval(config, MediaConstants.TrackerConfig.MAIN_PING_INTERVAL, allowedMainPingIntervalRangeInSeconds),
+                getPingInterval(config, MediaConstants.TrackerConfig.AD_PING_INTERVAL, allowedAdPingIntervalRangeInSeconds),
+                DataReader.optBoolean(config, MediaConstants.TrackerConfig.PERSIST_EVENTS, false),
+                DataReader.optBoolean(config, MediaConstants.TrackerConfig.CHECKPOINT_SESSION, false)
+            )
+        }
+
+        private fun getPingInterval(config: Map<String, Any?>?, key: String, allowedRangeInSeconds: IntRange): Int {
+            val customPingInterval = DataReader.optInt(config, key, 0)
+            if (allowedRangeInSeconds.contains(customPingInterval)) {
+                return customPingInterval * 1000 // convert to Milliseconds
+            }
+
+            return MediaInternalConstants.PingInterval.REALTIME_TRACKING_MS
+        }
+    }
+}
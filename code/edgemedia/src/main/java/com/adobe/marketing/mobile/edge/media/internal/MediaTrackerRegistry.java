@@ -0,0 +1,110 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.media.internal;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide registry linking the public tracker instances with their internal {@link
+ * MediaEventTracker}s, keyed by tracker ID.
+ *
+ * <p>Listeners and channels are held weakly so that a public tracker released by the application
+ * is not kept alive by the registry.
+ */
+final class MediaTrackerRegistry {
+    /** Value used when a tracker has no upcoming deadline. */
+    static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    private static final Map<String, WeakReference<DeadlineListener>> deadlineListeners =
+            new ConcurrentHashMap<>();
+    private static final Map<String, WeakReference<MediaTrackChannel>> trackChannels =
+            new ConcurrentHashMap<>();
+
+    private MediaTrackerRegistry() {}
+
+    /** Listener notified when the next time-based deadline of a tracker changes. */
+    interface DeadlineListener {
+        /**
+         * Called with the timestamp of the next deadline the internal tracker needs to be woken up
+         * for.
+         *
+         * @param deadlineTS the deadline timestamp in milliseconds, or {@link #NO_DEADLINE}
+         */
+        void onNextDeadline(long deadlineTS);
+    }
+
+    /**
+     * Registers the {@link DeadlineListener} for the tracker with the given {@code trackerId}.
+     *
+     * @param trackerId the public tracker ID
+     * @param listener the {@link DeadlineListener} to be notified
+     */
+    static void registerDeadlineListener(
+            @NonNull final String trackerId, @NonNull final DeadlineListener listener) {
+        removeReleased(deadlineListeners);
+        deadlineListeners.put(trackerId, new WeakReference<>(listener));
+    }
+
+    /**
+     * Notifies the {@link DeadlineListener} registered for {@code trackerId}, if any, of the next
+     * deadline.
+     *
+     * @param trackerId the public tracker ID
+     * @param deadlineTS the deadline timestamp in milliseconds, or {@link #NO_DEADLINE}
+     */
+    static void notifyNextDeadline(@NonNull final String trackerId, final long deadlineTS) {
+        WeakReference<DeadlineListener> reference = deadlineListeners.get(trackerId);
+        DeadlineListener listener = reference != null ? reference.get() : null;
+
+        if (listener != null) {
+            listener.onNextDeadline(deadlineTS);
+        }
+    }
+
+    /**
+     * Registers the {@link MediaTrackChannel} used by the tracker with the given {@code trackerId}
+     * in direct dispatch mode.
+     *
+     * @param trackerId the public tracker ID
+     * @param channel the {@link MediaTrackChannel} of the tracker
+     */
+    static void registerTrackChannel(
+            @NonNull final String trackerId, @NonNull final MediaTrackChannel channel) {
+        removeReleased(trackChannels);
+        trackChannels.put(trackerId, new WeakReference<>(channel));
+    }
+
+    /**
+     * Gets the {@link MediaTrackChannel} registered for {@code trackerId}.
+     *
+     * @param trackerId the public tracker ID
+     * @return the {@link MediaTrackChannel}, or null if none is registered or it was released
+     */
+    @Nullable static MediaTrackChannel getTrackChannel(@NonNull final String trackerId) {
+        WeakReference<MediaTrackChannel> reference = trackChannels.get(trackerId);
+        return reference != null ? reference.get() : null;
+    }
+
+    private static <T> void removeReleased(final Map<String, WeakReference<T>> references) {
+        Iterator<WeakReference<T>> iterator = references.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().get() == null) {
+                iterator.remove();
+            }
+        }
+    }
+}
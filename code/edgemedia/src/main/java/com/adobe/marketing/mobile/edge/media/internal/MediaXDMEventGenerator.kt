@@ -11,7 +11,6 @@
 
 package com.adobe.marketing.mobile.edge.media.internal
 
-import com.adobe.marketing.mobile.edge.media.MediaConstants
 import com.adobe.marketing.mobile.edge.media.internal.MediaInternalConstants.LOG_TAG
 import com.adobe.marketing.mobile.edge.media.internal.xdm.XDMErrorDetails
 import com.adobe.marketing.mobile.edge.media.internal.xdm.XDMMediaCollection
@@ -20,23 +19,19 @@ import com.adobe.marketing.mobile.edge.media.internal.xdm.XDMMediaEventType
 import com.adobe.marketing.mobile.edge.media.internal.xdm.XDMMediaSchema
 import com.adobe.marketing.mobile.edge.media.internal.xdm.XDMQoeDataDetails
 import com.adobe.marketing.mobile.services.Log
-import com.adobe.marketing.mobile.util.DataReader
-import com.adobe.marketing.mobile.util.StringUtils
-import java.util.Date
 
 internal class MediaXDMEventGenerator(
     private val mediaContext: MediaContext,
     private val mediaEventProcessor: MediaEventProcessor,
-    private val trackerConfig: Map<String, Any>?,
+    private val trackerConfig: MediaTrackerConfig,
     private var refTS: Long
 ) {
     private val SOURCE_TAG = "MediaExperienceEventGenerator"
     private var lastReportedQoe: XDMQoeDataDetails? = null
+    private var lastReportedQoeVersion: Long = INVALID_QOE_VERSION
     private var isTracking: Boolean = false
     private var currentPlaybackState: MediaPlaybackState = MediaPlaybackState.Init
     private var currentPlaybackStateStartRefTS: Long = refTS
-    private val allowedAdPingIntervalRangeInSeconds = 1..10
-    private val allowedMainPingIntervalRangeInSeconds = 10..50
     private var sessionId: String = ""
 
     init {
@@ -47,8 +42,8 @@ internal class MediaXDMEventGenerator(
         val sessionDetails = MediaXDMEventHelper.generateSessionDetails(mediaContext.mediaInfo, mediaContext.mediaMetadata, forceResume)
         val customMetadata = MediaXDMEventHelper.generateMediaCustomMetadata(mediaContext.mediaMetadata)
 
-        val channel = DataReader.optString(trackerConfig, MediaConstants.TrackerConfig.CHANNEL, null)
-        if (!StringUtils.isNullOrEmpty(channel)) {
+        val channel = trackerConfig.channel
+        if (channel != null) {
             sessionDetails.channel = channel
         }
 
@@ -127,7 +122,14 @@ internal class MediaXDMEventGenerator(
         currentPlaybackStateStartRefTS = refTS
 
         lastReportedQoe = null
+        lastReportedQoeVersion = INVALID_QOE_VERSION
         startTrackingSession()
+        processSessionResume()
+    }
+
+    // / Starts the current session as resumed and tracks the chapter, ad break, ad and states of the media context.
+    // / Used on restart, or when the media context is restored from a checkpoint after the process was killed.
+    fun processSessionResume() {
         processSessionStart(forceResume = true)
 
         if (mediaContext.chapterInfo != null) {
@@ -164,7 +166,7 @@ internal class MediaXDMEventGenerator(
     }
 
     fun processPlayback(doFlush: Boolean = false) {
-        val reportingInterval = getReportingIntervalFromTrackerConfig(isAdStart = (mediaContext.adInfo != null))
+        val reportingInterval = trackerConfig.getReportingInterval(isAdStart = (mediaContext.adInfo != null))
 
         if (!isTracking) {
             return
@@ -203,9 +205,26 @@ internal class MediaXDMEventGenerator(
         this.refTS = ts
     }
 
+    // / Gets the timestamp at which `processPlayback` will send the next ping for the current playback state.
+    // / - Return: the ping deadline in milliseconds, or `Long.MAX_VALUE` if the session is no longer being tracked.
+    fun getNextPingTS(): Long {
+        if (!isTracking) {
+            return Long.MAX_VALUE
+        }
+
+        val reportingInterval = trackerConfig.getReportingInterval(isAdStart = (mediaContext.adInfo != null))
+        return currentPlaybackStateStartRefTS + reportingInterval
+    }
+
+    // / Checks whether `processPlayback` has already reported the current playback state.
+    // / - Return: true if `processPlayback` would only send a ping, or nothing if the session is no longer being tracked.
+    fun isPlaybackStateReported(): Boolean {
+        return !isTracking || currentPlaybackState == getPlaybackState()
+    }
+
     // / Signals event processor to start a new media session.
     private fun startTrackingSession() {
-        sessionId = mediaEventProcessor.createSession()
+        sessionId = if (trackerConfig.persistEvents) mediaEventProcessor.createPersistentSession() else mediaEventProcessor.createSession()
         isTracking = true
         Log.debug(LOG_TAG, SOURCE_TAG, "Started a new session with id ($sessionId)")
     }
@@ -235,8 +254,7 @@ internal class MediaXDMEventGenerator(
         // Add playhead details
         mediaCollection.playhead = mediaContext.playhead
 
-        val timestampAsDate = Date(refTS)
-        val xdmEvent = XDMMediaEvent(XDMMediaSchema(eventType, timestampAsDate, mediaCollection))
+        val xdmEvent = XDMMediaEvent(XDMMediaSchema(eventType, refTS, mediaCollection))
 
         mediaEventProcessor.processEvent(sessionId, xdmEvent)
     }
@@ -248,8 +266,16 @@ internal class MediaXDMEventGenerator(
         // Cache and return the passed in QoE object if it is not nil
         if (qoe != null && qoe.isValid()) {
             lastReportedQoe = qoe
+            // The MediaContext QoE data needs to be compared again with the new last reported QoE.
+            lastReportedQoeVersion = INVALID_QOE_VERSION
             return qoe
         }
+        // The QoE data cached by the MediaContext class has not been updated since it was last compared, no need to convert it again.
+        val qoeVersion = mediaContext.qoEVersion
+        if (qoeVersion == lastReportedQoeVersion) {
+            return null
+        }
+        lastReportedQoeVersion = qoeVersion
         // If the passed QoE data object is nil, get the QoE data cached by the MediaContext class and convert to XDM formatted object.
         val mediaContextQoe = MediaXDMEventHelper.generateQoEDataDetails(mediaContext.qoEInfo)
         // If the QoE data cached by the MediaContext class is different than the last reported QoE data, return the MediaContext cached QoE data to be sent to the backend
@@ -286,22 +312,7 @@ internal class MediaXDMEventGenerator(
         }
     }
 
-    // / Gets the custom reporting interval set in the tracker configuration. Valid custom main ping interval range is (10 seconds - 50 seconds) and valid ad ping interval is (1 second - 10 seconds)
-    // / - Parameter isAdStart: A Boolean  when true denotes reporting interval is needed for Ad content or denotes Main content when false.
-    // / - Return: the custom interval in `MILLISECONDS` if found in tracker configuration. Returns the default `MediaConstants.PingInterval.REALTIME_TRACKING` if the custom values are invalid or not found
-    private fun getReportingIntervalFromTrackerConfig(isAdStart: Boolean = false): Int {
-        if (isAdStart) {
-            val customAdPingInterval = DataReader.optInt(trackerConfig, MediaConstants.TrackerConfig.AD_PING_INTERVAL, 0)
-            if (allowedAdPingIntervalRangeInSeconds.contains(customAdPingInterval)) {
-                return customAdPingInterval * 1000 // convert to Milliseconds
-            }
-        } else {
-            val customMainPingInterval = DataReader.optInt(trackerConfig, MediaConstants.TrackerConfig.MAIN_PING_INTERVAL, 0)
-            if (allowedMainPingIntervalRangeInSeconds.contains(customMainPingInterval)) {
-                return customMainPingInterval * 1000 // convert to Milliseconds
-            }
-        }
-
-        return MediaInternalConstants.PingInterval.REALTIME_TRACKING_MS
+    companion object {
+        private const val INVALID_QOE_VERSION = -1L
     }
 }
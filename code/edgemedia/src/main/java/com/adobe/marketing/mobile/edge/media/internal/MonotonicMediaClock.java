@@ -0,0 +1,48 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.media.internal;
+
+import android.os.SystemClock;
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * {@link MediaClock} based on {@link SystemClock#elapsedRealtimeNanos()}, anchored once to the wall
+ * clock.
+ *
+ * <p>Timestamps keep increasing at a steady rate even if the device wall clock is changed, so the
+ * idle and ping durations computed from them are not affected by wall clock jumps. Unlike {@link
+ * System#nanoTime()}, the elapsed realtime keeps counting while the device is in deep sleep, so
+ * timestamps do not fall behind the wall clock and the session timeout accounts for the sleep.
+ */
+final class MonotonicMediaClock implements MediaClock {
+    private static final long NANOS_PER_MILLI = 1000000L;
+    private static final MonotonicMediaClock INSTANCE = new MonotonicMediaClock();
+
+    private final long anchorTimeMillis;
+    private final long anchorNanos;
+
+    @VisibleForTesting
+    MonotonicMediaClock() {
+        anchorTimeMillis = System.currentTimeMillis();
+        anchorNanos = SystemClock.elapsedRealtimeNanos();
+    }
+
+    static MonotonicMediaClock getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public long getCurrentTimeMillis() {
+        return anchorTimeMillis
+                + (SystemClock.elapsedRealtimeNanos() - anchorNanos) / NANOS_PER_MILLI;
+    }
+}
@@ -10,4 +10,4 @@
 */
 
 package com.adobe.marketing.mobile.edge.media.internal
-internal data class PrerollQueuedRule(val ruleName: Int, val ruleContext: Map<String, Any>)
+internal data class PrerollQueuedRule(val ruleName: Int, val ruleContext: MediaRuleContext)
@@ -26,7 +26,7 @@ internal data class XDMAdvertisingDetails(
 ) : XDMProperty {
 
     override fun serializeToXDM(): Map<String, Any> {
-        val map = mutableMapOf<String, Any>()
+        val map = XDMProperty.createXDMMap(11)
 
         friendlyName?.let {
             map.put("friendlyName", it)
@@ -72,6 +72,6 @@ internal data class XDMAdvertisingDetails(
             map.put("siteID", it)
         }
 
-        return map.toMap()
+        return map
     }
 }
@@ -18,7 +18,7 @@ internal data class XDMAdvertisingPodDetails(
 ) : XDMProperty {
 
     override fun serializeToXDM(): Map<String, Any> {
-        val map = mutableMapOf<String, Any>()
+        val map = XDMProperty.createXDMMap(3)
 
         friendlyName?.let {
             map.put("friendlyName", it)
@@ -32,6 +32,6 @@ internal data class XDMAdvertisingPodDetails(
             map.put("offset", it)
         }
 
-        return map.toMap()
+        return map
     }
 }
@@ -19,7 +19,7 @@ internal data class XDMChapterDetails(
 ) : XDMProperty {
 
     override fun serializeToXDM(): Map<String, Any> {
-        val map = mutableMapOf<String, Any>()
+        val map = XDMProperty.createXDMMap(4)
 
         friendlyName?.let {
             map.put("friendlyName", it)
@@ -37,6 +37,6 @@ internal data class XDMChapterDetails(
             map.put("offset", it)
         }
 
-        return map.toMap()
+        return map
     }
 }
@@ -17,7 +17,7 @@ internal data class XDMCustomMetadata(
 ) : XDMProperty {
 
     override fun serializeToXDM(): Map<String, Any> {
-        val map = mutableMapOf<String, Any>()
+        val map = XDMProperty.createXDMMap(2)
 
         name?.let {
             map.put("name", it)
@@ -27,6 +27,6 @@ internal data class XDMCustomMetadata(
             map.put("value", it)
         }
 
-        return map.toMap()
+        return map
     }
 }
@@ -17,7 +17,7 @@ internal data class XDMErrorDetails(
 ) : XDMProperty {
 
     override fun serializeToXDM(): Map<String, Any> {
-        val map = mutableMapOf<String, Any>()
+        val map = XDMProperty.createXDMMap(2)
 
         name?.let {
             map.put("name", it)
@@ -27,6 +27,6 @@ internal data class XDMErrorDetails(
             map.put("source", it)
         }
 
-        return map.toMap()
+        return map
     }
 }
@@ -26,7 +26,7 @@ internal data class XDMMediaCollection(
 ) : XDMProperty {
 
     override fun serializeToXDM(): Map<String, Any> {
-        val map = mutableMapOf<String, Any>()
+        val map = XDMProperty.createXDMMap(11)
 
         advertisingDetails?.let {
             map.put("advertisingDetails", it.serializeToXDM())
@@ -72,6 +72,6 @@ internal data class XDMMediaCollection(
             map.put("statesEnd", serializeFromList(it))
         }
 
-        return map.toMap()
+        return map
     }
 }
@@ -15,13 +15,13 @@ internal data class XDMMediaEvent(
     var xdmData: XDMMediaSchema
 ) : XDMProperty {
     override fun serializeToXDM(): Map<String, Any> {
-        val map = mutableMapOf<String, Any>()
+        val map = XDMProperty.createXDMMap(2)
 
         map["xdm"] = xdmData.serializeToXDM()
 
         // Set Media overwrite path based on XDM eventType
-        map["request"] = mapOf("path" to "/va/v1/${xdmData.eventType.value}")
+        map["request"] = xdmData.eventType.requestPath
 
-        return map.toMap()
+        return map
     }
 }
@@ -31,9 +31,23 @@ internal enum class XDMMediaEventType(val value: String) {
     CHAPTER_COMPLETE("chapterComplete"),
     STATES_UPDATE("statesUpdate");
 
+    // The strings derived from the event type are built once instead of for every event.
+    internal val typeString: String = "media.$value"
+
+    /**
+     * Name of the Edge request event dispatched for this event type.
+     */
+    internal val edgeEventName: String = "Edge Media - $typeString"
+
+    /**
+     * Media overwrite path of the Edge request, shared by all the events of this type.
+     * The map is read-only, [com.adobe.marketing.mobile.Event.Builder.setEventData] copies it.
+     */
+    internal val requestPath: Map<String, Any> = mapOf("path" to "/va/v1/$value")
+
     companion object {
         fun getTypeString(type: XDMMediaEventType): String {
-            return "media.${type.value}"
+            return type.typeString
         }
     }
 }
@@ -11,24 +11,21 @@
 
 package com.adobe.marketing.mobile.edge.media.internal.xdm
 
-import com.adobe.marketing.mobile.util.TimeUtils
-import java.util.Date
-
 internal data class XDMMediaSchema(
     var eventType: XDMMediaEventType,
-    var timestamp: Date,
+    var timestamp: Long,
     var mediaCollection: XDMMediaCollection
 ) : XDMProperty {
 
     override fun serializeToXDM(): Map<String, Any> {
-        val map = mutableMapOf<String, Any>()
+        val map = XDMProperty.createXDMMap(3)
 
         map["eventType"] = XDMMediaEventType.getTypeString(eventType)
 
-        map["timestamp"] = TimeUtils.getISO8601UTCDateWithMilliseconds(timestamp)
+        map["timestamp"] = XDMTimestampFormatter.format(timestamp)
 
         map["mediaCollection"] = mediaCollection.serializeToXDM()
 
-        return map.toMap()
+        return map
     }
 }
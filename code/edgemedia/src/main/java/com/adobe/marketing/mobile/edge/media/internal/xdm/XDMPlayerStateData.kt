@@ -14,12 +14,12 @@ package com.adobe.marketing.mobile.edge.media.internal.xdm
 internal data class XDMPlayerStateData(var name: String? = null) : XDMProperty {
 
     override fun serializeToXDM(): Map<String, Any> {
-        val map = mutableMapOf<String, Any>()
+        val map = XDMProperty.createXDMMap(1)
 
         name?.let {
             map.put("name", it)
         }
 
-        return map.toMap()
+        return map
     }
 }
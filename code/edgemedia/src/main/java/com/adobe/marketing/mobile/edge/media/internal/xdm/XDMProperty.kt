@@ -27,11 +27,24 @@ internal interface XDMProperty {
      * @return list of [XDMProperty] elements serialized to XDM formatted [Map]
      */
     fun serializeFromList(properties: List<XDMProperty>): List<Map<String, Any>> {
-        val list = mutableListOf<Map<String, Any>>()
+        val list = ArrayList<Map<String, Any>>(properties.size)
         for (property in properties) {
             list.add(property.serializeToXDM())
         }
 
-        return list.toList()
+        return list
+    }
+
+    companion object {
+        /**
+         * Creates the map an [XDMProperty] is serialized to, sized to hold all of its fields without
+         * rehashing. The map is returned as is by [serializeToXDM] instead of being copied.
+         *
+         * @param fieldCount the number of fields the [XDMProperty] can serialize
+         * @return an empty map preserving the insertion order of the fields
+         */
+        fun createXDMMap(fieldCount: Int): MutableMap<String, Any> {
+            return LinkedHashMap((fieldCount / 0.75f).toInt() + 1)
+        }
     }
 }
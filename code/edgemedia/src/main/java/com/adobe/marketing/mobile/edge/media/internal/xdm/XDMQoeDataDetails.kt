@@ -19,7 +19,7 @@ internal data class XDMQoeDataDetails(
 ) : XDMProperty {
 
     override fun serializeToXDM(): Map<String, Any> {
-        val map = mutableMapOf<String, Any>()
+        val map = XDMProperty.createXDMMap(4)
 
         bitrate?.let {
             map.put("bitrate", it)
@@ -37,7 +37,7 @@ internal data class XDMQoeDataDetails(
             map.put("timeToStart", it)
         }
 
-        return map.toMap()
+        return map
     }
 
     fun isValid(): Boolean {
@@ -58,7 +58,7 @@ internal data class XDMSessionDetails(
 ) : XDMProperty {
 
     override fun serializeToXDM(): Map<String, Any> {
-        val map = mutableMapOf<String, Any>()
+        val map = XDMProperty.createXDMMap(33)
 
         contentType?.let {
             map.put("contentType", it)
@@ -192,6 +192,6 @@ internal data class XDMSessionDetails(
             map.put("streamFormat", it)
         }
 
-        return map.toMap()
+        return map
     }
 }
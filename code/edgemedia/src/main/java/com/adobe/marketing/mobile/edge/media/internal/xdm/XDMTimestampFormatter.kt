@@ -0,0 +1,105 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.media.internal.xdm
+
+/**
+ * Formats epoch timestamps to the `yyyy-MM-dd'T'HH:mm:ss.SSS'Z'` UTC format of the XDM
+ * `timestamp` field, same as `TimeUtils.getISO8601UTCDateWithMilliseconds` for the dates since the
+ * Gregorian calendar cutover in 1582.
+ *
+ * Media events are generated every few seconds, so the `yyyy-MM-dd'T'HH:mm:ss` prefix of the last
+ * formatted second is cached and only the milliseconds are formatted for the next timestamps of
+ * the same second.
+ */
+internal object XDMTimestampFormatter {
+    private const val MILLIS_PER_SECOND = 1000L
+    private const val SECONDS_PER_DAY = 86400L
+    private const val FORMATTED_LENGTH = 24
+
+    private class Prefix(val epochSecond: Long, val text: String)
+
+    // Replaced as a whole so concurrent readers always see a matching second and text.
+    @Volatile
+    private var lastPrefix = Prefix(0, formatPrefix(0))
+
+    /**
+     * Formats the given timestamp.
+     * @param epochMillis milliseconds since the epoch
+     * @return the ISO-8601 UTC date with milliseconds, for example `2024-02-29T23:59:59.999Z`
+     */
+    fun format(epochMillis: Long): String {
+        val epochSecond = epochMillis.floorDiv(MILLIS_PER_SECOND)
+        val millis = epochMillis.mod(MILLIS_PER_SECOND).toInt()
+
+        var prefix = lastPrefix
+        if (prefix.epochSecond != epochSecond) {
+            prefix = Prefix(epochSecond, formatPrefix(epochSecond))
+            lastPrefix = prefix
+        }
+
+        val builder = StringBuilder(FORMATTED_LENGTH)
+        builder.append(prefix.text).append('.')
+        appendPadded(builder, millis, 3)
+        builder.append('Z')
+        return builder.toString()
+    }
+
+    private fun formatPrefix(epochSecond: Long): String {
+        val epochDay = epochSecond.floorDiv(SECONDS_PER_DAY)
+        val secondOfDay = epochSecond.mod(SECONDS_PER_DAY).toInt()
+
+        // Civil date from the days since 1970-01-01, in the proleptic Gregorian calendar.
+        // Eras are 400 year cycles starting on March 1st, so the leap day is the last day of the
+        // year of era.
+        val shiftedDay = epochDay + 719468
+        val era = shiftedDay.floorDiv(146097L)
+        val dayOfEra = (shiftedDay - era * 146097).toInt()
+        val yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365
+        val dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100)
+        val shiftedMonth = (5 * dayOfYear + 2) / 153
+        val day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1
+        val month = if (shiftedMonth < 10) shiftedMonth + 3 else shiftedMonth - 9
+        val year = yearOfEra + era * 400 + if (month <= 2) 1 else 0
+
+        val builder = StringBuilder(FORMATTED_LENGTH)
+        appendPadded(builder, year, 4)
+        builder.append('-')
+        appendPadded(builder, month, 2)
+        builder.append('-')
+        appendPadded(builder, day, 2)
+        builder.append('T')
+        appendPadded(builder, secondOfDay / 3600, 2)
+        builder.append(':')
+        appendPadded(builder, secondOfDay / 60 % 60, 2)
+        builder.append(':')
+        appendPadded(builder, secondOfDay % 60, 2)
+        return builder.toString()
+    }
+
+    private fun appendPadded(builder: StringBuilder, value: Long, width: Int) {
+        var digits = 1
+        var remaining = value / 10
+        while (remaining > 0) {
+            digits++
+            remaining /= 10
+        }
+
+        for (i in digits until width) {
+            builder.append('0')
+        }
+        builder.append(value)
+    }
+
+    private fun appendPadded(builder: StringBuilder, value: Int, width: Int) {
+        appendPadded(builder, value.toLong(), width)
+    }
+}
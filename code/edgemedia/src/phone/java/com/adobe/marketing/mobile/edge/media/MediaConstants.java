@@ -90,6 +90,10 @@ public class MediaConstants {
         public static final String CHANNEL = "config.channel";
         public static final String AD_PING_INTERVAL = "config.adpinginterval";
         public static final String MAIN_PING_INTERVAL = "config.mainpinginterval";
+        public static final String COALESCE_PLAYHEAD = "config.coalesceplayhead";
+        public static final String DIRECT_DISPATCH = "config.directdispatch";
+        public static final String PERSIST_EVENTS = "config.persistevents";
+        public static final String CHECKPOINT_SESSION = "config.checkpointsession";
 
         private TrackerConfig() {}
     }
@@ -13,6 +13,7 @@ package com.adobe.marketing.mobile.edge.media;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import com.adobe.marketing.mobile.AdobeCallback;
 import java.util.Map;
 
 public interface MediaTracker {
@@ -79,4 +80,21 @@ public interface MediaTracker {
      *     the current UTC time in seconds otherwise.
      */
     void updateCurrentPlayhead(int time);
+
+    /**
+     * Method to track multiple tracking calls together. The tracking calls made on the provided
+     * tracker inside the callback are sent together and processed in the same order.
+     *
+     * <p>The callback must return quickly and must not block, the periodic tracking of the session
+     * is paused until it returns. Only the calls made on the calling thread are batched, calls
+     * made from other threads meanwhile are sent right away.
+     *
+     * <p>The default implementation makes the tracking calls one by one, without batching them.
+     *
+     * @param batch callback invoked synchronously with this tracker instance, in which the
+     *     tracking calls to be batched are made.
+     */
+    default void trackBatch(@NonNull AdobeCallback<MediaTracker> batch) {
+        batch.call(this);
+    }
 }
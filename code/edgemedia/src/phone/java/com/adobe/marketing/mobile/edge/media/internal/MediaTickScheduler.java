@@ -0,0 +1,79 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.media.internal;
+
+import androidx.annotation.NonNull;
+import com.adobe.marketing.mobile.services.Log;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide scheduler which drives the ticks of all active {@link MediaTrackerEventGenerator}
+ * instances from a single thread, so the number of threads stays constant regardless of how many
+ * trackers are alive. Trackers only schedule the next wakeup they need, see {@link
+ * MediaTrackerRegistry.DeadlineListener}.
+ */
+final class MediaTickScheduler {
+    private static final String SOURCE_TAG = "MediaTickScheduler";
+    private static final String THREAD_NAME = "EdgeMediaTickScheduler";
+
+    private static final MediaTickScheduler INSTANCE = new MediaTickScheduler();
+
+    private final ScheduledExecutorService executor;
+
+    private MediaTickScheduler() {
+        ThreadFactory threadFactory =
+                runnable -> {
+                    Thread thread = new Thread(runnable, THREAD_NAME);
+                    thread.setDaemon(true);
+                    return thread;
+                };
+
+        ScheduledThreadPoolExecutor scheduledExecutor =
+                new ScheduledThreadPoolExecutor(1, threadFactory);
+        // Cancelled ticks are removed right away so stopped trackers are not retained.
+        scheduledExecutor.setRemoveOnCancelPolicy(true);
+        executor = scheduledExecutor;
+    }
+
+    static MediaTickScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Schedules a one-shot tick task to be run on the shared scheduler thread after the given
+     * delay.
+     *
+     * @param tickTask the task to be run
+     * @param delayMs the delay in milliseconds after which the task is run
+     * @return the {@link ScheduledFuture} which can be used to cancel the task
+     */
+    ScheduledFuture<?> schedule(@NonNull final Runnable tickTask, final long delayMs) {
+        return executor.schedule(() -> runSafely(tickTask), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Failures are logged and swallowed so a misbehaving tracker cannot break the shared thread.
+    private void runSafely(final Runnable tickTask) {
+        try {
+            tickTask.run();
+        } catch (Exception e) {
+            Log.warning(
+                    MediaInternalConstants.LOG_TAG,
+                    SOURCE_TAG,
+                    "runSafely - Exception while running tick task: %s",
+                    e.getLocalizedMessage());
+        }
+    }
+}
@@ -19,47 +19,94 @@ import com.adobe.marketing.mobile.Event;
 import com.adobe.marketing.mobile.EventSource;
 import com.adobe.marketing.mobile.EventType;
 import com.adobe.marketing.mobile.edge.media.Media;
+import com.adobe.marketing.mobile.edge.media.MediaConstants;
 import com.adobe.marketing.mobile.edge.media.MediaTracker;
 import com.adobe.marketing.mobile.services.Log;
-import java.util.Calendar;
+import com.adobe.marketing.mobile.util.DataReader;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
 
 public class MediaTrackerEventGenerator implements MediaTracker {
     private static final String SOURCE_TAG = "MediaTrackerEventGenerator";
 
-    private static final int TICK_INTERVAL_MS = 750;
     private static final int EVENT_TIMEOUT_MS = 500;
     private final AdobeCallback<Event> eventConsumer;
     private final String trackerId;
+    private final boolean coalescePlayhead;
+    // Set in direct dispatch mode, where tracking calls bypass the event hub.
+    private final MediaTrackChannel trackChannel;
+    private final MediaClock clock;
     private String sessionId;
     private boolean inSession;
-    private Timer timer;
+    private ScheduledFuture<?> tickFuture;
+    // Incremented whenever the scheduled tick is cancelled, so a superseded tick does not run
+    private long tickSequence;
+    private boolean timerActive;
+    private long nextTickDeadlineTS = MediaTrackerRegistry.NO_DEADLINE;
     private long lastEventTS;
     private Map<String, Object> lastPlayheadParams;
 
-    @VisibleForTesting
-    interface TimestampSupplier {
-        long getCurrentTimestamp();
-    }
+    // Tracking calls collected by the batch running on the current thread, null when not batching.
+    private final ThreadLocal<List<Map<String, Object>>> batchEntries = new ThreadLocal<>();
+    // Number of batches running on any thread, ticks are skipped until they are dispatched.
+    private int activeBatchCount;
 
-    @VisibleForTesting
-    TimestampSupplier timestampSupplier = () -> Calendar.getInstance().getTimeInMillis();
+    // Latest playhead reported while coalescing, not yet sent to the internal tracker.
+    private boolean hasPendingPlayhead;
+    private int pendingPlayhead;
+    private long pendingPlayheadTS;
+
+    // Held by this instance as the registry only keeps a weak reference to it.
+    private final MediaTrackerRegistry.DeadlineListener deadlineListener = this::onNextDeadline;
 
     @VisibleForTesting
     MediaTrackerEventGenerator(final String trackerId, final AdobeCallback<Event> eventConsumer) {
+        this(trackerId, eventConsumer, false, false, MonotonicMediaClock.getInstance());
+    }
+
+    @VisibleForTesting
+    MediaTrackerEventGenerator(
+            final String trackerId,
+            final AdobeCallback<Event> eventConsumer,
+            final boolean coalescePlayhead,
+            final boolean directDispatch,
+            final MediaClock clock) {
         this.eventConsumer = eventConsumer;
         this.trackerId = trackerId;
+        this.coalescePlayhead = coalescePlayhead;
+        this.trackChannel = directDispatch ? new MediaTrackChannel() : null;
+        this.clock = clock;
         this.sessionId = getUniqueId();
         this.inSession = false;
+
+        if (trackerId != null) {
+            MediaTrackerRegistry.registerDeadlineListener(trackerId, deadlineListener);
+
+            if (trackChannel != null) {
+                MediaTrackerRegistry.registerTrackChannel(trackerId, trackChannel);
+            }
+        }
     }
 
     public static MediaTrackerEventGenerator create(
             final Map<String, Object> config, final AdobeCallback<Event> eventConsumer) {
         final String trackerId = getUniqueId();
+        final boolean coalescePlayhead =
+                DataReader.optBoolean(
+                        config, MediaConstants.TrackerConfig.COALESCE_PLAYHEAD, false);
+        final boolean directDispatch =
+                DataReader.optBoolean(config, MediaConstants.TrackerConfig.DIRECT_DISPATCH, false);
+        final MediaTrackerEventGenerator tracker =
+                new MediaTrackerEventGenerator(
+                        trackerId,
+                        eventConsumer,
+                        coalescePlayhead,
+                        directDispatch,
+                        MonotonicMediaClock.getInstance());
 
         Map<String, Object> eventData = new HashMap<>();
 
@@ -85,7 +132,7 @@ public class MediaTrackerEventGenerator implements MediaTracker {
 
         // We have sent a request to media extension to create a tracker.
         // We can now return MediaTrackerCore which sends all the tracker events to the event hub.
-        return new MediaTrackerEventGenerator(trackerId, eventConsumer);
+        return tracker;
     }
 
     private static synchronized String getUniqueId() {
@@ -128,6 +175,11 @@ public class MediaTrackerEventGenerator implements MediaTracker {
     }
 
     public void updateCurrentPlayhead(final int playheadValue) {
+        if (coalescePlayhead) {
+            setPendingPlayhead(playheadValue);
+            return;
+        }
+
         Map<String, Object> params = new HashMap<>();
         params.put(MediaInternalConstants.EventDataKeys.Tracker.PLAYHEAD, playheadValue);
         trackInternal(
@@ -139,6 +191,48 @@ public class MediaTrackerEventGenerator implements MediaTracker {
                 MediaInternalConstants.EventDataKeys.MediaEventName.QOE_UPDATE, qoeInfo, null);
     }
 
+    public void trackBatch(@NonNull final AdobeCallback<MediaTracker> batch) {
+        if (batchEntries.get() != null) {
+            // Nested batch, the calls are added to the enclosing batch.
+            batch.call(this);
+            return;
+        }
+
+        List<Map<String, Object>> entries = new ArrayList<>();
+        batchEntries.set(entries);
+        startBatch();
+
+        // The lock is not held while the callback runs, so it does not block the ticks or the
+        // tracking calls made from other threads.
+        try {
+            batch.call(this);
+        } finally {
+            batchEntries.remove();
+            endBatch(entries);
+        }
+    }
+
+    private synchronized void startBatch() {
+        activeBatchCount++;
+    }
+
+    private synchronized void endBatch(final List<Map<String, Object>> entries) {
+        activeBatchCount--;
+
+        if (!entries.isEmpty()) {
+            Map<String, Object> eventData = new HashMap<>();
+            eventData.put(MediaInternalConstants.EventDataKeys.Tracker.ID, trackerId);
+            eventData.put(MediaInternalConstants.EventDataKeys.Tracker.SESSION_ID, sessionId);
+            eventData.put(MediaInternalConstants.EventDataKeys.Tracker.EVENT_BATCH, entries);
+            dispatchTrackEvent(eventData);
+        }
+
+        if (activeBatchCount == 0) {
+            // Resume the ticks skipped while the batch was running.
+            scheduleTick();
+        }
+    }
+
     void trackInternal(final String eventName) {
         trackInternal(eventName, null, null, false);
     }
@@ -160,6 +254,17 @@ public class MediaTrackerEventGenerator implements MediaTracker {
             return;
         }
 
+        boolean attachPendingPlayhead = false;
+        if (hasPendingPlayhead) {
+            // A playhead reported before the session start is dropped, as it would be rejected.
+            attachPendingPlayhead =
+                    inSession
+                            && !eventName.equals(
+                                    MediaInternalConstants.EventDataKeys.MediaEventName
+                                            .SESSION_START);
+            hasPendingPlayhead = false;
+        }
+
         // Internal Tracker starts a new session only when we are not in an active session and we
         // follow the same.
         if (eventName.equals(MediaInternalConstants.EventDataKeys.MediaEventName.SESSION_START)
@@ -183,17 +288,65 @@ public class MediaTrackerEventGenerator implements MediaTracker {
         eventData.put(MediaInternalConstants.EventDataKeys.Tracker.EVENT_NAME, eventName);
         eventData.put(MediaInternalConstants.EventDataKeys.Tracker.EVENT_INTERNAL, internalEvent);
 
+        // The event hub copies the event data, while the direct dispatch channel only keeps
+        // references. Shallow copies guard against the caller modifying the maps afterwards.
         if (params != null) {
-            eventData.put(MediaInternalConstants.EventDataKeys.Tracker.EVENT_PARAM, params);
+            eventData.put(
+                    MediaInternalConstants.EventDataKeys.Tracker.EVENT_PARAM,
+                    trackChannel != null ? new HashMap<>(params) : params);
         }
 
         if (metadata != null) {
-            eventData.put(MediaInternalConstants.EventDataKeys.Tracker.EVENT_METADATA, metadata);
+            eventData.put(
+                    MediaInternalConstants.EventDataKeys.Tracker.EVENT_METADATA,
+                    trackChannel != null ? new HashMap<>(metadata) : metadata);
+        }
+
+        if (attachPendingPlayhead) {
+            eventData.put(
+                    MediaInternalConstants.EventDataKeys.Tracker.PENDING_PLAYHEAD, pendingPlayhead);
+            eventData.put(
+                    MediaInternalConstants.EventDataKeys.Tracker.PENDING_PLAYHEAD_TIMESTAMP,
+                    pendingPlayheadTS);
+            setLastPlayheadParams(pendingPlayhead);
         }
 
         long ts = getCurrentTimestamp();
         eventData.put(MediaInternalConstants.EventDataKeys.Tracker.EVENT_TIMESTAMP, ts);
 
+        lastEventTS = ts;
+
+        if (eventName.equals(MediaInternalConstants.EventDataKeys.MediaEventName.PLAYHEAD_UPDATE)
+                && params != null) {
+            lastPlayheadParams = new HashMap<>(params);
+        }
+
+        List<Map<String, Object>> entries = batchEntries.get();
+        if (entries != null) {
+            entries.add(eventData);
+            return;
+        }
+
+        dispatchTrackEvent(eventData);
+    }
+
+    private void dispatchTrackEvent(final Map<String, Object> eventData) {
+        if (trackChannel != null) {
+            // Every call is signaled, so it keeps its order relative to the other hub events.
+            long sequence = trackChannel.offer(eventData);
+
+            Map<String, Object> signalData = new HashMap<>();
+            signalData.put(MediaInternalConstants.EventDataKeys.Tracker.ID, trackerId);
+            signalData.put(MediaInternalConstants.EventDataKeys.Tracker.DIRECT_DISPATCH, true);
+            signalData.put(MediaInternalConstants.EventDataKeys.Tracker.SIGNAL_SEQUENCE, sequence);
+            dispatchEvent(signalData);
+            return;
+        }
+
+        dispatchEvent(eventData);
+    }
+
+    private void dispatchEvent(final Map<String, Object> eventData) {
         Event event =
                 new Event.Builder(
                                 "Edge Media TrackMedia",
@@ -202,24 +355,59 @@ public class MediaTrackerEventGenerator implements MediaTracker {
                         .setEventData(eventData)
                         .build();
 
-        lastEventTS = ts;
+        eventConsumer.call(event);
+    }
 
-        if (eventName.equals(MediaInternalConstants.EventDataKeys.MediaEventName.PLAYHEAD_UPDATE)
-                && params != null) {
-            lastPlayheadParams = new HashMap<>(params);
+    // Only keeps the latest playhead, which is sent on the next tick or along with the next event.
+    private synchronized void setPendingPlayhead(final int playheadValue) {
+        if (!inSession) {
+            return;
         }
 
-        eventConsumer.call(event);
+        pendingPlayhead = playheadValue;
+        pendingPlayheadTS = getCurrentTimestamp();
+        hasPendingPlayhead = true;
+    }
+
+    private void setLastPlayheadParams(final int playheadValue) {
+        Map<String, Object> params = new HashMap<>();
+        params.put(MediaInternalConstants.EventDataKeys.Tracker.PLAYHEAD, playheadValue);
+        lastPlayheadParams = params;
     }
 
     long getCurrentTimestamp() {
-        return timestampSupplier.getCurrentTimestamp();
+        return clock.getCurrentTimeMillis();
     }
 
     protected synchronized void tick() {
+        if (!timerActive) {
+            // The timer was stopped while this tick was running or waiting for the lock.
+            return;
+        }
+
+        if (activeBatchCount > 0) {
+            // A tick sent now would precede the calls of the batch, rescheduled once it ends.
+            return;
+        }
+
         long currentTS = getCurrentTimestamp();
 
-        if ((currentTS - lastEventTS) > EVENT_TIMEOUT_MS) {
+        if (currentTS < nextTickDeadlineTS) {
+            // Woke up before the deadline, wait for the remaining time.
+            scheduleTick();
+            return;
+        }
+
+        if (hasPendingPlayhead) {
+            // Publish the latest coalesced playhead, which also runs the time-based processing.
+            int playheadValue = pendingPlayhead;
+            hasPendingPlayhead = false;
+            setLastPlayheadParams(playheadValue);
+            trackInternal(
+                    MediaInternalConstants.EventDataKeys.MediaEventName.PLAYHEAD_UPDATE,
+                    lastPlayheadParams,
+                    null);
+        } else if ((currentTS - lastEventTS) > EVENT_TIMEOUT_MS) {
             // We have not got any public api call for 500 ms.
             // We manually send an event to keep our internal processing alive (idle tracking / ping
             // processing).
@@ -229,29 +417,82 @@ public class MediaTrackerEventGenerator implements MediaTracker {
                     null,
                     true);
         }
+
+        // Until the internal tracker reports the next deadline, check back once the event timeout
+        // has elapsed.
+        scheduleTick();
+    }
+
+    /**
+     * Called when the internal tracker reports the timestamp of the next time-based action due
+     * (ping, idle or session timeout, content start or end of preroll wait).
+     *
+     * @param deadlineTS the deadline timestamp in milliseconds, or {@link
+     *     MediaTrackerRegistry#NO_DEADLINE}
+     */
+    synchronized void onNextDeadline(final long deadlineTS) {
+        nextTickDeadlineTS = deadlineTS;
+
+        if (timerActive) {
+            scheduleTick();
+        }
     }
 
-    protected void startTimer() {
-        if (timer != null) {
+    protected synchronized void startTimer() {
+        if (timerActive) {
             return;
         }
 
-        TimerTask tickTask =
-                new TimerTask() {
-                    @Override
-                    public void run() {
-                        tick();
-                    }
-                };
+        timerActive = true;
+        scheduleTick();
+    }
+
+    protected synchronized void stopTimer() {
+        timerActive = false;
+        cancelTick();
+    }
+
+    // Schedules a single wakeup at the next deadline, no earlier than the event timeout after the
+    // last tracked event.
+    private void scheduleTick() {
+        cancelTick();
+
+        if (!timerActive || nextTickDeadlineTS == MediaTrackerRegistry.NO_DEADLINE) {
+            return;
+        }
+
+        long wakeupTS = Math.max(nextTickDeadlineTS, lastEventTS + EVENT_TIMEOUT_MS + 1);
+        long delayMs = Math.max(0, wakeupTS - getCurrentTimestamp());
+        final long sequence = tickSequence;
+        tickFuture = scheduleTickTask(() -> runScheduledTick(sequence), delayMs);
+    }
+
+    /**
+     * Schedules the tick task on the shared {@link MediaTickScheduler}.
+     *
+     * @param tickTask the task to be run
+     * @param delayMs the delay in milliseconds after which the task is run
+     * @return the {@link ScheduledFuture} of the task
+     */
+    protected ScheduledFuture<?> scheduleTickTask(final Runnable tickTask, final long delayMs) {
+        return MediaTickScheduler.getInstance().schedule(tickTask, delayMs);
+    }
+
+    private synchronized void runScheduledTick(final long sequence) {
+        if (sequence != tickSequence) {
+            // Cancelled or rescheduled while waiting for the lock.
+            return;
+        }
 
-        timer = new Timer();
-        timer.scheduleAtFixedRate(tickTask, 0, TICK_INTERVAL_MS);
+        tickFuture = null;
+        tick();
     }
 
-    protected void stopTimer() {
-        if (timer != null) {
-            timer.cancel();
-            timer = null;
+    private void cancelTick() {
+        tickSequence++;
+        if (tickFuture != null) {
+            tickFuture.cancel(false);
+            tickFuture = null;
         }
     }
 
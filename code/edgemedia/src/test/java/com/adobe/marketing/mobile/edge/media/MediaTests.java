@@ -213,4 +213,18 @@ public class MediaTests {
         Map<String, Object> invalidObject = Media.createStateObject(null);
         assertEquals(new HashMap<String, Object>(), invalidObject);
     }
+
+    @Test
+    public void test_trackBatch_defaultImplementationMakesTrackingCalls() {
+        MediaTracker tracker = Mockito.mock(MediaTracker.class, Answers.CALLS_REAL_METHODS);
+
+        tracker.trackBatch(
+                batchTracker -> {
+                    batchTracker.trackPlay();
+                    batchTracker.trackPause();
+                });
+
+        Mockito.verify(tracker).trackPlay();
+        Mockito.verify(tracker).trackPause();
+    }
 }
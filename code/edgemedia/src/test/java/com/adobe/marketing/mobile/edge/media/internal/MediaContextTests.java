@@ -117,6 +117,8 @@ public class MediaContextTests {
         assertFalse(mediaContext.isInChapter());
         assertNull(mediaContext.getChapterInfo());
         assertEquals(emptyMetadata, mediaContext.getChapterMetadata());
+        // the metadata passed in is not modified
+        assertEquals("v1", metadata.get("k1"));
     }
 
     @Test
@@ -357,4 +359,15 @@ public class MediaContextTests {
         ArrayList<StateInfo> active_states = mediaContext.getActiveTrackedStates();
         assertEquals(2, active_states.size());
     }
+
+    @Test
+    public void test_setQoEInfo_incrementsQoEVersion() {
+        long version = mediaContext.getQoEVersion();
+
+        mediaContext.setQoEInfo(QoEInfo.create(1, 2, 3, 4));
+        assertEquals(version + 1, mediaContext.getQoEVersion());
+
+        mediaContext.setQoEInfo(null);
+        assertEquals(version + 2, mediaContext.getQoEVersion());
+    }
 }
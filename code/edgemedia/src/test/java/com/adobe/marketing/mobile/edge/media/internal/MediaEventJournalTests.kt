@@ -0,0 +1,143 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.media.internal
+
+import com.adobe.marketing.mobile.edge.media.internal.xdm.XDMMediaCollection
+import com.adobe.marketing.mobile.edge.media.internal.xdm.XDMMediaEvent
+import com.adobe.marketing.mobile.edge.media.internal.xdm.XDMMediaEventType
+import com.adobe.marketing.mobile.edge.media.internal.xdm.XDMMediaSchema
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class MediaEventJournalTests {
+    private val testDataQueue = TestDataQueue()
+
+    @Test
+    fun `recover() returns the events left queued by the previous launch`() {
+        val previousJournal = MediaEventJournal { testDataQueue.dataQueue }
+        val sessionStart = getEvent(XDMMediaEventType.SESSION_START, 0, 1000L)
+        val play = getEvent(XDMMediaEventType.PLAY, 0, 2000L)
+        val ping = getEvent(XDMMediaEventType.PING, 10, 12000L)
+        previousJournal.append("session1", null, sessionStart)
+        previousJournal.append("session1", null, play)
+        previousJournal.remove("session1", sessionStart)
+        previousJournal.setBackendSessionId("session1", "backendSessionId")
+        previousJournal.append("session1", "backendSessionId", ping)
+
+        val recoveredSessions = MediaEventJournal { testDataQueue.dataQueue }.recover()
+
+        assertEquals(1, recoveredSessions.size)
+        val recoveredSession = recoveredSessions[0]
+        assertEquals("session1", recoveredSession.sessionId)
+        assertEquals("backendSessionId", recoveredSession.backendSessionId)
+        assertEquals(2, recoveredSession.events.size)
+        assertEquals(XDMMediaEventType.PLAY.value, recoveredSession.events[0].eventType)
+        assertEquals(2000L, recoveredSession.events[0].timestamp)
+        assertEquals(play.serializeToXDM(), recoveredSession.events[0].data)
+        assertEquals(XDMMediaEventType.PING.value, recoveredSession.events[1].eventType)
+        assertEquals(12000L, recoveredSession.events[1].timestamp)
+        assertTrue(testDataQueue.records.isEmpty())
+    }
+
+    @Test
+    fun `recover() returns sessions without backend session ID`() {
+        val previousJournal = MediaEventJournal { testDataQueue.dataQueue }
+        previousJournal.append("session1", null, getEvent(XDMMediaEventType.SESSION_START, 0, 1000L))
+
+        val recoveredSessions = MediaEventJournal { testDataQueue.dataQueue }.recover()
+
+        assertEquals(1, recoveredSessions.size)
+        assertNull(recoveredSessions[0].backendSessionId)
+    }
+
+    @Test
+    fun `recover() skips sessions of this launch and recovers only once`() {
+        val previousJournal = MediaEventJournal { testDataQueue.dataQueue }
+        previousJournal.append("session1", "backendSessionId1", getEvent(XDMMediaEventType.PLAY, 0, 1000L))
+
+        val journal = MediaEventJournal { testDataQueue.dataQueue }
+        val liveEvent = getEvent(XDMMediaEventType.PLAY, 0, 2000L)
+        journal.append("session2", "backendSessionId2", liveEvent)
+
+        val recoveredSessions = journal.recover()
+        assertEquals(1, recoveredSessions.size)
+        assertEquals("session1", recoveredSessions[0].sessionId)
+        assertTrue(journal.recover().isEmpty())
+
+        // The event of this launch is still journaled until removed
+        assertTrue(testDataQueue.records.isNotEmpty())
+        journal.remove("session2", liveEvent)
+        assertTrue(testDataQueue.records.isEmpty())
+    }
+
+    @Test
+    fun `remove() compacts the journal only after recovery`() {
+        val journal = MediaEventJournal { testDataQueue.dataQueue }
+        val play = getEvent(XDMMediaEventType.PLAY, 0, 1000L)
+        journal.append("session1", "backendSessionId", play)
+        journal.remove("session1", play)
+
+        assertEquals(2, testDataQueue.records.size)
+
+        journal.recover()
+        val pause = getEvent(XDMMediaEventType.PAUSE_START, 5, 6000L)
+        journal.append("session1", "backendSessionId", pause)
+        journal.remove("session1", pause)
+
+        assertTrue(testDataQueue.records.isEmpty())
+    }
+
+    @Test
+    fun `removeSession() removes all the events of the session with a single record`() {
+        val previousJournal = MediaEventJournal { testDataQueue.dataQueue }
+        previousJournal.append("session1", "backendSessionId1", getEvent(XDMMediaEventType.PLAY, 0, 1000L))
+        previousJournal.append("session1", "backendSessionId1", getEvent(XDMMediaEventType.PING, 10, 11000L))
+        previousJournal.append("session2", "backendSessionId2", getEvent(XDMMediaEventType.PLAY, 0, 2000L))
+        previousJournal.removeSession("session1")
+        previousJournal.removeSession("session1") // nothing left to remove
+
+        assertEquals(4, testDataQueue.records.size)
+
+        val recoveredSessions = MediaEventJournal { testDataQueue.dataQueue }.recover()
+        assertEquals(listOf("session2"), recoveredSessions.map { it.sessionId })
+    }
+
+    @Test
+    fun `removeSession() compacts the journal after recovery`() {
+        val journal = MediaEventJournal { testDataQueue.dataQueue }
+        journal.recover()
+        journal.append("session1", "backendSessionId", getEvent(XDMMediaEventType.PLAY, 0, 1000L))
+        journal.append("session1", "backendSessionId", getEvent(XDMMediaEventType.PING, 10, 11000L))
+
+        journal.removeSession("session1")
+
+        assertTrue(testDataQueue.records.isEmpty())
+    }
+
+    @Test
+    fun `journal does nothing when the data queue is unavailable`() {
+        val journal = MediaEventJournal { null }
+        val play = getEvent(XDMMediaEventType.PLAY, 0, 1000L)
+
+        journal.append("session1", null, play)
+        journal.setBackendSessionId("session1", "backendSessionId")
+        journal.remove("session1", play)
+
+        assertTrue(journal.recover().isEmpty())
+    }
+
+    private fun getEvent(eventType: XDMMediaEventType, playhead: Int, timestamp: Long): XDMMediaEvent {
+        return XDMMediaEvent(XDMMediaSchema(eventType, timestamp, XDMMediaCollection(playhead = playhead)))
+    }
+}
@@ -27,8 +27,11 @@ import org.junit.Test
 import org.mockito.ArgumentMatchers.eq
 import org.mockito.Mockito
 import org.mockito.Mockito.verify
-import java.util.Date
 import java.util.UUID
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.concurrent.thread
 
 class MediaEventProcessorTests {
     private var mockState: MediaState = Mockito.mock(MediaState::class.java)
@@ -47,8 +50,12 @@ class MediaEventProcessorTests {
         mediaSession1 = SpyMediaSession("testSession1", mockState, dispatcher)
         mediaSession2 = SpyMediaSession("testSession2", mockState, dispatcher)
 
-        mediaEventProcessor.mediaSessions["testSession1"] = mediaSession1
-        mediaEventProcessor.mediaSessions["testSession2"] = mediaSession2
+        mediaEventProcessor.addSession("testSession1", mediaSession1)
+        mediaEventProcessor.addSession("testSession2", mediaSession2)
+
+        // Simulates the dispatch of the sessionStart requests
+        mediaSession1.sessionStartListener?.invoke("123")
+        mediaSession2.sessionStartListener?.invoke("456")
     }
 
     @Test
@@ -112,7 +119,7 @@ class MediaEventProcessorTests {
         setTestSessionsToProcessor()
 
         // SpyMediaSession doesn't remove events from queue even when end() is called
-        mediaSession1.eventQueue.add(XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PLAY, Date(), XDMMediaCollection())))
+        mediaSession1.eventQueue.add(XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PLAY, System.currentTimeMillis(), XDMMediaCollection())))
 
         mediaEventProcessor.endSession("testSession1")
 
@@ -153,7 +160,7 @@ class MediaEventProcessorTests {
     @Test
     fun `processEvent() queues XDMMediaEvent for valid session ID`() {
         setTestSessionsToProcessor()
-        val event = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PLAY, Date(), XDMMediaCollection()))
+        val event = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PLAY, System.currentTimeMillis(), XDMMediaCollection()))
 
         mediaEventProcessor.processEvent("testSession1", event)
 
@@ -169,7 +176,7 @@ class MediaEventProcessorTests {
     @Test
     fun `processEvent() does not queue XDMMediaEvent for invalid session ID`() {
         setTestSessionsToProcessor()
-        val event = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PLAY, Date(), XDMMediaCollection()))
+        val event = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PLAY, System.currentTimeMillis(), XDMMediaCollection()))
 
         mediaEventProcessor.processEvent("invalidSessionId", event)
 
@@ -182,6 +189,35 @@ class MediaEventProcessorTests {
         assertNull(mediaSession2.handleQueueEventParamXDMMediaEvent)
     }
 
+    @Test
+    fun `processEvent() does not wait for the dispatch of another session`() {
+        Mockito.`when`(mockState.isValid).thenReturn(true)
+        val firstDispatchStarted = CountDownLatch(1)
+        val releaseFirstDispatch = CountDownLatch(1)
+        val dispatchCount = AtomicInteger(0)
+        val blockingDispatcher: (Event) -> Unit = {
+            if (dispatchCount.getAndIncrement() == 0) {
+                firstDispatchStarted.countDown()
+                releaseFirstDispatch.await(5, TimeUnit.SECONDS)
+            }
+        }
+        val processor = MediaEventProcessor(mockState, blockingDispatcher)
+        val sessionId1 = processor.createSession()
+        val sessionId2 = processor.createSession()
+
+        val blockedThread = thread {
+            processor.processEvent(sessionId1, XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.SESSION_START, 0, XDMMediaCollection())))
+        }
+        assertTrue(firstDispatchStarted.await(5, TimeUnit.SECONDS))
+
+        // Dispatched while the first session is still dispatching
+        processor.processEvent(sessionId2, XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.SESSION_START, 0, XDMMediaCollection())))
+        assertEquals(2, dispatchCount.get())
+
+        releaseFirstDispatch.countDown()
+        blockedThread.join()
+    }
+
     @Test
     fun `abortAllSessions() calls abort on all sessions`() {
         setTestSessionsToProcessor()
@@ -193,7 +229,7 @@ class MediaEventProcessorTests {
     }
 
     @Test
-    fun `notifyBackendSessionId() calls handleSessionUpdate on all sessions`() {
+    fun `notifyBackendSessionId() calls handleSessionUpdate on session with matching request event id`() {
         setTestSessionsToProcessor()
         mediaEventProcessor.notifyBackendSessionId("123", "backendSessionId")
 
@@ -201,10 +237,18 @@ class MediaEventProcessorTests {
         assertEquals("123", mediaSession1.handleSessionUpdateParamRequestEventId)
         assertEquals("backendSessionId", mediaSession1.handleSessionUpdateParamBackendSessionId)
 
-        assertTrue(mediaSession2.handleSessionUpdateCalled)
-        assertEquals("123", mediaSession2.handleSessionUpdateParamRequestEventId)
-        assertEquals("backendSessionId", mediaSession2.handleSessionUpdateParamBackendSessionId)
+        assertFalse(mediaSession2.handleSessionUpdateCalled)
+
+        assertEquals(2, mediaEventProcessor.mediaSessions.size)
+    }
+
+    @Test
+    fun `notifyBackendSessionId() with unknown request event id does not call handleSessionUpdate`() {
+        setTestSessionsToProcessor()
+        mediaEventProcessor.notifyBackendSessionId("789", "backendSessionId")
 
+        assertFalse(mediaSession1.handleSessionUpdateCalled)
+        assertFalse(mediaSession2.handleSessionUpdateCalled)
         assertEquals(2, mediaEventProcessor.mediaSessions.size)
     }
 
@@ -220,20 +264,18 @@ class MediaEventProcessorTests {
     }
 
     @Test
-    fun `notifyErrorResponse() calls handleErrorResponse for all sessions`() {
+    fun `notifyErrorResponse() calls handleErrorResponse on session with matching request event id`() {
         setTestSessionsToProcessor()
         val errorHandle = mapOf(
             "status" to 400L,
             "type" to "https://ns.adobe.com/aep/errors/va-edge-0400-400"
         )
-        mediaEventProcessor.notifyErrorResponse("123", errorHandle)
+        mediaEventProcessor.notifyErrorResponse("456", errorHandle)
 
-        assertTrue(mediaSession1.handleErrorResponseCalled)
-        assertEquals("123", mediaSession1.handleErrorResponseParamRequestEventId)
-        assertEquals(errorHandle, mediaSession1.handleErrorResponseParamData)
+        assertFalse(mediaSession1.handleErrorResponseCalled)
 
         assertTrue(mediaSession2.handleErrorResponseCalled)
-        assertEquals("123", mediaSession2.handleErrorResponseParamRequestEventId)
+        assertEquals("456", mediaSession2.handleErrorResponseParamRequestEventId)
         assertEquals(errorHandle, mediaSession2.handleErrorResponseParamData)
 
         assertEquals(2, mediaEventProcessor.mediaSessions.size)
@@ -271,6 +313,20 @@ class MediaEventProcessorTests {
         assertEquals(2, mediaEventProcessor.mediaSessions.size)
     }
 
+    @Test
+    fun `updateMediaState() removes ended sessions without queued events`() {
+        setTestSessionsToProcessor()
+        mediaSession1.isSessionActive = false
+        mediaEventProcessor.updateMediaState(mapOf("edgeMedia.channel" to "testChannel"))
+
+        assertEquals(1, mediaEventProcessor.mediaSessions.size)
+        assertTrue(mediaEventProcessor.mediaSessions.containsValue(mediaSession2))
+
+        // Index entry of the removed session is removed as well
+        mediaEventProcessor.notifyBackendSessionId("123", "backendSessionId")
+        assertFalse(mediaSession1.handleSessionUpdateCalled)
+    }
+
     @Test
     fun `updateMediaState() updates MediaState`() {
         setTestSessionsToProcessor()
@@ -282,4 +338,119 @@ class MediaEventProcessorTests {
         mediaEventProcessor.updateMediaState(stateUpdate)
         verify(mockState).updateState(eq(stateUpdate))
     }
+
+    @Test
+    fun `createPersistentSession() creates a MediaRealTimeSession without journal`() {
+        val sessionId = mediaEventProcessor.createPersistentSession()
+
+        assertTrue(mediaEventProcessor.mediaSessions[sessionId] is MediaRealTimeSession)
+    }
+
+    @Test
+    fun `recoverPersistedSessions() sends the recovered events and ends the session`() {
+        val testDataQueue = TestDataQueue()
+        val previousJournal = MediaEventJournal { testDataQueue.dataQueue }
+        previousJournal.append("session1", "backendSessionId", getEvent(XDMMediaEventType.PLAY, 0, 1000L))
+        previousJournal.append("session1", "backendSessionId", getEvent(XDMMediaEventType.PING, 10, 11000L))
+        previousJournal.append("session2", null, getEvent(XDMMediaEventType.SESSION_START, 0, 1000L))
+
+        val dispatchedEvents = ArrayList<Event>()
+        mediaEventProcessor = MediaEventProcessor(mockState, { dispatchedEvents.add(it) }, MediaEventJournal { testDataQueue.dataQueue })
+        mediaEventProcessor.recoverPersistedSessions()
+
+        // Events of session2 are dropped as its backend session ID is unknown
+        assertEquals(3, dispatchedEvents.size)
+        assertEquals(XDMMediaEventType.PLAY.edgeEventName, dispatchedEvents[0].name)
+        assertEquals(XDMMediaEventType.PING.edgeEventName, dispatchedEvents[1].name)
+        assertEquals(XDMMediaEventType.SESSION_END.edgeEventName, dispatchedEvents[2].name)
+        for (event in dispatchedEvents) {
+            assertEquals("backendSessionId", getMediaCollection(event)["sessionID"])
+        }
+        assertEquals(10, getMediaCollection(dispatchedEvents[2])["playhead"])
+
+        // Recovered only once
+        mediaEventProcessor.recoverPersistedSessions()
+        assertEquals(3, dispatchedEvents.size)
+    }
+
+    @Test
+    fun `recoverPersistedSessions() does not end sessions already ended`() {
+        val testDataQueue = TestDataQueue()
+        val previousJournal = MediaEventJournal { testDataQueue.dataQueue }
+        previousJournal.append("session1", "backendSessionId", getEvent(XDMMediaEventType.SESSION_COMPLETE, 20, 1000L))
+
+        val dispatchedEvents = ArrayList<Event>()
+        mediaEventProcessor = MediaEventProcessor(mockState, { dispatchedEvents.add(it) }, MediaEventJournal { testDataQueue.dataQueue })
+        mediaEventProcessor.recoverPersistedSessions()
+
+        assertEquals(1, dispatchedEvents.size)
+        assertEquals(XDMMediaEventType.SESSION_COMPLETE.edgeEventName, dispatchedEvents[0].name)
+    }
+
+    @Test
+    fun `closeOrphanedSessions() ends the sessions left open by the previous launch`() {
+        val testNamedCollection = TestNamedCollection()
+        val previousStore = MediaLiveSessionStore { testNamedCollection.namedCollection }
+        previousStore.add("backendSessionId1", 11000L, 10, false)
+        previousStore.add("backendSessionId2", 2000L, 0, true)
+
+        val dispatchedEvents = ArrayList<Event>()
+        val testDataQueue = TestDataQueue()
+        mediaEventProcessor = MediaEventProcessor(
+            mockState,
+            { dispatchedEvents.add(it) },
+            MediaEventJournal { testDataQueue.dataQueue },
+            MediaLiveSessionStore { testNamedCollection.namedCollection }
+        )
+        mediaEventProcessor.closeOrphanedSessions()
+
+        // The journaled session is ended by recoverPersistedSessions
+        assertEquals(1, dispatchedEvents.size)
+        assertEquals(XDMMediaEventType.SESSION_END.edgeEventName, dispatchedEvents[0].name)
+        assertEquals("backendSessionId1", getMediaCollection(dispatchedEvents[0])["sessionID"])
+        assertEquals(10, getMediaCollection(dispatchedEvents[0])["playhead"])
+
+        mediaEventProcessor.closeOrphanedSessions()
+        assertEquals(1, dispatchedEvents.size)
+    }
+
+    @Test
+    fun `recoverPersistedSessions() ends journaled orphaned sessions once`() {
+        val testNamedCollection = TestNamedCollection()
+        val previousStore = MediaLiveSessionStore { testNamedCollection.namedCollection }
+        previousStore.add("backendSessionId1", 1000L, 0, true)
+        previousStore.add("backendSessionId2", 2000L, 20, true)
+        val testDataQueue = TestDataQueue()
+        val previousJournal = MediaEventJournal { testDataQueue.dataQueue }
+        previousJournal.append("session1", "backendSessionId1", getEvent(XDMMediaEventType.PING, 10, 11000L))
+
+        val dispatchedEvents = ArrayList<Event>()
+        mediaEventProcessor = MediaEventProcessor(
+            mockState,
+            { dispatchedEvents.add(it) },
+            MediaEventJournal { testDataQueue.dataQueue },
+            MediaLiveSessionStore { testNamedCollection.namedCollection }
+        )
+        mediaEventProcessor.recoverPersistedSessions()
+        mediaEventProcessor.recoverPersistedSessions()
+
+        assertEquals(
+            listOf(
+                XDMMediaEventType.SESSION_END to "backendSessionId2",
+                XDMMediaEventType.PING to "backendSessionId1",
+                XDMMediaEventType.SESSION_END to "backendSessionId1"
+            ).map { it.first.edgeEventName to it.second },
+            dispatchedEvents.map { it.name to getMediaCollection(it)["sessionID"] }
+        )
+        assertTrue(testNamedCollection.values.isEmpty())
+    }
+
+    private fun getEvent(eventType: XDMMediaEventType, playhead: Int, timestamp: Long): XDMMediaEvent {
+        return XDMMediaEvent(XDMMediaSchema(eventType, timestamp, XDMMediaCollection(playhead = playhead)))
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    private fun getMediaCollection(event: Event): Map<String, Any?> {
+        return (event.eventData["xdm"] as Map<String, Any?>)["mediaCollection"] as Map<String, Any?>
+    }
 }
@@ -0,0 +1,200 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.media.internal
+
+import com.adobe.marketing.mobile.edge.media.internal.xdm.XDMMediaCollection
+import com.adobe.marketing.mobile.edge.media.internal.xdm.XDMMediaEvent
+import com.adobe.marketing.mobile.edge.media.internal.xdm.XDMMediaEventType
+import com.adobe.marketing.mobile.edge.media.internal.xdm.XDMMediaSchema
+import com.adobe.marketing.mobile.edge.media.internal.xdm.XDMQoeDataDetails
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class MediaEventQueueTests {
+
+    @Test
+    fun `add and removeFirst keep the event order across the ring buffer end`() {
+        val queue = MediaEventQueue(3)
+        val events = (0 until 6).map { getEvent(XDMMediaEventType.PLAY, it) }
+
+        queue.add(events[0])
+        queue.add(events[1])
+        assertSame(events[0], queue.removeFirst())
+        queue.add(events[2])
+        queue.add(events[3])
+        assertSame(events[1], queue.removeFirst())
+        queue.add(events[4])
+
+        assertEquals(3, queue.size)
+        assertSame(events[2], queue[0])
+        assertSame(events[3], queue[1])
+        assertSame(events[4], queue[2])
+        assertSame(events[2], queue.first())
+    }
+
+    @Test
+    fun `add when full merges ping into queued ping`() {
+        val queue = MediaEventQueue(2)
+        val qoe = XDMQoeDataDetails(bitrate = 1000)
+        val firstPing = getEvent(XDMMediaEventType.PING, 10)
+        firstPing.xdmData.mediaCollection.qoeDataDetails = qoe
+        val secondPing = getEvent(XDMMediaEventType.PING, 20)
+
+        queue.add(getEvent(XDMMediaEventType.SESSION_START, 0))
+        queue.add(firstPing)
+
+        assertFalse(queue.add(secondPing))
+        assertEquals(2, queue.size)
+        assertSame(secondPing, queue[1])
+        assertEquals(20, queue[1].xdmData.mediaCollection.playhead)
+        assertSame(qoe, queue[1].xdmData.mediaCollection.qoeDataDetails)
+        assertEquals(1, queue.mergedCount)
+        assertEquals(0, queue.droppedCount)
+    }
+
+    @Test
+    fun `add when full drops oldest queued ping`() {
+        val queue = MediaEventQueue(3)
+        val sessionStart = getEvent(XDMMediaEventType.SESSION_START, 0)
+        val pause = getEvent(XDMMediaEventType.PAUSE_START, 20)
+        val play = getEvent(XDMMediaEventType.PLAY, 30)
+
+        queue.add(sessionStart)
+        queue.add(getEvent(XDMMediaEventType.PING, 10))
+        queue.add(pause)
+
+        assertTrue(queue.add(play))
+        assertEquals(3, queue.size)
+        assertSame(sessionStart, queue[0])
+        assertSame(pause, queue[1])
+        assertSame(play, queue[2])
+        assertEquals(1, queue.droppedCount)
+    }
+
+    @Test
+    fun `add when full without pings drops unprotected event`() {
+        val queue = MediaEventQueue(2)
+        queue.add(getEvent(XDMMediaEventType.SESSION_START, 0))
+        queue.add(getEvent(XDMMediaEventType.PLAY, 0))
+
+        assertFalse(queue.add(getEvent(XDMMediaEventType.PAUSE_START, 10)))
+        assertFalse(queue.add(getEvent(XDMMediaEventType.PING, 10)))
+        assertEquals(2, queue.size)
+        assertEquals(2, queue.droppedCount)
+    }
+
+    @Test
+    fun `add when full never drops protected events`() {
+        val queue = MediaEventQueue(2)
+        val protectedTypes = listOf(
+            XDMMediaEventType.SESSION_START,
+            XDMMediaEventType.AD_BREAK_START,
+            XDMMediaEventType.AD_START,
+            XDMMediaEventType.AD_SKIP,
+            XDMMediaEventType.AD_COMPLETE,
+            XDMMediaEventType.AD_BREAK_COMPLETE,
+            XDMMediaEventType.CHAPTER_START,
+            XDMMediaEventType.CHAPTER_SKIP,
+            XDMMediaEventType.CHAPTER_COMPLETE,
+            XDMMediaEventType.SESSION_COMPLETE,
+            XDMMediaEventType.SESSION_END
+        )
+
+        for (type in protectedTypes) {
+            assertTrue(queue.add(getEvent(type, 0)))
+        }
+
+        assertEquals(protectedTypes.size, queue.size)
+        assertEquals(0, queue.droppedCount)
+        for (i in protectedTypes.indices) {
+            assertEquals(protectedTypes[i], queue.removeFirst().xdmData.eventType)
+        }
+        assertTrue(queue.isEmpty())
+    }
+
+    @Test
+    fun `mergeIntoLastPing merges only pings following a queued ping`() {
+        val queue = MediaEventQueue()
+        val firstPing = getEvent(XDMMediaEventType.PING, 10)
+        val secondPing = getEvent(XDMMediaEventType.PING, 20)
+
+        assertFalse(queue.mergeIntoLastPing(firstPing))
+        queue.add(firstPing)
+        assertFalse(queue.mergeIntoLastPing(getEvent(XDMMediaEventType.PLAY, 15)))
+        assertTrue(queue.mergeIntoLastPing(secondPing))
+
+        assertEquals(1, queue.size)
+        assertSame(secondPing, queue.first())
+        assertEquals(1, queue.mergedCount)
+
+        queue.add(getEvent(XDMMediaEventType.PAUSE_START, 25))
+        assertFalse(queue.mergeIntoLastPing(getEvent(XDMMediaEventType.PING, 30)))
+    }
+
+    @Test
+    fun `clear removes all events`() {
+        val queue = MediaEventQueue(2)
+        queue.add(getEvent(XDMMediaEventType.SESSION_START, 0))
+        queue.add(getEvent(XDMMediaEventType.PLAY, 0))
+
+        queue.clear()
+
+        assertTrue(queue.isEmpty())
+        assertEquals(0, queue.size)
+    }
+
+    @Test
+    fun `listener is notified of queued, removed and cleared events`() {
+        val queue = MediaEventQueue(2)
+        val queuedEvents = ArrayList<XDMMediaEvent>()
+        var clearedCount = 0
+        queue.listener = object : MediaEventQueue.Listener {
+            override fun onEventQueued(event: XDMMediaEvent) {
+                queuedEvents.add(event)
+            }
+
+            override fun onEventRemoved(event: XDMMediaEvent) {
+                assertTrue(queuedEvents.remove(event))
+            }
+
+            override fun onQueueCleared() {
+                queuedEvents.clear()
+                clearedCount++
+            }
+        }
+
+        val sessionStart = getEvent(XDMMediaEventType.SESSION_START, 0)
+        val secondPing = getEvent(XDMMediaEventType.PING, 20)
+        queue.add(sessionStart)
+        queue.add(getEvent(XDMMediaEventType.PING, 10))
+        queue.add(secondPing) // merged
+        assertEquals(listOf(sessionStart, secondPing), queuedEvents)
+
+        val play = getEvent(XDMMediaEventType.PLAY, 30)
+        queue.add(play) // drops the ping
+        assertEquals(listOf(sessionStart, play), queuedEvents)
+
+        queue.removeFirst()
+        assertEquals(listOf(play), queuedEvents)
+
+        queue.clear()
+        assertTrue(queuedEvents.isEmpty())
+        assertEquals(1, clearedCount)
+    }
+
+    private fun getEvent(eventType: XDMMediaEventType, playhead: Int): XDMMediaEvent {
+        return XDMMediaEvent(XDMMediaSchema(eventType, 0, XDMMediaCollection(playhead = playhead)))
+    }
+}
@@ -23,11 +23,14 @@ import static org.mockito.Mockito.verify;
 import com.adobe.marketing.mobile.AdobeCallback;
 import com.adobe.marketing.mobile.Event;
 import com.adobe.marketing.mobile.edge.media.Media;
+import com.adobe.marketing.mobile.edge.media.MediaConstants;
 import com.adobe.marketing.mobile.edge.media.internal.xdm.XDMMediaEvent;
+import com.adobe.marketing.mobile.edge.media.internal.xdm.XDMMediaEventType;
 import com.adobe.marketing.mobile.util.CloneFailedException;
 import com.adobe.marketing.mobile.util.DataReader;
 import com.adobe.marketing.mobile.util.EventDataUtils;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -1587,9 +1590,9 @@ public class MediaEventTrackerTests {
 
         assertFalse(tracker.isTrackerIdle());
 
-        Map<String, Object> context = new HashMap<>();
-        context.put(KEY_INFO, state1.toObjectMap());
-        assertTrue(tracker.isInTrackedState.call(null, context));
+        MediaRuleContext context = new MediaRuleContext();
+        context.setInfo(state1.toObjectMap());
+        assertTrue(tracker.isInTrackedState(null, context));
     }
 
     // Preroll tests
@@ -1702,71 +1705,76 @@ public class MediaEventTrackerTests {
 
     @Test
     public void test_preroll_reorderNoAdBreak() {
-        PrerollQueuedRule queuedRule1 =
-                new PrerollQueuedRule(MediaRuleName.Play.ordinal(), new HashMap<>());
-        PrerollQueuedRule queuedRule2 =
-                new PrerollQueuedRule(MediaRuleName.Pause.ordinal(), new HashMap<>());
-        PrerollQueuedRule queuedRule3 =
-                new PrerollQueuedRule(MediaRuleName.ChapterStart.ordinal(), new HashMap<>());
-
-        List<PrerollQueuedRule> queuedRules = new ArrayList<>();
-        queuedRules.add(queuedRule1);
-        queuedRules.add(queuedRule2);
-        queuedRules.add(queuedRule3);
+        MediaPrerollBuffer prerollBuffer = new MediaPrerollBuffer();
+        prerollBuffer.add(MediaRuleName.Play.ordinal(), new MediaRuleContext());
+        prerollBuffer.add(MediaRuleName.ChapterStart.ordinal(), new MediaRuleContext());
+        prerollBuffer.add(MediaRuleName.Pause.ordinal(), new MediaRuleContext());
 
-        List<PrerollQueuedRule> actualReorderedPrerollRules =
-                tracker.reorderPrerollRules(queuedRules);
+        prerollBuffer.reorder();
 
-        assertEquals(queuedRules, actualReorderedPrerollRules);
+        assertEquals(
+                Arrays.asList(
+                        MediaRuleName.Play.ordinal(),
+                        MediaRuleName.ChapterStart.ordinal(),
+                        MediaRuleName.Pause.ordinal()),
+                getRuleNames(prerollBuffer.getRules()));
     }
 
     @Test
     public void test_preroll_reorderNoPlay() {
-        PrerollQueuedRule queuedRule1 =
-                new PrerollQueuedRule(MediaRuleName.Pause.ordinal(), new HashMap<>());
-        PrerollQueuedRule queuedRule2 =
-                new PrerollQueuedRule(MediaRuleName.AdBreakStart.ordinal(), new HashMap<>());
-        PrerollQueuedRule queuedRule3 =
-                new PrerollQueuedRule(MediaRuleName.AdStart.ordinal(), new HashMap<>());
-
-        List<PrerollQueuedRule> queuedRules = new ArrayList<>();
-        queuedRules.add(queuedRule1);
-        queuedRules.add(queuedRule2);
-        queuedRules.add(queuedRule3);
+        MediaPrerollBuffer prerollBuffer = new MediaPrerollBuffer();
+        prerollBuffer.add(MediaRuleName.Pause.ordinal(), new MediaRuleContext());
+        prerollBuffer.add(MediaRuleName.AdBreakStart.ordinal(), new MediaRuleContext());
+        prerollBuffer.add(MediaRuleName.AdStart.ordinal(), new MediaRuleContext());
 
-        List<PrerollQueuedRule> actualReorderedPrerollRules =
-                tracker.reorderPrerollRules(queuedRules);
+        prerollBuffer.reorder();
 
-        assertEquals(queuedRules, actualReorderedPrerollRules);
+        assertEquals(
+                Arrays.asList(
+                        MediaRuleName.Pause.ordinal(),
+                        MediaRuleName.AdBreakStart.ordinal(),
+                        MediaRuleName.AdStart.ordinal()),
+                getRuleNames(prerollBuffer.getRules()));
     }
 
     @Test
     public void test_preroll_reorderPlayBeforeAdBreak() {
-        PrerollQueuedRule queuedRule1 =
-                new PrerollQueuedRule(MediaRuleName.Play.ordinal(), new HashMap<>());
-        PrerollQueuedRule queuedRule2 =
-                new PrerollQueuedRule(MediaRuleName.AdBreakStart.ordinal(), new HashMap<>());
-        PrerollQueuedRule queuedRule3 =
-                new PrerollQueuedRule(MediaRuleName.AdStart.ordinal(), new HashMap<>());
+        MediaPrerollBuffer prerollBuffer = new MediaPrerollBuffer();
+        prerollBuffer.add(MediaRuleName.Play.ordinal(), new MediaRuleContext());
+        prerollBuffer.add(MediaRuleName.AdBreakStart.ordinal(), new MediaRuleContext());
+        prerollBuffer.add(MediaRuleName.AdStart.ordinal(), new MediaRuleContext());
 
-        List<PrerollQueuedRule> queuedRules = new ArrayList<>();
-        queuedRules.add(queuedRule1);
-        queuedRules.add(queuedRule2);
-        queuedRules.add(queuedRule3);
+        prerollBuffer.reorder();
 
-        PrerollQueuedRule expectedQueuedRule1 =
-                new PrerollQueuedRule(MediaRuleName.AdBreakStart.ordinal(), new HashMap<>());
-        PrerollQueuedRule expectedQueuedRule2 =
-                new PrerollQueuedRule(MediaRuleName.AdStart.ordinal(), new HashMap<>());
+        assertEquals(
+                Arrays.asList(
+                        MediaRuleName.AdBreakStart.ordinal(), MediaRuleName.AdStart.ordinal()),
+                getRuleNames(prerollBuffer.getRules()));
+    }
 
-        List<PrerollQueuedRule> expectedQueuedRules = new ArrayList<>();
-        expectedQueuedRules.add(expectedQueuedRule1);
-        expectedQueuedRules.add(expectedQueuedRule2);
+    @Test
+    public void test_preroll_bufferFull_endsPrerollInterval() {
+        testableMediaTrackerEventGenerator.trackSessionStart(
+                mediaInfoDefaultPreroll.toObjectMap(), metadata);
+        trackerHandleAPI();
+        assertTrue(tracker.isInPrerollInterval());
 
-        List<PrerollQueuedRule> actualReorderedPrerollRules =
-                tracker.reorderPrerollRules(queuedRules);
+        for (int i = 0; i < MediaPrerollBuffer.DEFAULT_CAPACITY; i++) {
+            assertTrue(tracker.isInPrerollInterval());
+            testableMediaTrackerEventGenerator.trackEvent(
+                    Media.Event.BitrateChange, emptyParams, emptyMetadata);
+            trackerHandleAPI();
+        }
 
-        assertEquals(expectedQueuedRules, actualReorderedPrerollRules);
+        assertFalse(tracker.isInPrerollInterval());
+    }
+
+    private List<Integer> getRuleNames(final List<PrerollQueuedRule> rules) {
+        List<Integer> ruleNames = new ArrayList<>();
+        for (PrerollQueuedRule rule : rules) {
+            ruleNames.add(rule.getRuleName());
+        }
+        return ruleNames;
     }
 
     @Test
@@ -2047,4 +2055,322 @@ public class MediaEventTrackerTests {
 
         assertEquals(2, mockSessionMap.size());
     }
+
+    @Test
+    public void test_sharedRules_trackerStateIsIsolated() {
+        MediaEventTracker otherTracker =
+                new MediaEventTracker(mockEventProcessor, new HashMap<String, Object>());
+
+        testableMediaTrackerEventGenerator.trackSessionStart(mediaInfo.toObjectMap(), metadata);
+        assertTrue(trackerHandleAPI());
+
+        testableMediaTrackerEventGenerator.trackPlay();
+        Event playEvent = getLastGeneratedEvent();
+
+        // the rules are shared but each tracker has its own media session state
+        assertFalse(otherTracker.track(playEvent));
+        assertTrue(trackerHandleAPI(playEvent));
+    }
+
+    @Test
+    public void test_processPlayheadFastPath_onlyBeforeNextDeadline() {
+        long startTS = System.currentTimeMillis();
+        MediaRuleContext context = new MediaRuleContext(tracker);
+        context.setEventTS(startTS);
+        context.setPlayhead(1);
+
+        // no session
+        assertFalse(tracker.processPlayheadFastPath(context));
+
+        testableMediaTrackerEventGenerator.setCurrentTimestamp(startTS);
+        testableMediaTrackerEventGenerator.trackSessionStart(mediaInfo.toObjectMap(), metadata);
+        trackerHandleAPI();
+        testableMediaTrackerEventGenerator.trackPlay();
+        trackerHandleAPI();
+
+        context.setEventTS(startTS + 500);
+        assertTrue(tracker.processPlayheadFastPath(context));
+
+        // content start detection is due
+        context.setEventTS(startTS + 1000);
+        assertFalse(tracker.processPlayheadFastPath(context));
+    }
+
+    @Test
+    public void test_playheadUpdate_fastPathKeepsGeneratedEvents() {
+        long startTS = System.currentTimeMillis();
+        testableMediaTrackerEventGenerator.setCurrentTimestamp(startTS);
+        testableMediaTrackerEventGenerator.trackSessionStart(mediaInfo.toObjectMap(), metadata);
+        trackerHandleAPI();
+        testableMediaTrackerEventGenerator.trackPlay();
+        trackerHandleAPI();
+        List<XDMMediaEvent> sessionEvents = mockSessionMap.get("1");
+        int eventCount = sessionEvents.size();
+
+        // updates within the first second only move the playhead
+        for (int i = 1; i < 4; i++) {
+            testableMediaTrackerEventGenerator.incrementCurrentTimestamp(250);
+            testableMediaTrackerEventGenerator.updateCurrentPlayhead(i);
+            assertTrue(trackerHandleAPI());
+        }
+        assertEquals(eventCount, sessionEvents.size());
+
+        // content start is sent once its deadline has passed
+        testableMediaTrackerEventGenerator.incrementCurrentTimestamp(250);
+        testableMediaTrackerEventGenerator.updateCurrentPlayhead(4);
+        assertTrue(trackerHandleAPI());
+        assertEquals(eventCount + 1, sessionEvents.size());
+        assertEquals(
+                XDMMediaEventType.PLAY,
+                sessionEvents.get(eventCount).getXdmData().getEventType());
+    }
+
+    @Test
+    public void test_getNextDeadlineTS_noSession() {
+        assertEquals(MediaTrackerRegistry.NO_DEADLINE, tracker.getNextDeadlineTS());
+    }
+
+    @Test
+    public void test_getNextDeadlineTS_contentStartThenPing() {
+        long startTS = System.currentTimeMillis();
+        testableMediaTrackerEventGenerator.setCurrentTimestamp(startTS);
+        testableMediaTrackerEventGenerator.trackSessionStart(mediaInfo.toObjectMap(), metadata);
+        trackerHandleAPI();
+
+        testableMediaTrackerEventGenerator.trackPlay();
+        trackerHandleAPI();
+
+        // content start is detected one second after main content starts playing
+        assertEquals(startTS + 1000, tracker.getNextDeadlineTS());
+
+        testableMediaTrackerEventGenerator.incrementCurrentTimestamp(1000);
+        testableMediaTrackerEventGenerator.updateCurrentPlayhead(1);
+        trackerHandleAPI();
+
+        // next ping is sent after the default realtime ping interval
+        assertEquals(
+                startTS + 1000 + MediaInternalConstants.PingInterval.REALTIME_TRACKING_MS,
+                tracker.getNextDeadlineTS());
+    }
+
+    @Test
+    public void test_getNextDeadlineTS_idleTrackerAndSessionEnd() {
+        testableMediaTrackerEventGenerator.setCurrentTimestamp(System.currentTimeMillis());
+        testableMediaTrackerEventGenerator.trackSessionStart(mediaInfo.toObjectMap(), metadata);
+        trackerHandleAPI();
+
+        testableMediaTrackerEventGenerator.trackPause();
+        trackerHandleAPI();
+
+        testableMediaTrackerEventGenerator.incrementCurrentTimestamp(TimeUnit.HOURS.toMillis(1));
+        testableMediaTrackerEventGenerator.updateCurrentPlayhead(10);
+        trackerHandleAPI();
+
+        // tracking resumes only on the next tracking call once the tracker is idle
+        assertEquals(MediaTrackerRegistry.NO_DEADLINE, tracker.getNextDeadlineTS());
+
+        testableMediaTrackerEventGenerator.trackSessionEnd();
+        trackerHandleAPI();
+
+        assertEquals(MediaTrackerRegistry.NO_DEADLINE, tracker.getNextDeadlineTS());
+    }
+
+    @Test
+    public void test_track_notifiesDeadlineListenerOnChange() {
+        List<Long> deadlines = new ArrayList<>();
+        tracker = new MediaEventTracker(mockEventProcessor, new HashMap<>(), deadlines::add);
+
+        long startTS = System.currentTimeMillis();
+        testableMediaTrackerEventGenerator.setCurrentTimestamp(startTS);
+        testableMediaTrackerEventGenerator.trackSessionStart(mediaInfo.toObjectMap(), metadata);
+        trackerHandleAPI();
+
+        testableMediaTrackerEventGenerator.trackPlay();
+        trackerHandleAPI();
+
+        // deadline unchanged, listener is not notified again
+        testableMediaTrackerEventGenerator.incrementCurrentTimestamp(100);
+        testableMediaTrackerEventGenerator.updateCurrentPlayhead(0);
+        trackerHandleAPI();
+
+        testableMediaTrackerEventGenerator.trackSessionEnd();
+        trackerHandleAPI();
+
+        assertEquals(3, deadlines.size());
+        assertEquals(
+                startTS + MediaInternalConstants.PingInterval.REALTIME_TRACKING_MS,
+                (long) deadlines.get(0));
+        assertEquals(startTS + 1000, (long) deadlines.get(1));
+        assertEquals(MediaTrackerRegistry.NO_DEADLINE, (long) deadlines.get(2));
+    }
+
+    @Test
+    public void test_trackBatch_processesEntriesInOrder() {
+        testableMediaTrackerEventGenerator.trackSessionStart(mediaInfo.toObjectMap(), metadata);
+        assertTrue(trackerHandleAPI());
+
+        testableMediaTrackerEventGenerator.trackBatch(
+                batchTracker -> {
+                    batchTracker.trackEvent(
+                            Media.Event.AdBreakStart, adBreakInfo1.toObjectMap(), null);
+                    batchTracker.trackEvent(
+                            Media.Event.AdStart, adInfo1.toObjectMap(), emptyMetadata);
+                    batchTracker.trackPlay();
+                });
+        assertTrue(trackerHandleAPI());
+
+        // AdStart is rejected when the AdBreakStart preceding it is not processed first
+        testableMediaTrackerEventGenerator.trackBatch(
+                batchTracker -> {
+                    batchTracker.trackEvent(Media.Event.AdBreakComplete, null, null);
+                    batchTracker.trackEvent(
+                            Media.Event.AdStart, adInfo2.toObjectMap(), emptyMetadata);
+                });
+        assertFalse(trackerHandleAPI());
+    }
+
+    @Test
+    public void test_getTypedInfo_parsesInfoMap() {
+        MediaRuleContext context = new MediaRuleContext();
+        context.setInfo(adInfo1.toObjectMap());
+
+        assertEquals(adInfo1, tracker.getAdInfo(context));
+        assertNull(tracker.getChapterInfo(new MediaRuleContext()));
+        assertTrue(tracker.isValidAdInfo(null, context));
+    }
+
+    @Test
+    public void test_trackEvent_invalidInfo_fail() {
+        testableMediaTrackerEventGenerator.trackSessionStart(mediaInfo.toObjectMap(), metadata);
+        assertTrue(trackerHandleAPI());
+
+        testableMediaTrackerEventGenerator.trackEvent(
+                Media.Event.AdBreakStart, adBreakInfo1.toObjectMap(), null);
+        assertTrue(trackerHandleAPI());
+
+        // AdBreakInfo is not a valid AdInfo
+        testableMediaTrackerEventGenerator.trackEvent(
+                Media.Event.AdStart, adBreakInfo1.toObjectMap(), null);
+        assertFalse(trackerHandleAPI());
+
+        testableMediaTrackerEventGenerator.trackEvent(
+                Media.Event.AdStart, adInfo1.toObjectMap(), null);
+        assertTrue(trackerHandleAPI());
+    }
+
+    @Test
+    public void test_checkpointSession_resumesSessionAfterProcessRestart() {
+        TestNamedCollection store = new TestNamedCollection();
+        Map<String, Object> config = new HashMap<>();
+        config.put(MediaConstants.TrackerConfig.CHECKPOINT_SESSION, true);
+        tracker =
+                new MediaEventTracker(
+                        mockEventProcessor,
+                        config,
+                        null,
+                        new MediaSessionCheckpoint(store.getNamedCollection()));
+
+        testableMediaTrackerEventGenerator.trackSessionStart(mediaInfo.toObjectMap(), metadata);
+        assertTrue(trackerHandleAPI());
+        testableMediaTrackerEventGenerator.trackEvent(
+                Media.Event.AdBreakStart, adBreakInfo1.toObjectMap(), null);
+        assertTrue(trackerHandleAPI());
+        testableMediaTrackerEventGenerator.trackEvent(
+                Media.Event.AdStart, adInfo1.toObjectMap(), null);
+        assertTrue(trackerHandleAPI());
+        testableMediaTrackerEventGenerator.trackPlay();
+        assertTrue(trackerHandleAPI());
+
+        // The process is killed, the next launch resumes the media with a new tracker
+        tracker =
+                new MediaEventTracker(
+                        mockEventProcessor,
+                        config,
+                        null,
+                        new MediaSessionCheckpoint(store.getNamedCollection()));
+        Map<String, Object> resumedMediaInfo = mediaInfo.toObjectMap();
+        resumedMediaInfo.put(MediaTestConstants.EventDataKeys.MediaInfo.RESUMED, true);
+        testableMediaTrackerEventGenerator.trackSessionStart(resumedMediaInfo, metadata);
+        assertTrue(trackerHandleAPI());
+
+        List<XDMMediaEvent> resumedEvents = mockSessionMap.get("2");
+        assertEquals(4, resumedEvents.size());
+        assertEquals(
+                XDMMediaEventType.SESSION_START,
+                resumedEvents.get(0).getXdmData().getEventType());
+        assertTrue(
+                resumedEvents
+                        .get(0)
+                        .getXdmData()
+                        .getMediaCollection()
+                        .getSessionDetails()
+                        .getHasResume());
+        assertEquals(
+                XDMMediaEventType.AD_BREAK_START,
+                resumedEvents.get(1).getXdmData().getEventType());
+        assertEquals(XDMMediaEventType.AD_START, resumedEvents.get(2).getXdmData().getEventType());
+        assertEquals(XDMMediaEventType.PLAY, resumedEvents.get(3).getXdmData().getEventType());
+
+        // The checkpoint is removed once the session ends
+        testableMediaTrackerEventGenerator.trackSessionEnd();
+        assertTrue(trackerHandleAPI());
+        assertTrue(store.getValues().isEmpty());
+    }
+
+    @Test
+    public void test_checkpointSession_doesNotResumeAfterSessionTimeout() {
+        TestNamedCollection store = new TestNamedCollection();
+        Map<String, Object> config = new HashMap<>();
+        config.put(MediaConstants.TrackerConfig.CHECKPOINT_SESSION, true);
+        tracker =
+                new MediaEventTracker(
+                        mockEventProcessor,
+                        config,
+                        null,
+                        new MediaSessionCheckpoint(store.getNamedCollection()));
+
+        testableMediaTrackerEventGenerator.trackSessionStart(mediaInfo.toObjectMap(), metadata);
+        assertTrue(trackerHandleAPI());
+        testableMediaTrackerEventGenerator.trackPlay();
+        assertTrue(trackerHandleAPI());
+
+        // The process is killed, the media is resumed after the session timeout
+        testableMediaTrackerEventGenerator.incrementCurrentTimestamp(
+                MediaEventTracker.SESSION_TIMEOUT_IN_MILLIS + 1);
+        tracker =
+                new MediaEventTracker(
+                        mockEventProcessor,
+                        config,
+                        null,
+                        new MediaSessionCheckpoint(store.getNamedCollection()));
+        Map<String, Object> resumedMediaInfo = mediaInfo.toObjectMap();
+        resumedMediaInfo.put(MediaTestConstants.EventDataKeys.MediaInfo.RESUMED, true);
+        testableMediaTrackerEventGenerator.trackSessionStart(resumedMediaInfo, metadata);
+        assertTrue(trackerHandleAPI());
+
+        // The expired checkpoint is not restored, the session starts from the beginning
+        List<XDMMediaEvent> resumedEvents = mockSessionMap.get("2");
+        assertEquals(1, resumedEvents.size());
+        assertEquals(
+                XDMMediaEventType.SESSION_START,
+                resumedEvents.get(0).getXdmData().getEventType());
+    }
+
+    @Test
+    public void test_checkpointSession_disabledByDefault() {
+        TestNamedCollection store = new TestNamedCollection();
+        tracker =
+                new MediaEventTracker(
+                        mockEventProcessor,
+                        new HashMap<>(),
+                        null,
+                        new MediaSessionCheckpoint(store.getNamedCollection()));
+
+        testableMediaTrackerEventGenerator.trackSessionStart(mediaInfo.toObjectMap(), metadata);
+        assertTrue(trackerHandleAPI());
+        testableMediaTrackerEventGenerator.trackPlay();
+        assertTrue(trackerHandleAPI());
+
+        assertTrue(store.getValues().isEmpty());
+    }
 }
@@ -34,6 +34,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
@@ -104,6 +105,73 @@ public class MediaExtensionTests {
         verify(tracker, times(1)).track(event);
     }
 
+    @Test
+    public void testMediaTrackDirectDispatch_drainsTrackChannel() {
+        MediaEventTracking tracker = mock(MediaEventTracking.class);
+        mediaExtension.trackers.put("key", tracker);
+
+        MediaTrackChannel channel = new MediaTrackChannel();
+        MediaTrackerRegistry.registerTrackChannel("key", channel);
+        Map<String, Object> entry1 = Collections.singletonMap("index", 1);
+        Map<String, Object> entry2 = Collections.singletonMap("index", 2);
+        channel.offer(entry1);
+        long sequence = channel.offer(entry2);
+
+        ExtensionEventListener trackListener =
+                getListener(
+                        MediaTestConstants.Media.EVENT_TYPE,
+                        MediaTestConstants.Media.EVENT_SOURCE_TRACK_MEDIA);
+        trackListener.hear(getSignalEvent("key", sequence));
+
+        InOrder inOrder = Mockito.inOrder(tracker);
+        inOrder.verify(tracker).trackEventData(entry1);
+        inOrder.verify(tracker).trackEventData(entry2);
+        verify(tracker, times(0)).track(any());
+    }
+
+    @Test
+    public void testMediaTrackDirectDispatch_keepsOrderWithReset() {
+        MediaEventTracking tracker = mock(MediaEventTracking.class);
+        mediaExtension.trackers.put("key", tracker);
+
+        MediaTrackChannel channel = new MediaTrackChannel();
+        MediaTrackerRegistry.registerTrackChannel("key", channel);
+        Map<String, Object> entry1 = Collections.singletonMap("index", 1);
+        Map<String, Object> entry2 = Collections.singletonMap("index", 2);
+
+        // Hub order: signal of entry1, reset, signal of entry2. Both entries are queued before
+        // the first signal is handled.
+        long sequence1 = channel.offer(entry1);
+        Event reset =
+                new Event.Builder("", EventType.GENERIC_IDENTITY, EventSource.REQUEST_RESET)
+                        .build();
+        long sequence2 = channel.offer(entry2);
+
+        ExtensionEventListener trackListener =
+                getListener(
+                        MediaTestConstants.Media.EVENT_TYPE,
+                        MediaTestConstants.Media.EVENT_SOURCE_TRACK_MEDIA);
+        trackListener.hear(getSignalEvent("key", sequence1));
+        getListener(EventType.GENERIC_IDENTITY, EventSource.REQUEST_RESET).hear(reset);
+        trackListener.hear(getSignalEvent("key", sequence2));
+
+        verify(tracker, times(1)).trackEventData(entry1);
+        verify(tracker, times(0)).trackEventData(entry2);
+    }
+
+    private Event getSignalEvent(final String trackerId, final long sequence) {
+        Map<String, Object> signalData = new HashMap<>();
+        signalData.put(MediaTestConstants.EventDataKeys.Tracker.ID, trackerId);
+        signalData.put(MediaTestConstants.EventDataKeys.Tracker.DIRECT_DISPATCH, true);
+        signalData.put(MediaTestConstants.EventDataKeys.Tracker.SIGNAL_SEQUENCE, sequence);
+        return new Event.Builder(
+                        "",
+                        MediaTestConstants.Media.EVENT_TYPE,
+                        MediaTestConstants.Media.EVENT_SOURCE_TRACK_MEDIA)
+                .setEventData(signalData)
+                .build();
+    }
+
     @Test
     public void testMediaTrackWithTrackerAbsent() {
         Event event =
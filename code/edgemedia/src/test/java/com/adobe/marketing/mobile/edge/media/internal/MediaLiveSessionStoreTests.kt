@@ -0,0 +1,101 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.media.internal
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class MediaLiveSessionStoreTests {
+    private val testNamedCollection = TestNamedCollection()
+
+    @Test
+    fun `getOrphanedSessions() returns the sessions left open by the previous launch`() {
+        val previousStore = MediaLiveSessionStore { testNamedCollection.namedCollection }
+        previousStore.add("backendSessionId1", 1000L, 0, false)
+        previousStore.update("backendSessionId1", 11000L, 10)
+        previousStore.add("backendSessionId2", 2000L, 5, true)
+        previousStore.add("backendSessionId3", 3000L, 0, false)
+        previousStore.remove(listOf("backendSessionId3"))
+
+        val store = MediaLiveSessionStore { testNamedCollection.namedCollection }
+        store.add("backendSessionId4", 4000L, 0, false)
+
+        assertEquals(
+            listOf(
+                MediaLiveSessionStore.OrphanedSession("backendSessionId1", 11000L, 10, false),
+                MediaLiveSessionStore.OrphanedSession("backendSessionId2", 2000L, 5, true)
+            ),
+            store.getOrphanedSessions()
+        )
+    }
+
+    @Test
+    fun `update() writes the last sent event at most once per ping interval`() {
+        val store = MediaLiveSessionStore { testNamedCollection.namedCollection }
+        store.add("backendSessionId1", 1000L, 0, false)
+
+        store.update("backendSessionId1", 5000L, 4)
+        assertEquals(listOf(MediaLiveSessionStore.OrphanedSession("backendSessionId1", 1000L, 0, false)), readStoredSessions())
+
+        store.update("backendSessionId1", 11000L, 10)
+        assertEquals(listOf(MediaLiveSessionStore.OrphanedSession("backendSessionId1", 11000L, 10, false)), readStoredSessions())
+
+        // Not written yet, the next write of the store carries the latest update
+        store.update("backendSessionId1", 12000L, 11)
+        assertEquals(listOf(MediaLiveSessionStore.OrphanedSession("backendSessionId1", 11000L, 10, false)), readStoredSessions())
+        store.add("backendSessionId2", 13000L, 0, false)
+        assertEquals(
+            listOf(
+                MediaLiveSessionStore.OrphanedSession("backendSessionId1", 12000L, 11, false),
+                MediaLiveSessionStore.OrphanedSession("backendSessionId2", 13000L, 0, false)
+            ),
+            readStoredSessions()
+        )
+    }
+
+    @Test
+    fun `remove() removes the orphaned sessions and clears the store once empty`() {
+        val previousStore = MediaLiveSessionStore { testNamedCollection.namedCollection }
+        previousStore.add("backendSessionId1", 1000L, 0, false)
+        previousStore.add("backendSessionId2", 2000L, 0, false)
+
+        val store = MediaLiveSessionStore { testNamedCollection.namedCollection }
+        store.remove(listOf("backendSessionId1"))
+        assertEquals(listOf("backendSessionId2"), store.getOrphanedSessions().map { it.backendSessionId })
+
+        store.remove(listOf("backendSessionId2"))
+        assertTrue(store.getOrphanedSessions().isEmpty())
+        assertTrue(testNamedCollection.values.isEmpty())
+    }
+
+    @Test
+    fun `getOrphanedSessions() discards invalid records`() {
+        testNamedCollection.values["sessions"] = "invalid"
+
+        val store = MediaLiveSessionStore { testNamedCollection.namedCollection }
+
+        assertTrue(store.getOrphanedSessions().isEmpty())
+    }
+
+    @Test
+    fun `store without named collection records nothing`() {
+        val store = MediaLiveSessionStore { null }
+        store.add("backendSessionId", 1000L, 0, false)
+
+        assertTrue(store.getOrphanedSessions().isEmpty())
+    }
+
+    private fun readStoredSessions(): List<MediaLiveSessionStore.OrphanedSession> {
+        return MediaLiveSessionStore { testNamedCollection.namedCollection }.getOrphanedSessions()
+    }
+}
@@ -0,0 +1,83 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.media.internal
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class MediaMetadataSanitizerTests {
+
+    @Test
+    fun `isValidKey() accepts only alphabets, digits, underscore and dot`() {
+        assertTrue(MediaMetadataSanitizer.isValidKey("key_1.Name"))
+        assertFalse(MediaMetadataSanitizer.isValidKey(""))
+        assertFalse(MediaMetadataSanitizer.isValidKey("key 1"))
+        assertFalse(MediaMetadataSanitizer.isValidKey("key-1"))
+        assertFalse(MediaMetadataSanitizer.isValidKey("key@"))
+        assertFalse(MediaMetadataSanitizer.isValidKey("kéy"))
+    }
+
+    @Test
+    fun `sanitize() drops invalid entries`() {
+        val sanitizer = MediaMetadataSanitizer()
+        val metadata = hashMapOf<String?, String?>(
+            "key1" to "value1",
+            "key 2" to "value2",
+            "key3" to null,
+            null to "value4"
+        )
+
+        @Suppress("UNCHECKED_CAST")
+        val result = sanitizer.sanitize(metadata as Map<String, String>)
+
+        assertEquals(mapOf("key1" to "value1"), result)
+    }
+
+    @Test
+    fun `sanitize() returns the previous result for equal metadata`() {
+        val sanitizer = MediaMetadataSanitizer()
+
+        val result1 = sanitizer.sanitize(hashMapOf("key1" to "value1", "key-2" to "value2"))
+        val result2 = sanitizer.sanitize(hashMapOf("key1" to "value1", "key-2" to "value2"))
+
+        assertSame(result1, result2)
+        assertEquals(mapOf("key1" to "value1"), result2)
+    }
+
+    @Test
+    fun `sanitize() does not reuse the previous result after the input map changed`() {
+        val sanitizer = MediaMetadataSanitizer()
+        val metadata = hashMapOf("key1" to "value1")
+
+        val result1 = sanitizer.sanitize(metadata)
+        metadata["key2"] = "value2"
+        val result2 = sanitizer.sanitize(metadata)
+
+        assertNotSame(result1, result2)
+        assertEquals(mapOf("key1" to "value1"), result1)
+        assertEquals(mapOf("key1" to "value1", "key2" to "value2"), result2)
+    }
+
+    @Test
+    fun `sanitize() keeps validating keys once the key cache is full`() {
+        val sanitizer = MediaMetadataSanitizer()
+
+        for (i in 0..MediaMetadataSanitizer.MAX_CACHED_KEYS * 2) {
+            val result = sanitizer.sanitize(mapOf("key$i" to "value", "key $i" to "value"))
+            assertEquals(mapOf("key$i" to "value"), result)
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.media.internal
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class MediaPrerollBufferTests {
+
+    private fun MediaPrerollBuffer.add(rule: MediaRuleName, eventTS: Long = 0) {
+        val context = MediaRuleContext()
+        context.eventTS = eventTS
+        add(rule.ordinal, context)
+    }
+
+    private fun MediaPrerollBuffer.ruleNames(): List<MediaRuleName> {
+        return getRules().map { MediaRuleName.values()[it.ruleName] }
+    }
+
+    @Test
+    fun `add() keeps a copy of the pooled context`() {
+        val buffer = MediaPrerollBuffer()
+        val context = MediaRuleContext()
+        context.eventTS = 10
+
+        buffer.add(MediaRuleName.BitrateChange.ordinal, context)
+        context.reset()
+
+        assertNotSame(context, buffer.getRules()[0].ruleContext)
+        assertEquals(10, buffer.getRules()[0].ruleContext.eventTS)
+    }
+
+    @Test
+    fun `add() keeps only the last playhead and QoE update of a run`() {
+        val buffer = MediaPrerollBuffer()
+
+        buffer.add(MediaRuleName.PlayheadUpdate, 1)
+        buffer.add(MediaRuleName.QoEUpdate, 2)
+        buffer.add(MediaRuleName.PlayheadUpdate, 3)
+        buffer.add(MediaRuleName.QoEUpdate, 4)
+        buffer.add(MediaRuleName.PlayheadUpdate, 5)
+
+        assertEquals(listOf(MediaRuleName.QoEUpdate, MediaRuleName.PlayheadUpdate), buffer.ruleNames())
+        assertEquals(4, buffer.getRules()[0].ruleContext.eventTS)
+        assertEquals(5, buffer.getRules()[1].ruleContext.eventTS)
+    }
+
+    @Test
+    fun `add() keeps playhead updates separated by other rules`() {
+        val buffer = MediaPrerollBuffer()
+
+        buffer.add(MediaRuleName.PlayheadUpdate)
+        buffer.add(MediaRuleName.ChapterStart)
+        buffer.add(MediaRuleName.PlayheadUpdate)
+
+        assertEquals(
+            listOf(MediaRuleName.PlayheadUpdate, MediaRuleName.ChapterStart, MediaRuleName.PlayheadUpdate),
+            buffer.ruleNames()
+        )
+    }
+
+    @Test
+    fun `add() drops repeated play and pause`() {
+        val buffer = MediaPrerollBuffer()
+
+        buffer.add(MediaRuleName.Pause, 1)
+        buffer.add(MediaRuleName.PlayheadUpdate, 2)
+        buffer.add(MediaRuleName.Pause, 3)
+
+        assertEquals(listOf(MediaRuleName.Pause, MediaRuleName.PlayheadUpdate), buffer.ruleNames())
+        assertEquals(1, buffer.getRules()[0].ruleContext.eventTS)
+    }
+
+    @Test
+    fun `add() merges play followed by pause`() {
+        val buffer = MediaPrerollBuffer()
+
+        buffer.add(MediaRuleName.Pause)
+        buffer.add(MediaRuleName.Play)
+        buffer.add(MediaRuleName.Pause)
+        buffer.add(MediaRuleName.Play)
+
+        assertEquals(listOf(MediaRuleName.Pause, MediaRuleName.Play), buffer.ruleNames())
+    }
+
+    @Test
+    fun `add() does not merge play followed by pause after a buffer start`() {
+        val buffer = MediaPrerollBuffer()
+
+        buffer.add(MediaRuleName.BufferStart)
+        buffer.add(MediaRuleName.Play)
+        buffer.add(MediaRuleName.Pause)
+
+        assertEquals(
+            listOf(MediaRuleName.BufferStart, MediaRuleName.Play, MediaRuleName.Pause),
+            buffer.ruleNames()
+        )
+    }
+
+    @Test
+    fun `reorder() drops only the plays before the first ad break start`() {
+        val buffer = MediaPrerollBuffer()
+
+        buffer.add(MediaRuleName.Play)
+        buffer.add(MediaRuleName.ChapterStart)
+        buffer.add(MediaRuleName.Play)
+        buffer.add(MediaRuleName.AdBreakStart)
+        buffer.add(MediaRuleName.Play)
+
+        buffer.reorder()
+
+        assertEquals(
+            listOf(MediaRuleName.ChapterStart, MediaRuleName.AdBreakStart, MediaRuleName.Play),
+            buffer.ruleNames()
+        )
+    }
+
+    @Test
+    fun `isFull() is true once the capacity is reached`() {
+        val buffer = MediaPrerollBuffer(2)
+
+        buffer.add(MediaRuleName.BitrateChange)
+        assertFalse(buffer.isFull)
+        buffer.add(MediaRuleName.BitrateChange)
+        assertTrue(buffer.isFull)
+
+        buffer.clear()
+        assertFalse(buffer.isFull)
+        assertEquals(0, buffer.size())
+    }
+}
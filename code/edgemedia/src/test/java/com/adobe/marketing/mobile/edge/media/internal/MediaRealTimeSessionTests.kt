@@ -23,6 +23,7 @@ import com.adobe.marketing.mobile.edge.media.internal.xdm.XDMSessionDetails
 import com.adobe.marketing.mobile.util.JSONAsserts.assertExactMatch
 import kotlinx.coroutines.delay
 import kotlinx.coroutines.runBlocking
+import org.json.JSONObject
 import org.junit.Assert.assertEquals
 import org.junit.Assert.assertFalse
 import org.junit.Assert.assertNotNull
@@ -32,7 +33,6 @@ import org.junit.Assert.fail
 import org.junit.Test
 import org.mockito.Mockito
 import org.mockito.Mockito.`when`
-import java.util.Date
 import java.util.concurrent.CountDownLatch
 import java.util.concurrent.TimeUnit
 
@@ -100,6 +100,70 @@ class MediaRealTimeSessionTests {
         assertTrue(session.eventQueue.isEmpty()) // event queue is cleared from abort() call
     }
 
+    @Test
+    fun `journal only records the events waiting in the queue`() {
+        `when`(mockState.isValid).thenReturn(true)
+        val testDataQueue = TestDataQueue()
+        val session = MediaRealTimeSession(id, mockState, dispatcher, MediaEventJournal { testDataQueue.dataQueue })
+
+        // Sent right away
+        session.queue(getXDMMediaEvent(XDMMediaEventType.SESSION_START))
+        assertTrue(testDataQueue.records.isEmpty())
+
+        // Waits for the backend session ID
+        session.queue(getXDMMediaEvent(XDMMediaEventType.PLAY))
+        session.queue(getXDMMediaEvent(XDMMediaEventType.PAUSE_START))
+        assertEquals(2, testDataQueue.records.size)
+        assertTrue(testDataQueue.records.all { JSONObject(it).getString("op") == "add" })
+
+        session.handleSessionUpdate(session.sessionStartEdgeRequestId!!, "backendSessionId")
+        assertEquals(
+            listOf("add", "add", "backendSession", "remove", "remove"),
+            testDataQueue.records.map { JSONObject(it).getString("op") }
+        )
+
+        // Sent right away
+        session.queue(getXDMMediaEvent(XDMMediaEventType.PLAY))
+        assertEquals(5, testDataQueue.records.size)
+    }
+
+    @Test
+    fun `abort() removes the journaled events with a single record`() {
+        `when`(mockState.isValid).thenReturn(true)
+        val testDataQueue = TestDataQueue()
+        val session = MediaRealTimeSession(id, mockState, dispatcher, MediaEventJournal { testDataQueue.dataQueue })
+        session.queue(getXDMMediaEvent(XDMMediaEventType.SESSION_START))
+        session.queue(getXDMMediaEvent(XDMMediaEventType.PLAY))
+        session.queue(getXDMMediaEvent(XDMMediaEventType.PAUSE_START))
+
+        session.abort()
+
+        assertEquals(
+            listOf("add", "add", "removeSession"),
+            testDataQueue.records.map { JSONObject(it).getString("op") }
+        )
+    }
+
+    @Test
+    fun `live session store records the backend session until it is ended`() {
+        `when`(mockState.isValid).thenReturn(true)
+        val testNamedCollection = TestNamedCollection()
+        val session = MediaRealTimeSession(id, mockState, dispatcher, null, MediaLiveSessionStore { testNamedCollection.namedCollection })
+
+        session.queue(XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.SESSION_START, 1000L, XDMMediaCollection(playhead = 0))))
+        session.handleSessionUpdate(session.sessionStartEdgeRequestId!!, "backendSessionId")
+        session.queue(XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PING, 11000L, XDMMediaCollection(playhead = 10))))
+
+        // Read by the next launch
+        assertEquals(
+            listOf(MediaLiveSessionStore.OrphanedSession("backendSessionId", 11000L, 10, false)),
+            MediaLiveSessionStore { testNamedCollection.namedCollection }.getOrphanedSessions()
+        )
+
+        session.queue(XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.SESSION_END, 12000L, XDMMediaCollection(playhead = 10))))
+        assertTrue(testNamedCollection.values.isEmpty())
+    }
+
     @Test
     fun `handleSessionUpdate() performs no operation if edge request id does not match`() {
         val requestEventId = "edgeRequestId"
@@ -311,6 +375,39 @@ class MediaRealTimeSessionTests {
         assertEquals(event2, session.eventQueue[1])
     }
 
+    @Test
+    fun `queue() merges consecutive pings while backend session id is pending`() {
+        `when`(mockState.isValid).thenReturn(true)
+        val session = MediaRealTimeSession(id, mockState, dispatcher)
+
+        session.queue(getXDMMediaEvent(XDMMediaEventType.SESSION_START))
+        val play = getXDMMediaEvent(XDMMediaEventType.PLAY)
+        session.queue(play)
+        session.queue(getXDMMediaEvent(XDMMediaEventType.PING))
+        val lastPing = getXDMMediaEvent(XDMMediaEventType.PING)
+        session.queue(lastPing)
+
+        // sessionStart was dispatched, the pings were merged into the last one
+        assertEquals(2, session.eventQueue.size)
+        assertEquals(play, session.eventQueue[0])
+        assertEquals(lastPing, session.eventQueue[1])
+        assertEquals(1, session.eventQueue.mergedCount)
+    }
+
+    @Test
+    fun `queue() does not merge pings once backend session id is set`() {
+        // Set invalid MediaState to prevent processing event queue
+        `when`(mockState.isValid).thenReturn(false)
+        val session = MediaRealTimeSession(id, mockState, dispatcher)
+        session.mediaBackendSessionId = "backendSessionId"
+
+        session.queue(getXDMMediaEvent(XDMMediaEventType.PING))
+        session.queue(getXDMMediaEvent(XDMMediaEventType.PING))
+
+        assertEquals(2, session.eventQueue.size)
+        assertEquals(0, session.eventQueue.mergedCount)
+    }
+
     @Test
     fun `queue() processes event and dispatches experience event`() {
         // MediaState needs to be valid to process event queue
@@ -601,7 +698,7 @@ class MediaRealTimeSessionTests {
     }
 
     private fun getXDMMediaEvent(forType: XDMMediaEventType): XDMMediaEvent {
-        val schema = XDMMediaSchema(forType, Date(), XDMMediaCollection())
+        val schema = XDMMediaSchema(forType, System.currentTimeMillis(), XDMMediaCollection())
         when (forType) {
             XDMMediaEventType.SESSION_START -> {
                 val sessionDetails = XDMSessionDetails()
@@ -0,0 +1,96 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.media.internal
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Test
+
+class MediaRuleContextTests {
+
+    @Test
+    fun `getTypedInfo() parses the info map only once`() {
+        val context = MediaRuleContext()
+        context.setInfo(AdInfo.create("ad1", "adname1", 1, 15).toObjectMap())
+        var parseCount = 0
+        val parser = MediaRuleContext.InfoParser { info ->
+            parseCount++
+            AdInfo.fromObjectMap(info)
+        }
+
+        val adInfo = context.getTypedInfo(AdInfo::class.java, parser)
+
+        assertSame(adInfo, context.getTypedInfo(AdInfo::class.java, parser))
+        assertEquals(1, parseCount)
+    }
+
+    @Test
+    fun `getTypedInfo() caches invalid info`() {
+        val context = MediaRuleContext()
+        context.setInfo(mapOf("invalid" to "info"))
+        var parseCount = 0
+        val parser = MediaRuleContext.InfoParser { info ->
+            parseCount++
+            AdInfo.fromObjectMap(info)
+        }
+
+        assertNull(context.getTypedInfo(AdInfo::class.java, parser))
+        assertNull(context.getTypedInfo(AdInfo::class.java, parser))
+        assertEquals(1, parseCount)
+    }
+
+    @Test
+    fun `getPlayhead() reads the playhead from info or set value`() {
+        val context = MediaRuleContext()
+        context.setInfo(mapOf(MediaInternalConstants.EventDataKeys.Tracker.PLAYHEAD to 10))
+        assertEquals(10, context.playhead)
+
+        context.setPlayhead(20)
+        assertEquals(20, context.playhead)
+        assertNull(context.info)
+    }
+
+    @Test
+    fun `reset() clears all values`() {
+        val context = MediaRuleContext()
+        context.setInfo(mapOf(MediaInternalConstants.EventDataKeys.ErrorInfo.ID to "error"))
+        context.setMetadata(mapOf("k1" to "v1"))
+        context.eventTS = 1000
+        context.sessionId = "session"
+        assertEquals("error", context.errorId)
+
+        context.reset()
+
+        assertNull(context.info)
+        assertNull(context.metadata)
+        assertNull(context.sessionId)
+        assertNull(context.errorId)
+        assertEquals(MediaRuleContext.INVALID_TIMESTAMP, context.eventTS)
+        assertEquals(MediaRuleContext.INVALID_PLAYHEAD, context.playhead)
+    }
+
+    @Test
+    fun `copy constructor keeps values after the original is reset`() {
+        val context = MediaRuleContext()
+        context.eventTS = 1000
+        context.sessionId = "session"
+        context.setPlayhead(5)
+
+        val copy = MediaRuleContext(context)
+        context.reset()
+
+        assertEquals(1000, copy.eventTS)
+        assertEquals("session", copy.sessionId)
+        assertEquals(5, copy.playhead)
+    }
+}
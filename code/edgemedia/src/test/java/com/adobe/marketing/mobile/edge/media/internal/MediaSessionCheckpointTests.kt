@@ -0,0 +1,171 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.media.internal
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.mockito.ArgumentMatchers.anyString
+import org.mockito.Mockito.never
+import org.mockito.Mockito.clearInvocations
+import org.mockito.Mockito.verify
+
+class MediaSessionCheckpointTests {
+    private val testNamedCollection = TestNamedCollection()
+    private val mediaInfo = MediaInfo.create("mediaId", "mediaName", "vod", MediaType.Video, 60)
+
+    @Test
+    fun `restore() restores the saved media context`() {
+        val mediaContext = MediaContext(mediaInfo, null)
+        mediaContext.setAdBreakInfo(AdBreakInfo.create("adBreak", 1, 0))
+        mediaContext.setAdInfo(AdInfo.create("adId", "adName", 1, 15), mapOf("adKey" to "adValue"))
+        mediaContext.setChapterInfo(ChapterInfo.create("chapter", 1, 0, 30), mapOf("chapterKey" to "chapterValue"))
+        mediaContext.startState(StateInfo.create("mute"))
+        mediaContext.enterState(MediaPlaybackState.Play)
+        mediaContext.enterState(MediaPlaybackState.Buffer)
+        mediaContext.setPlayhead(12)
+        mediaContext.setQoEInfo(QoEInfo.create(1, 2, 3, 4))
+        MediaSessionCheckpoint(testNamedCollection.namedCollection).save(mediaContext, 1000L)
+
+        // Restored by the next launch
+        val restoredContext = MediaContext(mediaInfo, null)
+        assertTrue(MediaSessionCheckpoint(testNamedCollection.namedCollection).restore(restoredContext, 2000L))
+
+        assertEquals(mediaContext.adBreakInfo, restoredContext.adBreakInfo)
+        assertEquals(mediaContext.adInfo, restoredContext.adInfo)
+        assertEquals(mapOf("adKey" to "adValue"), restoredContext.adMetadata)
+        assertEquals(mediaContext.chapterInfo, restoredContext.chapterInfo)
+        assertEquals(mapOf("chapterKey" to "chapterValue"), restoredContext.chapterMetadata)
+        assertTrue(restoredContext.isInPlayerState(StateInfo.create("mute")))
+        assertTrue(restoredContext.isInState(MediaPlaybackState.Play))
+        assertTrue(restoredContext.isInState(MediaPlaybackState.Buffer))
+        assertFalse(restoredContext.isInState(MediaPlaybackState.Seek))
+        assertEquals(12, restoredContext.playhead)
+        assertEquals(mediaContext.qoEInfo, restoredContext.qoEInfo)
+    }
+
+    @Test
+    fun `restore() returns false without checkpoint for the media`() {
+        val otherContext = MediaContext(MediaInfo.create("otherMediaId", "mediaName", "vod", MediaType.Video, 60), null)
+        MediaSessionCheckpoint(testNamedCollection.namedCollection).save(otherContext, 1000L)
+
+        val mediaContext = MediaContext(mediaInfo, null)
+        assertFalse(MediaSessionCheckpoint(testNamedCollection.namedCollection).restore(mediaContext, 2000L))
+        assertTrue(mediaContext.isInState(MediaPlaybackState.Init))
+    }
+
+    @Test
+    fun `restore() ignores and purges the checkpoints older than the session timeout`() {
+        val otherContext = MediaContext(MediaInfo.create("otherMediaId", "mediaName", "vod", MediaType.Video, 60), null)
+        MediaSessionCheckpoint(testNamedCollection.namedCollection).save(otherContext, 1000L)
+        val mediaContext = MediaContext(mediaInfo, null)
+        mediaContext.enterState(MediaPlaybackState.Play)
+        MediaSessionCheckpoint(testNamedCollection.namedCollection).save(mediaContext, 1000L)
+
+        val restoredContext = MediaContext(mediaInfo, null)
+        val checkpoint = MediaSessionCheckpoint(testNamedCollection.namedCollection)
+        assertFalse(checkpoint.restore(restoredContext, 1001L + MediaEventTracker.SESSION_TIMEOUT_IN_MILLIS))
+
+        assertTrue(restoredContext.isInState(MediaPlaybackState.Init))
+        assertTrue(testNamedCollection.values.isEmpty())
+    }
+
+    @Test
+    fun `save() purges the checkpoints older than the session timeout`() {
+        val otherContext = MediaContext(MediaInfo.create("otherMediaId", "mediaName", "vod", MediaType.Video, 60), null)
+        MediaSessionCheckpoint(testNamedCollection.namedCollection).save(otherContext, 1000L)
+        val recentContext = MediaContext(MediaInfo.create("recentMediaId", "mediaName", "vod", MediaType.Video, 60), null)
+        MediaSessionCheckpoint(testNamedCollection.namedCollection).save(recentContext, 2000L)
+
+        MediaSessionCheckpoint(testNamedCollection.namedCollection)
+            .save(MediaContext(mediaInfo, null), 1001L + MediaEventTracker.SESSION_TIMEOUT_IN_MILLIS)
+
+        assertFalse(testNamedCollection.values.containsKey("otherMediaId.playback"))
+        assertTrue(testNamedCollection.values.containsKey("recentMediaId.playback"))
+        assertTrue(testNamedCollection.values.containsKey("mediaId.playback"))
+        assertTrue(
+            MediaSessionCheckpoint(testNamedCollection.namedCollection)
+                .restore(MediaContext(recentContext.mediaInfo, null), 3000L)
+        )
+    }
+
+    @Test
+    fun `save() writes only the sections which changed`() {
+        val collection = testNamedCollection.namedCollection
+        val checkpoint = MediaSessionCheckpoint(collection)
+        val mediaContext = MediaContext(mediaInfo, null)
+        mediaContext.setAdInfo(AdInfo.create("adId", "adName", 1, 15), null)
+        checkpoint.save(mediaContext, 1000L)
+        clearInvocations(collection)
+
+        checkpoint.save(mediaContext, 1000L)
+        verify(collection, never()).setString(anyString(), anyString())
+        verify(collection, never()).remove(anyString())
+
+        mediaContext.enterState(MediaPlaybackState.Play)
+        checkpoint.save(mediaContext, 1000L)
+        verify(collection).setString("mediaId.playback", testNamedCollection.values["mediaId.playback"])
+        verify(collection, never()).setString("mediaId.ad", testNamedCollection.values["mediaId.ad"])
+    }
+
+    @Test
+    fun `save() removes the sections which are no longer active`() {
+        val checkpoint = MediaSessionCheckpoint(testNamedCollection.namedCollection)
+        val mediaContext = MediaContext(mediaInfo, null)
+        mediaContext.setChapterInfo(ChapterInfo.create("chapter", 1, 0, 30), null)
+        checkpoint.save(mediaContext, 1000L)
+        assertTrue(testNamedCollection.values.containsKey("mediaId.chapter"))
+
+        mediaContext.clearChapterInfo()
+        checkpoint.save(mediaContext, 1000L)
+
+        assertFalse(testNamedCollection.values.containsKey("mediaId.chapter"))
+        assertTrue(testNamedCollection.values.containsKey("mediaId.playback"))
+    }
+
+    @Test
+    fun `save() drops the sections left by a previous launch`() {
+        val previousContext = MediaContext(mediaInfo, null)
+        previousContext.setAdBreakInfo(AdBreakInfo.create("adBreak", 1, 0))
+        MediaSessionCheckpoint(testNamedCollection.namedCollection).save(previousContext, 1000L)
+
+        MediaSessionCheckpoint(testNamedCollection.namedCollection).save(MediaContext(mediaInfo, null), 1000L)
+
+        assertNull(testNamedCollection.values["mediaId.adBreak"])
+    }
+
+    @Test
+    fun `clear() removes the checkpoint`() {
+        val checkpoint = MediaSessionCheckpoint(testNamedCollection.namedCollection)
+        val mediaContext = MediaContext(mediaInfo, null)
+        mediaContext.startState(StateInfo.create("mute"))
+        checkpoint.save(mediaContext, 1000L)
+
+        checkpoint.clear()
+
+        assertTrue(testNamedCollection.values.isEmpty())
+        assertFalse(MediaSessionCheckpoint(testNamedCollection.namedCollection).restore(MediaContext(mediaInfo, null), 2000L))
+    }
+
+    @Test
+    fun `checkpoint does nothing without data store`() {
+        val checkpoint = MediaSessionCheckpoint(null)
+        val mediaContext = MediaContext(mediaInfo, null)
+
+        checkpoint.save(mediaContext, 1000L)
+        checkpoint.clear()
+
+        assertFalse(checkpoint.restore(mediaContext, 2000L))
+    }
+}
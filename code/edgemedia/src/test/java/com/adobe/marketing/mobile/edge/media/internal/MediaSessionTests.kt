@@ -22,7 +22,6 @@ import org.junit.Assert.assertNull
 import org.junit.Assert.assertTrue
 import org.junit.Test
 import org.mockito.Mockito.mock
-import java.util.Date
 
 class MediaSessionTests {
     private val id = "testSessionId"
@@ -34,7 +33,7 @@ class MediaSessionTests {
         val session = SpyMediaSession(id, mockState, dispatcher)
         session.isSessionActive = true
 
-        val event = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PLAY, Date(), XDMMediaCollection()))
+        val event = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PLAY, System.currentTimeMillis(), XDMMediaCollection()))
         session.queue(event)
 
         assertTrue(session.handleQueueEventCalled)
@@ -46,7 +45,7 @@ class MediaSessionTests {
         val session = SpyMediaSession(id, mockState, dispatcher)
         session.isSessionActive = false
 
-        val event = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PLAY, Date(), XDMMediaCollection()))
+        val event = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PLAY, System.currentTimeMillis(), XDMMediaCollection()))
         session.queue(event)
 
         assertFalse(session.handleQueueEventCalled)
@@ -126,6 +126,8 @@ public final class MediaTestConstants {
             static final String EVENT_METADATA = "event.metadata";
             static final String EVENT_TIMESTAMP = "event.timestamp";
             static final String EVENT_INTERNAL = "event.internal";
+            static final String DIRECT_DISPATCH = "event.directdispatch";
+            static final String SIGNAL_SEQUENCE = "event.signalsequence";
             static final String PLAYHEAD = "time.playhead";
             static final String BACKEND_SESSION_ID = "mediaservice.sessionid";
 
@@ -0,0 +1,66 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.media.internal
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.Collections
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+
+class MediaTickSchedulerTests {
+
+    @Test
+    fun `schedule() runs all scheduled tasks on one shared thread`() {
+        val trackerCount = 10
+        val latch = CountDownLatch(trackerCount)
+        val threadNames = Collections.synchronizedSet(mutableSetOf<String>())
+
+        for (i in 1..trackerCount) {
+            MediaTickScheduler.getInstance().schedule({
+                threadNames.add(Thread.currentThread().name)
+                latch.countDown()
+            }, 10L * i)
+        }
+
+        assertTrue(latch.await(2, TimeUnit.SECONDS))
+        assertEquals(1, threadNames.size)
+    }
+
+    @Test
+    fun `schedule() keeps running tasks after a task throws`() {
+        val latch = CountDownLatch(1)
+
+        MediaTickScheduler.getInstance().schedule({
+            throw IllegalStateException("tick failure")
+        }, 0)
+        MediaTickScheduler.getInstance().schedule({ latch.countDown() }, 20)
+
+        assertTrue(latch.await(2, TimeUnit.SECONDS))
+    }
+
+    @Test
+    fun `schedule() does not run a cancelled task`() {
+        val ran = AtomicBoolean(false)
+        val latch = CountDownLatch(1)
+
+        val future = MediaTickScheduler.getInstance().schedule({ ran.set(true) }, 50)
+        future.cancel(false)
+        MediaTickScheduler.getInstance().schedule({ latch.countDown() }, 100)
+
+        assertTrue(latch.await(2, TimeUnit.SECONDS))
+        assertFalse(ran.get())
+    }
+}
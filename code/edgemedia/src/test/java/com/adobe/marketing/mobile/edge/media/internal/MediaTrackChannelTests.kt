@@ -0,0 +1,71 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.media.internal
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class MediaTrackChannelTests {
+
+    @Test
+    fun `offer() returns increasing sequence numbers`() {
+        val channel = MediaTrackChannel()
+
+        assertEquals(1L, channel.offer(mapOf("index" to 1)))
+        assertEquals(2L, channel.offer(mapOf("index" to 2)))
+        assertEquals(3L, channel.offer(mapOf("index" to 3)))
+    }
+
+    @Test
+    fun `drain() passes entries queued up to the signal sequence in order`() {
+        val channel = MediaTrackChannel()
+        val drained = mutableListOf<Any?>()
+        val sequences = (1..3).map { channel.offer(mapOf("index" to it)) }
+
+        channel.drain(sequences[1]) { drained.add(it["index"]) }
+        assertEquals(listOf(1, 2), drained)
+
+        channel.drain(sequences[2]) { drained.add(it["index"]) }
+        assertEquals(listOf(1, 2, 3), drained)
+    }
+
+    @Test
+    fun `drain() does not pass entries queued while draining`() {
+        val channel = MediaTrackChannel()
+        val drained = mutableListOf<Any?>()
+        val sequence = channel.offer(mapOf("index" to 1))
+        var nextSequence = 0L
+
+        channel.drain(sequence) {
+            drained.add(it["index"])
+            nextSequence = channel.offer(mapOf("index" to 2))
+        }
+        assertEquals(listOf(1), drained)
+
+        // Processed by its own signal
+        channel.drain(nextSequence) { drained.add(it["index"]) }
+        assertEquals(listOf(1, 2), drained)
+    }
+
+    @Test
+    fun `clear() drops queued entries`() {
+        val channel = MediaTrackChannel()
+        val drained = mutableListOf<Any?>()
+        val sequence = channel.offer(mapOf("index" to 1))
+
+        channel.clear()
+        channel.drain(sequence) { drained.add(it["index"]) }
+
+        assertTrue(drained.isEmpty())
+    }
+}
@@ -0,0 +1,69 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.media.internal
+
+import com.adobe.marketing.mobile.edge.media.MediaConstants
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class MediaTrackerConfigTests {
+
+    @Test
+    fun `create() uses defaults for missing config`() {
+        val config = MediaTrackerConfig.create(null)
+
+        assertNull(config.channel)
+        assertEquals(MediaInternalConstants.PingInterval.REALTIME_TRACKING_MS, config.getReportingInterval(false))
+        assertEquals(MediaInternalConstants.PingInterval.REALTIME_TRACKING_MS, config.getReportingInterval(true))
+        assertFalse(config.persistEvents)
+        assertFalse(config.checkpointSession)
+    }
+
+    @Test
+    fun `create() parses valid config`() {
+        val config = MediaTrackerConfig.create(
+            mapOf(
+                MediaConstants.TrackerConfig.CHANNEL to "channel",
+                MediaConstants.TrackerConfig.MAIN_PING_INTERVAL to 15,
+                MediaConstants.TrackerConfig.AD_PING_INTERVAL to 2,
+                MediaConstants.TrackerConfig.PERSIST_EVENTS to true,
+                MediaConstants.TrackerConfig.CHECKPOINT_SESSION to true
+            )
+        )
+
+        assertEquals("channel", config.channel)
+        assertTrue(config.persistEvents)
+        assertTrue(config.checkpointSession)
+        assertEquals(15000, config.getReportingInterval(false))
+        assertEquals(2000, config.getReportingInterval(true))
+    }
+
+    @Test
+    fun `create() ignores invalid config`() {
+        val config = MediaTrackerConfig.create(
+            mapOf(
+                MediaConstants.TrackerConfig.CHANNEL to "",
+                MediaConstants.TrackerConfig.MAIN_PING_INTERVAL to 51,
+                MediaConstants.TrackerConfig.AD_PING_INTERVAL to "2",
+                MediaConstants.TrackerConfig.PERSIST_EVENTS to "true"
+            )
+        )
+
+        assertNull(config.channel)
+        assertEquals(MediaInternalConstants.PingInterval.REALTIME_TRACKING_MS, config.mainPingIntervalMs)
+        assertEquals(MediaInternalConstants.PingInterval.REALTIME_TRACKING_MS, config.adPingIntervalMs)
+        assertFalse(config.persistEvents)
+    }
+}
@@ -0,0 +1,216 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.media.internal
+
+import com.adobe.marketing.mobile.Event
+import com.adobe.marketing.mobile.edge.media.Media
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import kotlin.concurrent.thread
+
+class MediaTrackerEventGeneratorTests {
+    private val generatedEvents = mutableListOf<Event>()
+    private lateinit var tracker: TestableMediaTrackerEventGenerator
+
+    private val mediaInfo = MediaInfo.create("id", "name", "aod", MediaType.Audio, 60).toObjectMap()
+
+    @Before
+    fun setup() {
+        generatedEvents.clear()
+        tracker = TestableMediaTrackerEventGenerator("tracker", { generatedEvents.add(it) }, true)
+        tracker.setCurrentTimestamp(1000)
+    }
+
+    @Test
+    fun `updateCurrentPlayhead() with coalescing does not dispatch events`() {
+        tracker.trackSessionStart(mediaInfo, null)
+
+        for (playhead in 1..4) {
+            tracker.incrementCurrentTimestamp(250)
+            tracker.updateCurrentPlayhead(playhead)
+        }
+
+        assertEquals(1, generatedEvents.size)
+        assertEquals(MediaInternalConstants.EventDataKeys.MediaEventName.SESSION_START, getEventName(generatedEvents[0]))
+    }
+
+    @Test
+    fun `updateCurrentPlayhead() with coalescing attaches latest playhead to next event`() {
+        tracker.trackSessionStart(mediaInfo, null)
+        tracker.updateCurrentPlayhead(1)
+        tracker.incrementCurrentTimestamp(250)
+        tracker.updateCurrentPlayhead(2)
+        tracker.incrementCurrentTimestamp(250)
+        tracker.trackPause()
+
+        assertEquals(2, generatedEvents.size)
+        val eventData = generatedEvents[1].eventData
+        assertEquals(MediaInternalConstants.EventDataKeys.MediaEventName.PAUSE, getEventName(generatedEvents[1]))
+        assertEquals(2, eventData[MediaInternalConstants.EventDataKeys.Tracker.PENDING_PLAYHEAD])
+        assertEquals(1250L, eventData[MediaInternalConstants.EventDataKeys.Tracker.PENDING_PLAYHEAD_TIMESTAMP])
+
+        // playhead is only sent once
+        tracker.trackEvent(Media.Event.BufferStart, null, null)
+        assertNull(generatedEvents[2].eventData[MediaInternalConstants.EventDataKeys.Tracker.PENDING_PLAYHEAD])
+    }
+
+    @Test
+    fun `tick() with coalescing publishes latest playhead`() {
+        tracker.trackSessionStart(mediaInfo, null)
+        tracker.updateCurrentPlayhead(1)
+        tracker.updateCurrentPlayhead(2)
+        tracker.incrementCurrentTimestamp(100)
+
+        tracker.runTick()
+
+        assertEquals(2, generatedEvents.size)
+        val eventData = generatedEvents[1].eventData
+        assertEquals(MediaInternalConstants.EventDataKeys.MediaEventName.PLAYHEAD_UPDATE, getEventName(generatedEvents[1]))
+        assertFalse(eventData[MediaInternalConstants.EventDataKeys.Tracker.EVENT_INTERNAL] as Boolean)
+        assertEquals(1100L, eventData[MediaInternalConstants.EventDataKeys.Tracker.EVENT_TIMESTAMP])
+        val params = eventData[MediaInternalConstants.EventDataKeys.Tracker.EVENT_PARAM] as Map<*, *>
+        assertEquals(2, params[MediaInternalConstants.EventDataKeys.Tracker.PLAYHEAD])
+    }
+
+    @Test
+    fun `tick() after session end does not dispatch events`() {
+        tracker.trackSessionStart(mediaInfo, null)
+        tracker.trackSessionEnd()
+        tracker.incrementCurrentTimestamp(1000)
+
+        tracker.runTick()
+
+        assertEquals(2, generatedEvents.size)
+        assertEquals(MediaInternalConstants.EventDataKeys.MediaEventName.SESSION_END, getEventName(generatedEvents[1]))
+    }
+
+    @Test
+    fun `updateCurrentPlayhead() with coalescing drops playhead outside of session`() {
+        tracker.updateCurrentPlayhead(5)
+        tracker.trackSessionStart(mediaInfo, null)
+
+        assertEquals(1, generatedEvents.size)
+        assertNull(generatedEvents[0].eventData[MediaInternalConstants.EventDataKeys.Tracker.PENDING_PLAYHEAD])
+    }
+
+    @Test
+    fun `updateCurrentPlayhead() without coalescing dispatches each playhead`() {
+        tracker = TestableMediaTrackerEventGenerator("tracker", { generatedEvents.add(it) })
+        tracker.trackSessionStart(mediaInfo, null)
+        tracker.updateCurrentPlayhead(1)
+        tracker.updateCurrentPlayhead(2)
+
+        assertEquals(3, generatedEvents.size)
+    }
+
+    @Test
+    fun `trackBatch() dispatches all tracking calls in one event in order`() {
+        tracker.trackSessionStart(mediaInfo, null)
+        tracker.trackBatch { batchTracker ->
+            batchTracker.trackEvent(Media.Event.AdBreakStart, null, null)
+            batchTracker.trackPlay()
+            batchTracker.trackBatch { nestedTracker -> nestedTracker.trackPause() }
+        }
+
+        assertEquals(2, generatedEvents.size)
+        val entries = generatedEvents[1].eventData[MediaInternalConstants.EventDataKeys.Tracker.EVENT_BATCH] as List<*>
+        val eventNames = entries.map { (it as Map<*, *>)[MediaInternalConstants.EventDataKeys.Tracker.EVENT_NAME] }
+        assertEquals(
+            listOf(
+                MediaInternalConstants.EventDataKeys.MediaEventName.ADBREAK_START,
+                MediaInternalConstants.EventDataKeys.MediaEventName.PLAY,
+                MediaInternalConstants.EventDataKeys.MediaEventName.PAUSE
+            ),
+            eventNames
+        )
+    }
+
+    @Test
+    fun `trackBatch() does not block other tracking calls while the batch runs`() {
+        tracker.trackSessionStart(mediaInfo, null)
+        val batchStarted = CountDownLatch(1)
+        val releaseBatch = CountDownLatch(1)
+        val batchThread = thread {
+            tracker.trackBatch { batchTracker ->
+                batchTracker.trackPlay()
+                batchStarted.countDown()
+                releaseBatch.await()
+            }
+        }
+        assertTrue(batchStarted.await(1, TimeUnit.SECONDS))
+
+        // Ticks are skipped until the batch is dispatched, calls from other threads are sent
+        tracker.incrementCurrentTimestamp(1000)
+        tracker.runTick()
+        tracker.trackPause()
+        assertEquals(
+            listOf(
+                MediaInternalConstants.EventDataKeys.MediaEventName.SESSION_START,
+                MediaInternalConstants.EventDataKeys.MediaEventName.PAUSE
+            ),
+            generatedEvents.map { getEventName(it) }
+        )
+
+        releaseBatch.countDown()
+        batchThread.join()
+
+        assertEquals(3, generatedEvents.size)
+        val entries = generatedEvents[2].eventData[MediaInternalConstants.EventDataKeys.Tracker.EVENT_BATCH] as List<*>
+        assertEquals(
+            listOf(MediaInternalConstants.EventDataKeys.MediaEventName.PLAY),
+            entries.map { (it as Map<*, *>)[MediaInternalConstants.EventDataKeys.Tracker.EVENT_NAME] }
+        )
+    }
+
+    @Test
+    fun `trackBatch() without tracking calls does not dispatch events`() {
+        tracker.trackBatch { }
+
+        assertEquals(0, generatedEvents.size)
+    }
+
+    @Test
+    fun `direct dispatch queues tracking calls and dispatches a signal event for each`() {
+        val trackerId = "direct tracker"
+        tracker = TestableMediaTrackerEventGenerator(trackerId, { generatedEvents.add(it) }, false, true)
+        tracker.trackSessionStart(mediaInfo, null)
+        tracker.trackPlay()
+        tracker.trackPause()
+
+        assertEquals(3, generatedEvents.size)
+        val signalData = generatedEvents[1].eventData
+        assertEquals(trackerId, signalData[MediaInternalConstants.EventDataKeys.Tracker.ID])
+        assertEquals(true, signalData[MediaInternalConstants.EventDataKeys.Tracker.DIRECT_DISPATCH])
+        assertEquals(2L, signalData[MediaInternalConstants.EventDataKeys.Tracker.SIGNAL_SEQUENCE])
+        assertNull(signalData[MediaInternalConstants.EventDataKeys.Tracker.EVENT_NAME])
+
+        val eventNames = mutableListOf<Any?>()
+        MediaTrackerRegistry.getTrackChannel(trackerId)!!.drain(2L) { eventNames.add(it[MediaInternalConstants.EventDataKeys.Tracker.EVENT_NAME]) }
+        assertEquals(
+            listOf(
+                MediaInternalConstants.EventDataKeys.MediaEventName.SESSION_START,
+                MediaInternalConstants.EventDataKeys.MediaEventName.PLAY
+            ),
+            eventNames
+        )
+    }
+
+    private fun getEventName(event: Event): String? {
+        return event.eventData[MediaInternalConstants.EventDataKeys.Tracker.EVENT_NAME] as String?
+    }
+}
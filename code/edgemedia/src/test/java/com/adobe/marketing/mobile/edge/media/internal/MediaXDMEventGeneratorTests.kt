@@ -19,6 +19,7 @@ import com.adobe.marketing.mobile.edge.media.internal.xdm.XDMMediaEventType
 import com.adobe.marketing.mobile.edge.media.internal.xdm.XDMMediaSchema
 import com.adobe.marketing.mobile.edge.media.internal.xdm.XDMPlayerStateData
 import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
 import org.junit.Before
 import org.junit.Test
 import org.mockito.ArgumentCaptor
@@ -26,7 +27,6 @@ import org.mockito.Captor
 import org.mockito.Mockito
 import org.mockito.Mockito.times
 import org.mockito.Mockito.verify
-import java.util.Date
 
 class MediaXDMEventGeneratorTests {
     private lateinit var mediaInfo: MediaInfo
@@ -58,7 +58,7 @@ class MediaXDMEventGeneratorTests {
         mockEventProcessor = Mockito.mock(MediaEventProcessor::class.java)
         Mockito.`when`(mockEventProcessor.createSession()).thenReturn((currSessionId++).toString())
 
-        eventGenerator = MediaXDMEventGenerator(mediaContext, mockEventProcessor, mapOf(), 0)
+        eventGenerator = MediaXDMEventGenerator(mediaContext, mockEventProcessor, MediaTrackerConfig.create(mapOf()), 0)
     }
 
     @Test
@@ -74,7 +74,7 @@ class MediaXDMEventGeneratorTests {
         mediaCollection.sessionDetails = sessionDetails
         mediaCollection.customMetadata = customMetadata
 
-        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.SESSION_START, Date(0), mediaCollection))
+        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.SESSION_START, 0L, mediaCollection))
 
         // test
         eventGenerator.processSessionStart()
@@ -92,7 +92,7 @@ class MediaXDMEventGeneratorTests {
         eventGenerator = MediaXDMEventGenerator(
             mediaContext,
             mockEventProcessor,
-            mapOf(MediaConstants.TrackerConfig.CHANNEL to "channel"),
+            MediaTrackerConfig.create(mapOf(MediaConstants.TrackerConfig.CHANNEL to "channel")),
             0
         )
         val sessionDetails = MediaXDMEventHelper.generateSessionDetails(mediaInfo, metadata)
@@ -106,7 +106,7 @@ class MediaXDMEventGeneratorTests {
         mediaCollection.sessionDetails = sessionDetails
         mediaCollection.customMetadata = customMetadata
 
-        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.SESSION_START, Date(0), mediaCollection))
+        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.SESSION_START, 0L, mediaCollection))
 
         // test
         eventGenerator.processSessionStart()
@@ -126,7 +126,7 @@ class MediaXDMEventGeneratorTests {
         val mediaCollection = XDMMediaCollection()
         mediaCollection.playhead = getPlayhead()
 
-        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.SESSION_COMPLETE, Date(10), mediaCollection))
+        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.SESSION_COMPLETE, 10L, mediaCollection))
 
         // test
         eventGenerator.processSessionComplete()
@@ -146,7 +146,7 @@ class MediaXDMEventGeneratorTests {
         val mediaCollection = XDMMediaCollection()
         mediaCollection.playhead = getPlayhead()
 
-        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.SESSION_END, Date(10), mediaCollection))
+        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.SESSION_END, 10L, mediaCollection))
 
         // test
         eventGenerator.processSessionEnd()
@@ -168,7 +168,7 @@ class MediaXDMEventGeneratorTests {
         val mediaCollection = XDMMediaCollection()
         mediaCollection.playhead = getPlayhead()
 
-        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.SESSION_END, Date(10), mediaCollection))
+        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.SESSION_END, 10L, mediaCollection))
 
         // test
         eventGenerator.processSessionEnd()
@@ -188,7 +188,7 @@ class MediaXDMEventGeneratorTests {
         val mediaCollection = XDMMediaCollection()
         mediaCollection.playhead = getPlayhead()
 
-        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.SESSION_COMPLETE, Date(10), mediaCollection))
+        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.SESSION_COMPLETE, 10L, mediaCollection))
 
         // test
         eventGenerator.processSessionComplete()
@@ -213,7 +213,7 @@ class MediaXDMEventGeneratorTests {
         mediaCollection.playhead = getPlayhead()
         mediaCollection.advertisingPodDetails = adBreakDetails
 
-        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.AD_BREAK_START, Date(0), mediaCollection))
+        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.AD_BREAK_START, 0L, mediaCollection))
 
         // test
         eventGenerator.processAdBreakStart()
@@ -231,7 +231,7 @@ class MediaXDMEventGeneratorTests {
         val mediaCollection = XDMMediaCollection()
         mediaCollection.playhead = getPlayhead()
 
-        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.AD_BREAK_COMPLETE, Date(0), mediaCollection))
+        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.AD_BREAK_COMPLETE, 0L, mediaCollection))
 
         // test
         eventGenerator.processAdBreakSkip()
@@ -249,7 +249,7 @@ class MediaXDMEventGeneratorTests {
         val mediaCollection = XDMMediaCollection()
         mediaCollection.playhead = getPlayhead()
 
-        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.AD_BREAK_COMPLETE, Date(0), mediaCollection))
+        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.AD_BREAK_COMPLETE, 0L, mediaCollection))
 
         // test
         eventGenerator.processAdBreakComplete()
@@ -276,7 +276,7 @@ class MediaXDMEventGeneratorTests {
         mediaCollection.advertisingDetails = adDetails
         mediaCollection.customMetadata = adMetadata
 
-        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.AD_START, Date(0), mediaCollection))
+        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.AD_START, 0L, mediaCollection))
 
         // test
         eventGenerator.processAdStart()
@@ -294,7 +294,7 @@ class MediaXDMEventGeneratorTests {
         val mediaCollection = XDMMediaCollection()
         mediaCollection.playhead = getPlayhead()
 
-        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.AD_SKIP, Date(0), mediaCollection))
+        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.AD_SKIP, 0L, mediaCollection))
 
         // test
         eventGenerator.processAdSkip()
@@ -312,7 +312,7 @@ class MediaXDMEventGeneratorTests {
         val mediaCollection = XDMMediaCollection()
         mediaCollection.playhead = getPlayhead()
 
-        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.AD_COMPLETE, Date(0), mediaCollection))
+        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.AD_COMPLETE, 0L, mediaCollection))
 
         // test
         eventGenerator.processAdComplete()
@@ -339,7 +339,7 @@ class MediaXDMEventGeneratorTests {
         mediaCollection.chapterDetails = chapterDetails
         mediaCollection.customMetadata = chapterMetadata
 
-        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.CHAPTER_START, Date(0), mediaCollection))
+        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.CHAPTER_START, 0L, mediaCollection))
 
         // test
         eventGenerator.processChapterStart()
@@ -357,7 +357,7 @@ class MediaXDMEventGeneratorTests {
         val mediaCollection = XDMMediaCollection()
         mediaCollection.playhead = getPlayhead()
 
-        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.CHAPTER_SKIP, Date(0), mediaCollection))
+        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.CHAPTER_SKIP, 0L, mediaCollection))
 
         // test
         eventGenerator.processChapterSkip()
@@ -375,7 +375,7 @@ class MediaXDMEventGeneratorTests {
         val mediaCollection = XDMMediaCollection()
         mediaCollection.playhead = getPlayhead()
 
-        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.CHAPTER_COMPLETE, Date(0), mediaCollection))
+        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.CHAPTER_COMPLETE, 0L, mediaCollection))
 
         // test
         eventGenerator.processChapterComplete()
@@ -393,7 +393,7 @@ class MediaXDMEventGeneratorTests {
         val mediaCollection = XDMMediaCollection()
         mediaCollection.playhead = getPlayhead()
 
-        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.SESSION_END, Date(0), mediaCollection))
+        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.SESSION_END, 0L, mediaCollection))
 
         // test
         eventGenerator.processSessionAbort()
@@ -418,7 +418,7 @@ class MediaXDMEventGeneratorTests {
         mediaCollection.sessionDetails = sessionDetails
         mediaCollection.customMetadata = customMetadata
 
-        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.SESSION_START, Date(0), mediaCollection))
+        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.SESSION_START, 0L, mediaCollection))
 
         // test
         eventGenerator.processSessionRestart()
@@ -454,8 +454,8 @@ class MediaXDMEventGeneratorTests {
         mediaCollection2.chapterDetails = chapterDetails
         mediaCollection2.customMetadata = chapterMetadata
 
-        val expectedEvent1 = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.SESSION_START, Date(0), mediaCollection1))
-        val expectedEvent2 = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.CHAPTER_START, Date(0), mediaCollection2))
+        val expectedEvent1 = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.SESSION_START, 0L, mediaCollection1))
+        val expectedEvent2 = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.CHAPTER_START, 0L, mediaCollection2))
 
         // test
         eventGenerator.processSessionRestart()
@@ -500,9 +500,9 @@ class MediaXDMEventGeneratorTests {
         mediaCollection3.advertisingDetails = adDetails
         mediaCollection3.customMetadata = adMetadata
 
-        val expectedEvent1 = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.SESSION_START, Date(0), mediaCollection1))
-        val expectedEvent2 = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.AD_BREAK_START, Date(0), mediaCollection2))
-        val expectedEvent3 = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.AD_START, Date(0), mediaCollection3))
+        val expectedEvent1 = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.SESSION_START, 0L, mediaCollection1))
+        val expectedEvent2 = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.AD_BREAK_START, 0L, mediaCollection2))
+        val expectedEvent3 = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.AD_START, 0L, mediaCollection3))
         // test
         eventGenerator.processSessionRestart()
 
@@ -544,10 +544,10 @@ class MediaXDMEventGeneratorTests {
         mediaCollection4.playhead = getPlayhead()
         mediaCollection4.statesStart = listOf(XDMPlayerStateData(playerStatesOrderedList[2].stateName))
 
-        val expectedEvent1 = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.SESSION_START, Date(0), mediaCollection1))
-        val expectedEvent2 = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.STATES_UPDATE, Date(0), mediaCollection2))
-        val expectedEvent3 = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.STATES_UPDATE, Date(0), mediaCollection3))
-        val expectedEvent4 = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.STATES_UPDATE, Date(0), mediaCollection4))
+        val expectedEvent1 = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.SESSION_START, 0L, mediaCollection1))
+        val expectedEvent2 = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.STATES_UPDATE, 0L, mediaCollection2))
+        val expectedEvent3 = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.STATES_UPDATE, 0L, mediaCollection3))
+        val expectedEvent4 = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.STATES_UPDATE, 0L, mediaCollection4))
         // test
         eventGenerator.processSessionRestart()
 
@@ -572,7 +572,7 @@ class MediaXDMEventGeneratorTests {
         mediaCollection.playhead = getPlayhead()
         mediaCollection.qoeDataDetails = qoeDetails
 
-        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.BITRATE_CHANGE, Date(0), mediaCollection))
+        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.BITRATE_CHANGE, 0L, mediaCollection))
 
         // test
         eventGenerator.processBitrateChange()
@@ -584,6 +584,35 @@ class MediaXDMEventGeneratorTests {
         assertEquals(expectedEvent, actualEvent)
     }
 
+    @Test
+    fun testQoEUpdate_attachedOnlyToTheNextEventAfterAChange() {
+        // setup
+        val qoeInfo = QoEInfo.create(1234, 12, 123, 1)
+        val qoeDetails = MediaXDMEventHelper.generateQoEDataDetails(qoeInfo)
+
+        // test
+        mediaContext.qoEInfo = qoeInfo
+        eventGenerator.processPlayback(doFlush = true)
+        eventGenerator.processPlayback(doFlush = true)
+        // same QoE values are not reported again
+        mediaContext.qoEInfo = QoEInfo.create(1234, 12, 123, 1)
+        eventGenerator.processPlayback(doFlush = true)
+        val updatedQoEInfo = QoEInfo.create(2345, 12, 123, 1)
+        mediaContext.qoEInfo = updatedQoEInfo
+        eventGenerator.processPlayback(doFlush = true)
+
+        // verify
+        verify(mockEventProcessor, times(4)).processEvent(capture(sessionIdCaptor), capture(eventCaptor))
+        val capturedEventValues = eventCaptor.allValues
+        assertEquals(qoeDetails, capturedEventValues[0].xdmData.mediaCollection.qoeDataDetails)
+        assertNull(capturedEventValues[1].xdmData.mediaCollection.qoeDataDetails)
+        assertNull(capturedEventValues[2].xdmData.mediaCollection.qoeDataDetails)
+        assertEquals(
+            MediaXDMEventHelper.generateQoEDataDetails(updatedQoEInfo),
+            capturedEventValues[3].xdmData.mediaCollection.qoeDataDetails
+        )
+    }
+
     @Test
     fun testProcessError() {
         // setup
@@ -591,7 +620,7 @@ class MediaXDMEventGeneratorTests {
         mediaCollection.playhead = getPlayhead()
         mediaCollection.errorDetails = MediaXDMEventHelper.generateErrorDetails("errorID")
 
-        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.ERROR, Date(0), mediaCollection))
+        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.ERROR, 0L, mediaCollection))
 
         // test
         eventGenerator.processError("errorID")
@@ -611,7 +640,7 @@ class MediaXDMEventGeneratorTests {
         val mediaCollection = XDMMediaCollection()
         mediaCollection.playhead = getPlayhead()
 
-        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PLAY, Date(0), mediaCollection))
+        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PLAY, 0L, mediaCollection))
 
         // test
         eventGenerator.processPlayback()
@@ -631,7 +660,7 @@ class MediaXDMEventGeneratorTests {
         val mediaCollection = XDMMediaCollection()
         mediaCollection.playhead = getPlayhead()
 
-        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PAUSE_START, Date(0), mediaCollection))
+        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PAUSE_START, 0L, mediaCollection))
 
         // test
         eventGenerator.processPlayback()
@@ -651,7 +680,7 @@ class MediaXDMEventGeneratorTests {
         val mediaCollection = XDMMediaCollection()
         mediaCollection.playhead = getPlayhead()
 
-        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PAUSE_START, Date(0), mediaCollection))
+        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PAUSE_START, 0L, mediaCollection))
 
         // test
         eventGenerator.processPlayback()
@@ -671,7 +700,7 @@ class MediaXDMEventGeneratorTests {
         val mediaCollection = XDMMediaCollection()
         mediaCollection.playhead = getPlayhead()
 
-        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.BUFFER_START, Date(0), mediaCollection))
+        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.BUFFER_START, 0L, mediaCollection))
 
         // test
         eventGenerator.processPlayback()
@@ -689,7 +718,7 @@ class MediaXDMEventGeneratorTests {
         val mediaCollection = XDMMediaCollection()
         mediaCollection.playhead = getPlayhead()
 
-        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PING, Date(0), mediaCollection))
+        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PING, 0L, mediaCollection))
 
         // test
         eventGenerator.processPlayback(doFlush = true)
@@ -709,7 +738,7 @@ class MediaXDMEventGeneratorTests {
         val mediaCollection = XDMMediaCollection()
         mediaCollection.playhead = getPlayhead()
 
-        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.SESSION_END, Date(0), mediaCollection))
+        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.SESSION_END, 0L, mediaCollection))
 
         // test
         eventGenerator.processSessionEnd()
@@ -731,7 +760,7 @@ class MediaXDMEventGeneratorTests {
         val mediaCollection = XDMMediaCollection()
         mediaCollection.playhead = getPlayhead()
 
-        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.SESSION_COMPLETE, Date(0), mediaCollection))
+        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.SESSION_COMPLETE, 0L, mediaCollection))
 
         // test
         eventGenerator.processSessionComplete()
@@ -752,7 +781,7 @@ class MediaXDMEventGeneratorTests {
         mediaCollection.playhead = getPlayhead()
         mediaCollection.statesStart = listOf(XDMPlayerStateData(MediaConstants.PlayerState.FULLSCREEN))
 
-        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.STATES_UPDATE, Date(0), mediaCollection))
+        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.STATES_UPDATE, 0L, mediaCollection))
 
         // test
         eventGenerator.processStateStart(StateInfo.create(MediaConstants.PlayerState.FULLSCREEN))
@@ -771,7 +800,7 @@ class MediaXDMEventGeneratorTests {
         mediaCollection.playhead = getPlayhead()
         mediaCollection.statesEnd = listOf(XDMPlayerStateData(MediaConstants.PlayerState.FULLSCREEN))
 
-        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.STATES_UPDATE, Date(0), mediaCollection))
+        val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.STATES_UPDATE, 0L, mediaCollection))
 
         // test
         eventGenerator.processStateEnd(StateInfo.create(MediaConstants.PlayerState.FULLSCREEN))
@@ -791,12 +820,12 @@ class MediaXDMEventGeneratorTests {
 
             val internalMS = interval * 1000
             val trackerConfig = mapOf<String, Any>(MediaConstants.TrackerConfig.MAIN_PING_INTERVAL to interval)
-            eventGenerator = MediaXDMEventGenerator(mediaContext, mockEventProcessor, trackerConfig, 0)
+            eventGenerator = MediaXDMEventGenerator(mediaContext, mockEventProcessor, MediaTrackerConfig.create(trackerConfig), 0)
             updateTs(internalMS, reset = true)
 
             val mediaCollection = XDMMediaCollection()
             mediaCollection.playhead = getPlayhead()
-            val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PING, Date(mockTimestamp), mediaCollection))
+            val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PING, mockTimestamp, mediaCollection))
 
             // test
             eventGenerator.processPlayback()
@@ -816,12 +845,12 @@ class MediaXDMEventGeneratorTests {
             mockEventProcessor = Mockito.mock(MediaEventProcessor::class.java) // create new mock for each iteration
 
             val trackerConfig = mapOf<String, Any>(MediaConstants.TrackerConfig.MAIN_PING_INTERVAL to interval)
-            eventGenerator = MediaXDMEventGenerator(mediaContext, mockEventProcessor, trackerConfig, 0)
+            eventGenerator = MediaXDMEventGenerator(mediaContext, mockEventProcessor, MediaTrackerConfig.create(trackerConfig), 0)
             updateTs(MediaInternalConstants.PingInterval.REALTIME_TRACKING_MS, reset = true)
 
             val mediaCollection = XDMMediaCollection()
             mediaCollection.playhead = getPlayhead()
-            val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PING, Date(mockTimestamp), mediaCollection))
+            val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PING, mockTimestamp, mediaCollection))
 
             // test
             eventGenerator.processPlayback()
@@ -842,14 +871,14 @@ class MediaXDMEventGeneratorTests {
 
             val internalMS = interval * 1000
             val trackerConfig = mapOf<String, Any>(MediaConstants.TrackerConfig.AD_PING_INTERVAL to interval)
-            eventGenerator = MediaXDMEventGenerator(mediaContext, mockEventProcessor, trackerConfig, 0)
+            eventGenerator = MediaXDMEventGenerator(mediaContext, mockEventProcessor, MediaTrackerConfig.create(trackerConfig), 0)
             updateTs(internalMS, reset = true)
             // mock adStart
             mediaContext.setAdInfo(AdInfo.create("id", "ad", 1, 15), mapOf())
 
             val mediaCollection = XDMMediaCollection()
             mediaCollection.playhead = getPlayhead()
-            val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PING, Date(mockTimestamp), mediaCollection))
+            val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PING, mockTimestamp, mediaCollection))
 
             // test
             eventGenerator.processPlayback()
@@ -869,14 +898,14 @@ class MediaXDMEventGeneratorTests {
             mockEventProcessor = Mockito.mock(MediaEventProcessor::class.java) // create new mock for each iteration
 
             val trackerConfig = mapOf<String, Any>(MediaConstants.TrackerConfig.AD_PING_INTERVAL to interval)
-            eventGenerator = MediaXDMEventGenerator(mediaContext, mockEventProcessor, trackerConfig, 0)
+            eventGenerator = MediaXDMEventGenerator(mediaContext, mockEventProcessor, MediaTrackerConfig.create(trackerConfig), 0)
             updateTs(MediaInternalConstants.PingInterval.REALTIME_TRACKING_MS, reset = true)
             // mock adStart
             mediaContext.setAdInfo(AdInfo.create("id", "ad", 1, 15), mapOf())
 
             val mediaCollection = XDMMediaCollection()
             mediaCollection.playhead = getPlayhead()
-            val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PING, Date(mockTimestamp), mediaCollection))
+            val expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PING, mockTimestamp, mediaCollection))
 
             // test
             eventGenerator.processPlayback()
@@ -896,13 +925,13 @@ class MediaXDMEventGeneratorTests {
             MediaConstants.TrackerConfig.MAIN_PING_INTERVAL to 15,
             MediaConstants.TrackerConfig.AD_PING_INTERVAL to 3
         )
-        eventGenerator = MediaXDMEventGenerator(mediaContext, mockEventProcessor, trackerConfig, 0)
+        eventGenerator = MediaXDMEventGenerator(mediaContext, mockEventProcessor, MediaTrackerConfig.create(trackerConfig), 0)
 
         updateTs(15 * 1000)
 
         val mediaCollection = XDMMediaCollection()
         mediaCollection.playhead = getPlayhead()
-        var expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PING, Date(mockTimestamp), mediaCollection))
+        var expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PING, mockTimestamp, mediaCollection))
 
         // test main content ping interval
         eventGenerator.processPlayback()
@@ -916,7 +945,7 @@ class MediaXDMEventGeneratorTests {
         updateTs(3 * 1000)
 
         mediaCollection.playhead = getPlayhead()
-        expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PING, Date(mockTimestamp), mediaCollection))
+        expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PING, mockTimestamp, mediaCollection))
 
         // test ad content ping interval
         eventGenerator.processPlayback()
@@ -932,13 +961,13 @@ class MediaXDMEventGeneratorTests {
         val trackerConfig = mapOf<String, Any>(
             MediaConstants.TrackerConfig.AD_PING_INTERVAL to 3
         )
-        eventGenerator = MediaXDMEventGenerator(mediaContext, mockEventProcessor, trackerConfig, 0)
+        eventGenerator = MediaXDMEventGenerator(mediaContext, mockEventProcessor, MediaTrackerConfig.create(trackerConfig), 0)
 
         updateTs(MediaInternalConstants.PingInterval.REALTIME_TRACKING_MS)
 
         val mediaCollection = XDMMediaCollection()
         mediaCollection.playhead = getPlayhead()
-        var expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PING, Date(mockTimestamp), mediaCollection))
+        var expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PING, mockTimestamp, mediaCollection))
 
         // test main content ping interval
         eventGenerator.processPlayback()
@@ -952,7 +981,7 @@ class MediaXDMEventGeneratorTests {
         updateTs(3 * 1000)
 
         mediaCollection.playhead = getPlayhead()
-        expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PING, Date(mockTimestamp), mediaCollection))
+        expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PING, mockTimestamp, mediaCollection))
 
         // test ad content ping interval
         eventGenerator.processPlayback()
@@ -967,7 +996,7 @@ class MediaXDMEventGeneratorTests {
         eventGenerator.processPlayback()
 
         mediaCollection.playhead = getPlayhead()
-        expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PING, Date(mockTimestamp), mediaCollection))
+        expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PING, mockTimestamp, mediaCollection))
 
         // verify main content ping interval after exiting from ad
         verify(mockEventProcessor, times(3)).processEvent(capture(sessionIdCaptor), capture(eventCaptor))
@@ -980,13 +1009,13 @@ class MediaXDMEventGeneratorTests {
         val trackerConfig = mapOf<String, Any>(
             MediaConstants.TrackerConfig.MAIN_PING_INTERVAL to 15
         )
-        eventGenerator = MediaXDMEventGenerator(mediaContext, mockEventProcessor, trackerConfig, 0)
+        eventGenerator = MediaXDMEventGenerator(mediaContext, mockEventProcessor, MediaTrackerConfig.create(trackerConfig), 0)
 
         updateTs(15 * 1000)
 
         val mediaCollection = XDMMediaCollection()
         mediaCollection.playhead = getPlayhead()
-        var expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PING, Date(mockTimestamp), mediaCollection))
+        var expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PING, mockTimestamp, mediaCollection))
 
         // test main content ping interval
         eventGenerator.processPlayback()
@@ -1000,7 +1029,7 @@ class MediaXDMEventGeneratorTests {
         updateTs(MediaInternalConstants.PingInterval.REALTIME_TRACKING_MS)
 
         mediaCollection.playhead = getPlayhead()
-        expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PING, Date(mockTimestamp), mediaCollection))
+        expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PING, mockTimestamp, mediaCollection))
 
         // test ad content ping interval
         eventGenerator.processPlayback()
@@ -1015,7 +1044,7 @@ class MediaXDMEventGeneratorTests {
         eventGenerator.processPlayback()
 
         mediaCollection.playhead = getPlayhead()
-        expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PING, Date(mockTimestamp), mediaCollection))
+        expectedEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PING, mockTimestamp, mediaCollection))
 
         // verify main content ping interval after exiting from ad
         verify(mockEventProcessor, times(3)).processEvent(capture(sessionIdCaptor), capture(eventCaptor))
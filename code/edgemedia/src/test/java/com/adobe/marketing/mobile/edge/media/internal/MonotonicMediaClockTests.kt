@@ -0,0 +1,63 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.media.internal
+
+import android.os.SystemClock
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.mockito.MockedStatic
+import org.mockito.Mockito
+import kotlin.math.abs
+
+class MonotonicMediaClockTests {
+    private var elapsedRealtimeNanos = 5_000_000_000L
+    private lateinit var systemClockMock: MockedStatic<SystemClock>
+
+    @Before
+    fun setup() {
+        systemClockMock = Mockito.mockStatic(SystemClock::class.java)
+        systemClockMock.`when`<Long> { SystemClock.elapsedRealtimeNanos() }.thenAnswer { elapsedRealtimeNanos }
+    }
+
+    @After
+    fun teardown() {
+        systemClockMock.close()
+    }
+
+    @Test
+    fun `getCurrentTimeMillis() is close to wall clock time`() {
+        val clockTime = MonotonicMediaClock().currentTimeMillis
+        assertTrue(abs(System.currentTimeMillis() - clockTime) < 1000)
+    }
+
+    @Test
+    fun `getCurrentTimeMillis() advances with elapsed realtime`() {
+        val clock = MonotonicMediaClock()
+        val start = clock.currentTimeMillis
+
+        elapsedRealtimeNanos += 20_000_000L
+        assertEquals(20L, clock.currentTimeMillis - start)
+    }
+
+    @Test
+    fun `getCurrentTimeMillis() accounts for deep sleep`() {
+        val clock = MonotonicMediaClock()
+        val start = clock.currentTimeMillis
+
+        // The elapsed realtime keeps counting while the device sleeps, unlike System.nanoTime()
+        elapsedRealtimeNanos += 3_600_000_000_000L
+        assertEquals(3_600_000L, clock.currentTimeMillis - start)
+    }
+}
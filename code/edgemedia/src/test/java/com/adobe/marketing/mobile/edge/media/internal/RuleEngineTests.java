@@ -13,17 +13,15 @@ package com.adobe.marketing.mobile.edge.media.internal;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
-import java.util.HashMap;
-import java.util.Map;
 import org.junit.Before;
 import org.junit.Test;
-import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
@@ -83,7 +81,7 @@ public class RuleEngineTests {
 
         MediaRuleResponse res = ruleEngine.processRule(1);
 
-        verify(mockActionCallback, times(1)).call(eq(null), ArgumentMatchers.anyMap());
+        verify(mockActionCallback, times(1)).call(eq(null), any(MediaRuleContext.class));
         assertTrue(res.isValid);
     }
 
@@ -142,7 +140,7 @@ public class RuleEngineTests {
         ruleEngine.addRule(rule);
 
         MediaRuleResponse res = ruleEngine.processRule(1);
-        verify(mockActionCallback, times(2)).call(eq(null), ArgumentMatchers.anyMap());
+        verify(mockActionCallback, times(2)).call(eq(null), any(MediaRuleContext.class));
         assertTrue(res.isValid);
     }
 
@@ -168,8 +166,8 @@ public class RuleEngineTests {
         ruleEngine.addRule(rule);
 
         MediaRuleResponse res = ruleEngine.processRule(1);
-        verify(mockActionCallback, times(1)).call(eq(null), ArgumentMatchers.anyMap());
-        verify(mockActionCallback2, times(0)).call(eq(null), ArgumentMatchers.anyMap());
+        verify(mockActionCallback, times(1)).call(eq(null), any(MediaRuleContext.class));
+        verify(mockActionCallback2, times(0)).call(eq(null), any(MediaRuleContext.class));
         assertTrue(res.isValid);
     }
 
@@ -197,8 +195,10 @@ public class RuleEngineTests {
         ruleEngine.addRule(rule);
 
         MediaRuleResponse res = ruleEngine.processRule(1);
-        verify(mockActionCallback, times(1)).call(any(MediaRule.class), ArgumentMatchers.anyMap());
-        verify(mockActionCallback2, times(1)).call(any(MediaRule.class), ArgumentMatchers.anyMap());
+        verify(mockActionCallback, times(1))
+                .call(any(MediaRule.class), any(MediaRuleContext.class));
+        verify(mockActionCallback2, times(1))
+                .call(any(MediaRule.class), any(MediaRuleContext.class));
         assertTrue(res.isValid);
     }
 
@@ -226,8 +226,10 @@ public class RuleEngineTests {
         ruleEngine.addRule(rule);
 
         MediaRuleResponse res = ruleEngine.processRule(1);
-        verify(mockActionCallback, times(1)).call(any(MediaRule.class), ArgumentMatchers.anyMap());
-        verify(mockActionCallback2, times(0)).call(any(MediaRule.class), ArgumentMatchers.anyMap());
+        verify(mockActionCallback, times(1))
+                .call(any(MediaRule.class), any(MediaRuleContext.class));
+        verify(mockActionCallback2, times(0))
+                .call(any(MediaRule.class), any(MediaRuleContext.class));
         assertTrue(res.isValid);
     }
 
@@ -238,13 +240,9 @@ public class RuleEngineTests {
 
         rule.addPredicate(
                 (rule1, context) -> {
-                    assertTrue(context.containsKey("k1"));
+                    assertEquals("v1", context.getSessionId());
 
-                    if (context.containsKey("k1")) {
-                        assertEquals("v1", context.get("k1"));
-                    }
-
-                    context.put("k1", "v2");
+                    context.setSessionId("v2");
                     return true;
                 },
                 true,
@@ -252,21 +250,97 @@ public class RuleEngineTests {
 
         rule.addAction(
                 (rule12, context) -> {
-                    assertTrue(context.containsKey("k1"));
-
-                    if (context.containsKey("k1")) {
-                        assertEquals("v2", context.get("k1"));
-                    }
-
+                    assertEquals("v2", context.getSessionId());
                     return true;
                 });
 
         ruleEngine.addRule(rule);
 
-        Map<String, Object> context = new HashMap<>();
-        context.put("k1", "v1");
+        MediaRuleContext context = new MediaRuleContext();
+        context.setSessionId("v1");
 
         MediaRuleResponse res = ruleEngine.processRule(1, context);
         assertTrue(res.isValid);
     }
+
+    @Test
+    public void test_addRule_nameOutsideRuleNames_success() {
+        MediaRuleEngine ruleEngine = new MediaRuleEngine();
+        MediaRule rule = new MediaRule(MediaRuleName.values().length + 5, "Rule 1");
+        rule.addAction(mockActionCallback);
+
+        assertTrue(ruleEngine.addRule(rule));
+        assertFalse(ruleEngine.addRule(new MediaRule(-1, "Rule 2")));
+
+        MediaRuleResponse res = ruleEngine.processRule(MediaRuleName.values().length + 5);
+        verify(mockActionCallback, times(1)).call(eq(null), any(MediaRuleContext.class));
+        assertTrue(res.isValid);
+    }
+
+    @Test
+    public void test_processRule_statePredicates_success() {
+        MediaRuleEngine ruleEngine = new MediaRuleEngine();
+        ruleEngine.setStateProvider(
+                context -> MediaRule.STATE_IN_MEDIA | MediaRule.STATE_IN_AD_BREAK);
+
+        MediaRule rule = new MediaRule(1, "Rule 1");
+        rule.addStatePredicate(MediaRule.STATE_IN_MEDIA, true, "error message 1")
+                .addStatePredicate(MediaRule.STATE_IN_AD_BREAK, true, "error message 2")
+                .addStatePredicate(MediaRule.STATE_IN_BUFFERING, false, "error message 3")
+                .addAction(mockActionCallback);
+
+        ruleEngine.addRule(rule);
+
+        MediaRuleResponse res = ruleEngine.processRule(1);
+        verify(mockActionCallback, times(1)).call(eq(null), any(MediaRuleContext.class));
+        assertTrue(res.isValid);
+    }
+
+    @Test
+    public void test_processRule_failedStatePredicates_reportsFirstFailure() {
+        MediaRuleEngine ruleEngine = new MediaRuleEngine();
+        ruleEngine.setStateProvider(
+                context -> MediaRule.STATE_IN_MEDIA | MediaRule.STATE_IN_SEEKING);
+
+        MediaRule rule = new MediaRule(1, "Rule 1");
+        rule.addStatePredicate(MediaRule.STATE_IN_MEDIA, true, "error message 1")
+                .addPredicate((rule1, context) -> false, true, "error message 2")
+                .addStatePredicate(MediaRule.STATE_IN_SEEKING, false, "error message 3")
+                .addAction(mockActionCallback);
+
+        ruleEngine.addRule(rule);
+
+        MediaRuleResponse res = ruleEngine.processRule(1);
+        verify(mockActionCallback, times(0))
+                .call(any(MediaRule.class), any(MediaRuleContext.class));
+        assertFalse(res.isValid);
+        assertEquals("error message 2", res.message);
+    }
+
+    @Test
+    public void test_processRule_noStateProvider_statePredicatesFail() {
+        MediaRuleEngine ruleEngine = new MediaRuleEngine();
+
+        MediaRule rule = new MediaRule(1, "Rule 1");
+        rule.addStatePredicate(MediaRule.STATE_IN_MEDIA, true, "error message 1");
+
+        ruleEngine.addRule(rule);
+
+        MediaRuleResponse res = ruleEngine.processRule(1);
+        assertFalse(res.isValid);
+        assertEquals("error message 1", res.message);
+    }
+
+    @Test
+    public void test_processRule_reusesResponses() {
+        MediaRuleEngine ruleEngine = new MediaRuleEngine();
+        MediaRule rule1 = new MediaRule(1, "Rule 1");
+        rule1.addPredicate((rule, context) -> false, true, "error message 1");
+        ruleEngine.addRule(rule1);
+        ruleEngine.addRule(new MediaRule(2, "Rule 2"));
+
+        assertSame(ruleEngine.processRule(1), ruleEngine.processRule(1));
+        assertSame(ruleEngine.processRule(2), ruleEngine.processRule(2));
+        assertSame(ruleEngine.processRule(3), ruleEngine.processRule(3));
+    }
 }
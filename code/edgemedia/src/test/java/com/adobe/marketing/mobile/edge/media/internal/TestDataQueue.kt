@@ -0,0 +1,39 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.media.internal
+
+import com.adobe.marketing.mobile.services.DataEntity
+import com.adobe.marketing.mobile.services.DataQueue
+import org.mockito.ArgumentMatchers.any
+import org.mockito.ArgumentMatchers.anyInt
+import org.mockito.Mockito
+
+/**
+ * An in-memory [DataQueue] whose entities are kept in [records].
+ */
+class TestDataQueue {
+    val records = ArrayList<String>()
+
+    val dataQueue: DataQueue = Mockito.mock(DataQueue::class.java).also { queue ->
+        Mockito.`when`(queue.add(any())).thenAnswer {
+            records.add(it.getArgument<DataEntity>(0).data!!)
+        }
+        Mockito.`when`(queue.count()).thenAnswer { records.size }
+        Mockito.`when`(queue.peek(anyInt())).thenAnswer { invocation ->
+            records.take(invocation.getArgument(0)).map { DataEntity(it) }
+        }
+        Mockito.`when`(queue.clear()).thenAnswer {
+            records.clear()
+            true
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.media.internal
+
+import com.adobe.marketing.mobile.services.NamedCollection
+import org.mockito.ArgumentMatchers.anyString
+import org.mockito.Mockito
+
+/**
+ * An in-memory [NamedCollection] whose string values are kept in [values].
+ */
+class TestNamedCollection {
+    val values = HashMap<String, String>()
+
+    val namedCollection: NamedCollection = Mockito.mock(NamedCollection::class.java).also { collection ->
+        Mockito.doAnswer {
+            values[it.getArgument(0)] = it.getArgument(1)
+            null
+        }.`when`(collection).setString(anyString(), anyString())
+        Mockito.`when`(collection.getString(anyString(), Mockito.any())).thenAnswer {
+            values[it.getArgument<String>(0)] ?: it.getArgument<String?>(1)
+        }
+        Mockito.doAnswer {
+            values.remove(it.getArgument<String>(0))
+            null
+        }.`when`(collection).remove(anyString())
+        Mockito.`when`(collection.contains(anyString())).thenAnswer {
+            values.containsKey(it.getArgument<String>(0))
+        }
+    }
+}
@@ -13,38 +13,34 @@ package com.adobe.marketing.mobile.edge.media.internal
 
 import com.adobe.marketing.mobile.AdobeCallback
 import com.adobe.marketing.mobile.Event
+import java.util.concurrent.ScheduledFuture
 
 /**
- * A testable [MediaTrackerEventGenerator], which allows modification of current timestamp and
- * disables the idle/ping timer.
+ * A testable [MediaTrackerEventGenerator], which is driven by a [TestMediaClock] and does not
+ * schedule the idle/ping ticks, see [runTick].
  */
-class TestableMediaTrackerEventGenerator(
+class TestableMediaTrackerEventGenerator @JvmOverloads constructor(
     trackerId: String?,
-    eventConsumer: AdobeCallback<Event>?
-) : MediaTrackerEventGenerator(trackerId, eventConsumer) {
-
-    var currentTimestampMillis: Long = 0L
-
-    init {
-        // Override timestamp supplier
-        this.timestampSupplier = TimestampSupplier { currentTimestampMillis }
-    }
-
-    override fun getCurrentTimestamp(): Long {
-        return currentTimestampMillis
-    }
+    eventConsumer: AdobeCallback<Event>?,
+    coalescePlayhead: Boolean = false,
+    directDispatch: Boolean = false,
+    val clock: TestMediaClock = TestMediaClock()
+) : MediaTrackerEventGenerator(trackerId, eventConsumer, coalescePlayhead, directDispatch, clock) {
 
     fun setCurrentTimestamp(milliseconds: Long) {
-        currentTimestampMillis = milliseconds
+        clock.currentTimeMillis = milliseconds
     }
 
     fun incrementCurrentTimestamp(milliseconds: Long) {
-        currentTimestampMillis += milliseconds
+        clock.increment(milliseconds)
     }
 
-    // Disable timer
-    override fun startTimer() { }
+    // Runs a tick as if the next deadline was reached
+    fun runTick() {
+        onNextDeadline(clock.currentTimeMillis)
+        tick()
+    }
 
-    // Disable timer
-    override fun stopTimer() { }
+    // Ticks are only run by runTick
+    override fun scheduleTickTask(tickTask: Runnable, delayMs: Long): ScheduledFuture<*>? = null
 }
@@ -15,6 +15,7 @@ import com.adobe.marketing.mobile.util.TimeUtils
 import org.junit.Assert.assertEquals
 import org.junit.Assert.assertFalse
 import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertSame
 import org.junit.Assert.assertTrue
 import org.junit.Test
 import java.util.Date
@@ -652,15 +653,15 @@ class XDMPropertyTests {
 
     @Test
     fun `XDMMediaSchema serializeToXDM all properties`() {
-        val dateNow = Date()
+        val timestamp = System.currentTimeMillis()
         val mediaCollection = XDMMediaCollection()
         mediaCollection.sessionID = "99cf4e3e7145d8e2b8f4f1e9e1a08cd52518a74091c0b0c611ca97b259e03a4d"
-        val schema = XDMMediaSchema(XDMMediaEventType.PLAY, dateNow, mediaCollection)
+        val schema = XDMMediaSchema(XDMMediaEventType.PLAY, timestamp, mediaCollection)
 
         val xdm = schema.serializeToXDM()
         val expected = mapOf(
             "eventType" to XDMMediaEventType.getTypeString(XDMMediaEventType.PLAY),
-            "timestamp" to TimeUtils.getISO8601UTCDateWithMilliseconds(dateNow),
+            "timestamp" to TimeUtils.getISO8601UTCDateWithMilliseconds(Date(timestamp)),
             "mediaCollection" to mapOf("sessionID" to "99cf4e3e7145d8e2b8f4f1e9e1a08cd52518a74091c0b0c611ca97b259e03a4d")
         )
 
@@ -671,17 +672,17 @@ class XDMPropertyTests {
 
     @Test
     fun `XDMMediaEvent serializeToXDM all properties`() {
-        val dateNow = Date()
+        val timestamp = System.currentTimeMillis()
         val mediaCollection = XDMMediaCollection()
         mediaCollection.sessionID = "99cf4e3e7145d8e2b8f4f1e9e1a08cd52518a74091c0b0c611ca97b259e03a4d"
-        val schema = XDMMediaSchema(XDMMediaEventType.PLAY, dateNow, mediaCollection)
+        val schema = XDMMediaSchema(XDMMediaEventType.PLAY, timestamp, mediaCollection)
 
         val mediaEvent = XDMMediaEvent(schema)
         val xdm = mediaEvent.serializeToXDM()
         val expected = mapOf(
             "xdm" to mapOf(
                 "eventType" to XDMMediaEventType.getTypeString(XDMMediaEventType.PLAY),
-                "timestamp" to TimeUtils.getISO8601UTCDateWithMilliseconds(dateNow),
+                "timestamp" to TimeUtils.getISO8601UTCDateWithMilliseconds(Date(timestamp)),
                 "mediaCollection" to mapOf("sessionID" to "99cf4e3e7145d8e2b8f4f1e9e1a08cd52518a74091c0b0c611ca97b259e03a4d")
             ),
             "request" to mapOf("path" to "/va/v1/${XDMMediaEventType.PLAY.value}")
@@ -693,6 +694,33 @@ class XDMPropertyTests {
         assertEquals(expected.size - 1, XDMMediaEvent::class.memberProperties.size)
     }
 
+    @Test
+    fun `XDMMediaEvent serializeToXDM reuses the request path of the event type`() {
+        val firstEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PING, System.currentTimeMillis(), XDMMediaCollection()))
+        val secondEvent = XDMMediaEvent(XDMMediaSchema(XDMMediaEventType.PING, System.currentTimeMillis(), XDMMediaCollection()))
+
+        assertSame(firstEvent.serializeToXDM()["request"], secondEvent.serializeToXDM()["request"])
+        assertEquals("Edge Media - media.ping", XDMMediaEventType.PING.edgeEventName)
+    }
+
+    @Test
+    fun `XDMProperty serializeFromList keeps the list order`() {
+        val (playerStates, expected) = getSamplePlayerStateData()
+        val xdm = XDMMediaCollection().serializeFromList(playerStates)
+
+        assertEquals(expected, xdm)
+    }
+
+    @Test
+    fun `XDMProperty createXDMMap keeps the insertion order`() {
+        val map = XDMProperty.createXDMMap(2)
+        map["b"] = 1
+        map["a"] = 2
+        map["c"] = 3
+
+        assertEquals(listOf("b", "a", "c"), map.keys.toList())
+    }
+
     private fun getSampleAdvertisingDetails(): Pair<XDMAdvertisingDetails, Map<String, Any>> {
         val advertisingDetails = XDMAdvertisingDetails()
         advertisingDetails.name = "id"
@@ -0,0 +1,98 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.edge.media.internal.xdm
+
+import com.adobe.marketing.mobile.util.TimeUtils
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import java.util.Date
+import java.util.Random
+
+class XDMTimestampFormatterTests {
+
+    @Test
+    fun `format epoch`() {
+        assertEquals("1970-01-01T00:00:00.000Z", XDMTimestampFormatter.format(0))
+    }
+
+    @Test
+    fun `format pads milliseconds`() {
+        assertEquals("2024-03-15T08:05:09.001Z", XDMTimestampFormatter.format(1710489909001))
+        assertEquals("2024-03-15T08:05:09.010Z", XDMTimestampFormatter.format(1710489909010))
+        assertEquals("2024-03-15T08:05:09.100Z", XDMTimestampFormatter.format(1710489909100))
+        assertEquals("2024-03-15T08:05:09.999Z", XDMTimestampFormatter.format(1710489909999))
+    }
+
+    @Test
+    fun `format same second reuses prefix with new milliseconds`() {
+        assertEquals("2024-03-15T08:05:09.250Z", XDMTimestampFormatter.format(1710489909250))
+        assertEquals("2024-03-15T08:05:09.750Z", XDMTimestampFormatter.format(1710489909750))
+        assertEquals("2024-03-15T08:05:10.000Z", XDMTimestampFormatter.format(1710489910000))
+        assertEquals("2024-03-15T08:05:09.500Z", XDMTimestampFormatter.format(1710489909500))
+    }
+
+    @Test
+    fun `format leap days`() {
+        assertEquals("2024-02-28T23:59:59.999Z", XDMTimestampFormatter.format(1709164799999))
+        assertEquals("2024-02-29T00:00:00.000Z", XDMTimestampFormatter.format(1709164800000))
+        assertEquals("2024-02-29T23:59:59.999Z", XDMTimestampFormatter.format(1709251199999))
+        assertEquals("2024-03-01T00:00:00.000Z", XDMTimestampFormatter.format(1709251200000))
+        // 2000 is a leap year, divisible by 400
+        assertEquals("2000-02-29T12:00:00.000Z", XDMTimestampFormatter.format(951825600000))
+        // 2100 is not a leap year, divisible by 100
+        assertEquals("2100-03-01T00:00:00.000Z", XDMTimestampFormatter.format(4107542400000))
+        // 2023 is not a leap year
+        assertEquals("2023-03-01T00:00:00.000Z", XDMTimestampFormatter.format(1677628800000))
+    }
+
+    @Test
+    fun `format year boundaries`() {
+        assertEquals("2023-12-31T23:59:59.999Z", XDMTimestampFormatter.format(1704067199999))
+        assertEquals("2024-01-01T00:00:00.000Z", XDMTimestampFormatter.format(1704067200000))
+        assertEquals("2024-12-31T00:00:00.000Z", XDMTimestampFormatter.format(1735603200000))
+    }
+
+    @Test
+    fun `format timestamps before epoch`() {
+        assertEquals("1969-12-31T23:59:59.999Z", XDMTimestampFormatter.format(-1))
+        assertEquals("1969-12-31T23:59:59.000Z", XDMTimestampFormatter.format(-1000))
+        assertEquals("1900-03-01T00:00:00.000Z", XDMTimestampFormatter.format(-2203891200000))
+    }
+
+    @Test
+    fun `format matches TimeUtils`() {
+        val random = Random(42)
+        // 1970-01-01 to 2100-01-01
+        val range = 4102444800000L
+
+        for (i in 0 until 10000) {
+            val timestamp = Math.floorMod(random.nextLong(), range)
+            assertEquals(
+                TimeUtils.getISO8601UTCDateWithMilliseconds(Date(timestamp)),
+                XDMTimestampFormatter.format(timestamp)
+            )
+        }
+    }
+
+    @Test
+    fun `format consecutive milliseconds matches TimeUtils`() {
+        // Crosses second, day, month and year boundaries, starting at 2023-12-31T23:59:59.000Z
+        val start = 1704067199000L
+
+        for (timestamp in start until start + 2000) {
+            assertEquals(
+                TimeUtils.getISO8601UTCDateWithMilliseconds(Date(timestamp)),
+                XDMTimestampFormatter.format(timestamp)
+            )
+        }
+    }
+}